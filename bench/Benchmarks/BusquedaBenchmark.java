@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import Modelo.IndiceProductos;
+import Modelo.Productos;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsqueda por nombre del punto de venta ({@link IndiceProductos#buscar}) sobre
+ * un catálogo de 50 mil productos generados. No usa BD.
+ * <p>El objetivo es que cada búsqueda tarde menos de 1 ms (1000 µs), para
+ * poder buscar en cada tecla sin que se note en el hilo de Swing.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusquedaBenchmark {
+
+    private static final String[] PRINCIPIOS = {"Amoxicilina", "Paracetamol", "Ibuprofeno", "Naproxeno",
+        "Omeprazol", "Loratadina", "Cetirizina", "Metformina", "Losartan", "Atorvastatina", "Salbutamol",
+        "Diclofenaco", "Azitromicina", "Ciprofloxacino", "Clonazepam", "Dexametasona", "Ranitidina",
+        "Ketorolaco", "Ambroxol", "Fluconazol"};
+    private static final String[] FORMAS = {"tabletas", "cápsulas", "jarabe", "suspensión", "crema",
+        "gotas", "inyectable", "sobres"};
+    private static final String[] DOSIS = {"5mg", "10mg", "20mg", "50mg", "100mg", "250mg", "400mg",
+        "500mg", "1g"};
+    private static final String[] MARCAS = {"Genfar", "Portugal", "Medifarma", "Hersil", "Farmindustria",
+        "Bayer", "Roemmers", "Teva", "Sandoz", "Abbott"};
+
+    /** Productos del catálogo generado. */
+    public static final int PRODUCTOS = 50000;
+
+    // Prefijo, varias palabras, texto dentro de una palabra y con un error de tipeo.
+    @Param({"amoxi", "paracet 500", "profeno", "ibuprofneo"})
+    String consulta;
+
+    @Setup
+    public void cargar() {
+        Random azar = new Random(7);
+        List<Productos> productos = new ArrayList<>(PRODUCTOS);
+        for (int i = 1; i <= PRODUCTOS; i++) {
+            Productos p = new Productos();
+            p.setId(i);
+            p.setCodigo(String.format("P%06d", i));
+            p.setNombre(PRINCIPIOS[azar.nextInt(PRINCIPIOS.length)] + " " + DOSIS[azar.nextInt(DOSIS.length)]
+                    + " " + FORMAS[azar.nextInt(FORMAS.length)] + " " + MARCAS[azar.nextInt(MARCAS.length)]);
+            productos.add(p);
+        }
+        IndiceProductos.getInstancia().cargar(productos);
+    }
+
+    @Benchmark
+    public List<Productos> buscar() {
+        return IndiceProductos.getInstancia().buscar(consulta, 10);
+    }
+}
@@ -0,0 +1,59 @@
+package Benchmarks;
+
+import Modelo.Cliente;
+import Modelo.ClienteDao;
+import Modelo.Productos;
+import Modelo.ProductosDao;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas de la pantalla de venta: producto por código y cliente por DNI.
+ * <p>{@code BuscarPro} se mide en dos modos: {@code cache} (catálogo en memoria
+ * cargado, el caso normal) y {@code bd} (catálogo vacío antes de cada llamada,
+ * así cada búsqueda va a la BD).</p>
+ *
+ * @author Eduardo Jimenez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+    @Param({"cache", "bd"})
+    String modo;
+
+    ProductosDao productos = new ProductosDao();
+    ClienteDao clientes = new ClienteDao();
+
+    @Setup(Level.Invocation)
+    public void vaciarCatalogo(DatosBench datos) {
+        if ("bd".equals(modo)) {
+            datos.catalogo().limpiar();
+        }
+    }
+
+    @Benchmark
+    public Productos buscarPro() {
+        return productos.BuscarPro(DatosBench.PREFIJO + 0);
+    }
+
+    @Benchmark
+    public Cliente buscarCliente() {
+        return clientes.Buscarcliente(DatosBench.DNI);
+    }
+}
@@ -0,0 +1,111 @@
+package Benchmarks;
+
+import Modelo.CatalogoProductos;
+import Modelo.Conexion;
+import Modelo.Detalle;
+import Modelo.Migraciones;
+import Modelo.ProductosDao;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Datos fijos para los benchmarks: un proveedor, un cliente y algunos productos
+ * con stock de sobra, creados si no existen en la BD indicada con
+ * {@code -Dfarma.db.url}. Antes se aplican las migraciones pendientes.
+ * <p>Usar siempre una BD de pruebas cargada con {@code venta.sql}: el
+ * benchmark de venta inserta ventas y descuenta stock.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+@State(Scope.Benchmark)
+public class DatosBench {
+
+    /** DNI del cliente de prueba. */
+    public static final int DNI = 99999999;
+    /** Prefijo de los códigos de los productos de prueba. */
+    public static final String PREFIJO = "BENCH-";
+    /** Productos de prueba; la venta usa todos, una unidad de cada uno. */
+    public static final int PRODUCTOS = 3;
+
+    int idCliente;
+    int[] idProductos = new int[PRODUCTOS];
+    long[] precios = new long[PRODUCTOS];
+
+    @Setup
+    public void preparar() throws SQLException {
+        // Los DAO no migran por su cuenta: la BD de pruebas se pone al día aquí.
+        Migraciones.aplicar();
+        try (Connection con = new Conexion().getConnection()) {
+            if (con == null) {
+                throw new SQLException("Sin conexión; revisar -Dfarma.db.url");
+            }
+            int idProveedor = buscarOInsertar(con, "SELECT id FROM proveedor WHERE ruc = 'BENCH'",
+                    "INSERT INTO proveedor (ruc, nombre, telefono, direccion) VALUES ('BENCH', 'Proveedor bench', '0', '-')");
+            idCliente = buscarOInsertar(con, "SELECT id FROM clientes WHERE dni = '" + DNI + "'",
+                    "INSERT INTO clientes (dni, nombre, telefono, direccion) VALUES ('" + DNI + "', 'Cliente bench', '0', '-')");
+            for (int i = 0; i < PRODUCTOS; i++) {
+                String codigo = PREFIJO + i;
+                idProductos[i] = buscarOInsertar(con, "SELECT id FROM productos WHERE codigo = '" + codigo + "'",
+                        "INSERT INTO productos (codigo, nombre, proveedor, stock, precio) VALUES ('" + codigo
+                        + "', 'Producto bench " + i + "', " + idProveedor + ", 0, " + (i + 1) + ".50)");
+                precios[i] = (i + 1) * 100L + 50; // céntimos
+            }
+            // Stock de sobra para que la venta nunca se rechace por faltantes.
+            try (PreparedStatement ps = con.prepareStatement("UPDATE productos SET stock = 1000000000 WHERE codigo LIKE ?")) {
+                ps.setString(1, PREFIJO + "%");
+                ps.executeUpdate();
+            }
+        }
+        new ProductosDao().CargarCatalogo();
+    }
+
+    /**
+     * @return una línea por producto de prueba, cantidad 1
+     */
+    List<Detalle> lineas() {
+        List<Detalle> detalles = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Detalle d = new Detalle();
+            d.setId_pro(idProductos[i]);
+            d.setCantidad(1);
+            d.setPrecioCentimos(precios[i]);
+            detalles.add(d);
+        }
+        return detalles;
+    }
+
+    long total() {
+        long total = 0;
+        for (long p : precios) {
+            total += p;
+        }
+        return total;
+    }
+
+    CatalogoProductos catalogo() {
+        return CatalogoProductos.getInstancia();
+    }
+
+    private static int buscarOInsertar(Connection con, String select, String insert) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            try (ResultSet rs = st.executeQuery(select)) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            st.executeUpdate(insert, Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet rs = st.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package Benchmarks;
+
+import Modelo.HashUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hash de contraseñas usado en el login ({@link HashUtil#sha256}). No usa BD.
+ *
+ * @author Eduardo Jimenez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"admin123", "una-clave-bastante-mas-larga-que-la-habitual-2024"})
+    String clave;
+
+    @Benchmark
+    public String sha256() {
+        return HashUtil.sha256(clave);
+    }
+}
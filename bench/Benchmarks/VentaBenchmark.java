@@ -0,0 +1,65 @@
+package Benchmarks;
+
+import Modelo.ResultadoVenta;
+import Modelo.Venta;
+import Modelo.VentaDao;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cobro completo ({@link VentaDao#RegistrarVentaCompleta}) y generación del
+ * comprobante.
+ * <p>Se mide {@link VentaDao#generarPdf} y no {@code pdfV}, que además abre el
+ * archivo con el visor del escritorio.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VentaBenchmark {
+
+    VentaDao dao = new VentaDao();
+    // Venta ya registrada, usada para el comprobante.
+    int idVenta;
+
+    @Setup
+    public void registrarVentaBase(DatosBench datos) {
+        idVenta = cobrar(datos).getIdVenta();
+        if (idVenta == 0) {
+            throw new IllegalStateException("No se pudo registrar la venta base");
+        }
+    }
+
+    @Benchmark
+    public ResultadoVenta cobro(DatosBench datos) {
+        return cobrar(datos);
+    }
+
+    @Benchmark
+    public File comprobante(DatosBench datos) throws Exception {
+        return dao.generarPdf(idVenta, datos.idCliente, datos.total(), "bench");
+    }
+
+    private ResultadoVenta cobrar(DatosBench datos) {
+        Venta v = new Venta();
+        v.setCliente(datos.idCliente);
+        v.setVendedor("bench");
+        v.setTotalCentimos(datos.total());
+        v.setFecha("01/01/2000");
+        return dao.RegistrarVentaCompleta(v, datos.lineas());
+    }
+}
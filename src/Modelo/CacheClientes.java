@@ -0,0 +1,169 @@
+package Modelo;
+
+import java.util.List;
+
+/**
+ * Caché en memoria de clientes, indexada por DNI numérico y por id.
+ * <p>Se carga al iniciar el sistema ({@link ClienteDao#CargarClientes()}) y
+ * responde la búsqueda por DNI de la caja sin ir a la BD. {@link ClienteDao}
+ * la mantiene al día al registrar, modificar o eliminar clientes.</p>
+ *
+ * <p>Los índices son {@link MapaIntObjeto}: la búsqueda por un DNI
+ * {@code int} no crea objetos. El DNI se indexa por su valor numérico, igual
+ * que lo compara la caja ({@code "01234567"} y {@code 1234567} son el mismo
+ * cliente); los clientes con documento no numérico no se indexan por DNI y se
+ * buscan en la BD.</p>
+ *
+ * <p>Las búsquedas devuelven copias, para que la vista pueda modificar el objeto
+ * recibido sin alterar la caché.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class CacheClientes {
+
+    private static final CacheClientes INSTANCIA = new CacheClientes();
+
+    private final MapaIntObjeto<Cliente> porDni = new MapaIntObjeto<>();
+    private final MapaIntObjeto<Cliente> porId = new MapaIntObjeto<>();
+
+    private long aciertos;
+    private long fallos;
+
+    CacheClientes() {
+    }
+
+    /**
+     * Caché compartida por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static CacheClientes getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Busca un cliente por DNI.
+     *
+     * @param dni DNI numérico
+     * @return copia del cliente, o {@code null} si no está en caché
+     */
+    public synchronized Cliente buscar(int dni) {
+        Cliente c = porDni.get(dni);
+        if (c == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return copiar(c);
+    }
+
+    /**
+     * Reemplaza el contenido de la caché con la lista dada.
+     *
+     * @param clientes clientes leídos de la BD
+     */
+    public synchronized void cargar(List<Cliente> clientes) {
+        porDni.clear();
+        porId.clear();
+        for (Cliente c : clientes) {
+            agregar(c);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un cliente (por ejemplo, tras registrarlo o modificarlo).
+     * Si cambió el DNI, el anterior deja de encontrarse.
+     *
+     * @param c cliente con id
+     */
+    public synchronized void poner(Cliente c) {
+        quitarId(c.getId());
+        agregar(c);
+    }
+
+    /**
+     * Quita un cliente de la caché (por ejemplo, tras eliminarlo).
+     *
+     * @param id id del cliente
+     */
+    public synchronized void quitar(int id) {
+        quitarId(id);
+    }
+
+    /**
+     * Vacía la caché (los contadores se conservan).
+     */
+    public synchronized void limpiar() {
+        porDni.clear();
+        porId.clear();
+    }
+
+    /** @return clientes en caché */
+    public synchronized int getTamanio() {
+        return porId.size();
+    }
+
+    /** @return búsquedas resueltas desde la caché */
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    /** @return búsquedas que tuvieron que ir a la BD */
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "clientes=" + porId.size() + ", aciertos=" + aciertos + ", fallos=" + fallos;
+    }
+
+    /**
+     * DNI como número, como lo escribe el cajero.
+     *
+     * @param dni documento guardado en la BD
+     * @return valor numérico, o -1 si no es un número que entre en un {@code int}
+     */
+    static int dniNumerico(String dni) {
+        if (dni == null) {
+            return -1;
+        }
+        String t = dni.trim();
+        if (t.isEmpty() || t.length() > 9) {
+            return -1;
+        }
+        int valor = 0;
+        for (int i = 0; i < t.length(); i++) {
+            char ch = t.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (ch - '0');
+        }
+        return valor;
+    }
+
+    private void agregar(Cliente c) {
+        Cliente copia = copiar(c);
+        porId.put(c.getId(), copia);
+        int dni = dniNumerico(c.getDni());
+        if (dni >= 0) {
+            porDni.put(dni, copia);
+        }
+    }
+
+    private void quitarId(int id) {
+        Cliente anterior = porId.remove(id);
+        if (anterior != null) {
+            int dni = dniNumerico(anterior.getDni());
+            // Solo si el DNI sigue apuntando a este cliente (otro pudo tomarlo).
+            if (dni >= 0 && porDni.get(dni) == anterior) {
+                porDni.remove(dni);
+            }
+        }
+    }
+
+    private static Cliente copiar(Cliente c) {
+        return new Cliente(c.getId(), c.getDni(), c.getNombre(), c.getTelefono(), c.getDireccion());
+    }
+}
@@ -0,0 +1,63 @@
+package Modelo;
+
+/**
+ * Una fila de la vista previa de un cambio de precios: el producto, su precio
+ * actual y el que tendría con la regla.
+ * <p>El precio actual también sirve de control al aplicar: si otro usuario
+ * cambió el precio desde la vista previa, esa fila no se toca.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class CambioPrecio {
+    private final int id;
+    private final String codigo;
+    private final String nombre;
+    // Precios en céntimos (ver Dinero).
+    private final long anterior;
+    private final long nuevo;
+
+    /**
+     * @param id       id del producto
+     * @param codigo   código del producto
+     * @param nombre   nombre del producto
+     * @param anterior precio actual, en céntimos
+     * @param nuevo    precio nuevo, en céntimos
+     */
+    public CambioPrecio(int id, String codigo, String nombre, long anterior, long nuevo) {
+        this.id = id;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.anterior = anterior;
+        this.nuevo = nuevo;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /** @return precio actual en céntimos */
+    public long getAnterior() {
+        return anterior;
+    }
+
+    /** @return precio nuevo en céntimos */
+    public long getNuevo() {
+        return nuevo;
+    }
+
+    /**
+     * @return true si el precio nuevo no cabe en {@code productos.precio}
+     *         ({@code decimal(10,2)}); estas filas se muestran pero no se aplican
+     */
+    public boolean isFueraDeRango() {
+        return nuevo > ImportarProductos.PRECIO_MAXIMO;
+    }
+}
@@ -0,0 +1,353 @@
+package Modelo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de cambios en la tabla {@code cambios}, para que cada caja mantenga
+ * al día sus cachés ({@link CatalogoProductos}, {@link IndiceProductos},
+ * {@link CacheClientes} y {@link PlantillaComprobante}) cuando otra caja vende
+ * o modifica datos.
+ * <p>Los DAO llaman a {@link #anotar(Connection, String, int, char)} dentro de
+ * la misma transacción que el cambio: si se revierte, tampoco queda la fila en
+ * {@code cambios}. Cada fila dice qué tabla y qué id cambiaron, no los datos;
+ * quien la lee vuelve a consultar solo esas filas.</p>
+ *
+ * <p>Un hilo de fondo lee cada {@code farma.cambios.intervaloMs} ms (por
+ * defecto 2000) las filas con {@code seq} mayor que la última vista y aplica
+ * los cambios de las otras cajas. Un {@code seq} puede confirmarse después que
+ * uno mayor (dos transacciones en paralelo), así que los números salteados se
+ * vuelven a pedir durante {@link #ESPERA_HUECO_MS} ms antes de darlos por
+ * perdidos (una transacción revertida también deja un hueco).</p>
+ *
+ * <p>Las filas de más de un día se borran. Si la caja pasó más tiempo sin
+ * poder leer, o no pudo leer el {@code seq} inicial, recarga las cachés
+ * completas.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class Cambios {
+
+    /** Tabla {@code productos}. */
+    public static final String PRODUCTOS = "productos";
+    /** Tabla {@code clientes}. */
+    public static final String CLIENTES = "clientes";
+    /** Tabla {@code config}. */
+    public static final String CONFIG = "config";
+
+    /** Fila nueva. */
+    public static final char INSERTAR = 'I';
+    /** Fila modificada. */
+    public static final char MODIFICAR = 'U';
+    /** Fila eliminada. */
+    public static final char ELIMINAR = 'D';
+    /** Solo cambió el stock (una venta). */
+    public static final char STOCK = 'S';
+
+    /** Tiempo que se sigue esperando un seq salteado. */
+    static final long ESPERA_HUECO_MS = 60000L;
+    // Huecos que se siguen como máximo; si hay más se descartan los más viejos.
+    private static final int MAX_HUECOS = 500;
+    // Filas por lectura; si llegan todas se vuelve a leer enseguida.
+    private static final int LOTE = 1000;
+    // Antigüedad de las filas que se borran, y cada cuánto se borran.
+    private static final long RETENCION_MS = 24L * 60 * 60 * 1000;
+    private static final long LIMPIEZA_MS = 60L * 60 * 1000;
+
+    // Identifica a esta caja en la columna origen.
+    private static final String ORIGEN = UUID.randomUUID().toString();
+
+    private static final Cambios INSTANCIA = new Cambios(Long.getLong("farma.cambios.intervaloMs", 2000L));
+
+    private final long intervaloMs;
+    private final Conexion cn = new Conexion();
+    private final ProductosDao proDao = new ProductosDao();
+    private final ClienteDao clienteDao = new ClienteDao();
+    // Último seq leído; -1 si aún no se conoce.
+    private long ultimo = -1;
+    // seq salteado -> momento en que se detectó.
+    private final Map<Long, Long> huecos = new LinkedHashMap<>();
+    private long ultimoExito;
+    private long ultimaLimpieza;
+    private boolean fallando;
+    private ScheduledExecutorService lector;
+
+    private Cambios(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Lector compartido por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static Cambios getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Anota que una fila cambió. Debe llamarse con la misma conexión y dentro de
+     * la misma transacción que el cambio.
+     *
+     * @param con       conexión de la transacción
+     * @param tabla     {@link #PRODUCTOS}, {@link #CLIENTES} o {@link #CONFIG}
+     * @param id        id de la fila
+     * @param operacion {@link #INSERTAR}, {@link #MODIFICAR}, {@link #ELIMINAR} o {@link #STOCK}
+     * @throws SQLException si falla el INSERT
+     */
+    public static void anotar(Connection con, String tabla, int id, char operacion) throws SQLException {
+        List<Integer> ids = new ArrayList<>(1);
+        ids.add(id);
+        anotar(con, tabla, ids, operacion);
+    }
+
+    /**
+     * Anota varias filas de una tabla con la misma operación, en un solo lote.
+     *
+     * @param con       conexión de la transacción
+     * @param tabla     tabla modificada
+     * @param ids       ids de las filas
+     * @param operacion operación realizada
+     * @throws SQLException si falla el INSERT
+     */
+    public static void anotar(Connection con, String tabla, Collection<Integer> ids, char operacion) throws SQLException {
+        String sql = "INSERT INTO cambios (tabla, id_fila, operacion, origen) VALUES (?,?,?,?)";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int id : ids) {
+                ps.setString(1, tabla);
+                ps.setInt(2, id);
+                ps.setString(3, String.valueOf(operacion));
+                ps.setString(4, ORIGEN);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Anota como modificados los productos con esos códigos (por ejemplo tras
+     * una importación, donde no se conocen los ids). Misma transacción que el cambio.
+     *
+     * @param con     conexión de la transacción
+     * @param codigos códigos de los productos
+     * @throws SQLException si falla el INSERT
+     */
+    public static void anotarProductos(Connection con, List<String> codigos) throws SQLException {
+        if (codigos.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO cambios (tabla, id_fila, operacion, origen) "
+                + "SELECT ?, id, ?, ? FROM productos WHERE codigo IN (" + ProductosDao.marcas(codigos.size()) + ")";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, PRODUCTOS);
+            ps.setString(2, String.valueOf(MODIFICAR));
+            ps.setString(3, ORIGEN);
+            for (int i = 0; i < codigos.size(); i++) {
+                ps.setString(i + 4, codigos.get(i));
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Toma el último {@code seq} como punto de partida y arranca la lectura
+     * periódica. Debe llamarse antes de cargar las cachés, para no perder los
+     * cambios que ocurran mientras se cargan. Llamadas repetidas no tienen efecto.
+     */
+    public synchronized void iniciar() {
+        if (lector != null) {
+            return;
+        }
+        try (Connection con = cn.getConnection()) {
+            if (con != null) {
+                ultimo = maximo(con);
+                ultimoExito = System.currentTimeMillis();
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        lector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cambios");
+            t.setDaemon(true);
+            return t;
+        });
+        lector.scheduleWithFixedDelay(this::revisar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Tarea periódica: lee y aplica todo lo nuevo.
+    private synchronized void revisar() {
+        try (Connection con = cn.getConnection()) {
+            if (con == null) {
+                fallo();
+                return;
+            }
+            long ahora = System.currentTimeMillis();
+            if (ultimo < 0 || ahora - ultimoExito > RETENCION_MS / 2) {
+                // Sin punto de partida, o las filas que faltan ya pudieron borrarse.
+                ultimo = maximo(con);
+                huecos.clear();
+                recargarTodo();
+            } else {
+                while (leer(con) == LOTE) {
+                    // había más filas pendientes
+                }
+            }
+            if (ahora - ultimaLimpieza > LIMPIEZA_MS) {
+                limpiar(con);
+                ultimaLimpieza = ahora;
+            }
+            ultimoExito = ahora;
+            if (fallando) {
+                System.out.println("Cambios: lectura restablecida");
+                fallando = false;
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (!fallando) {
+                System.out.println(e.toString());
+            }
+            fallo();
+        }
+    }
+
+    private void fallo() {
+        if (!fallando) {
+            System.out.println("Cambios: no se pudo leer, se reintenta cada " + intervaloMs + " ms");
+        }
+        fallando = true;
+    }
+
+    private static long maximo(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM cambios");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Lee una tanda de filas nuevas (y huecos pendientes) y la aplica; devuelve las filas nuevas leídas.
+    private int leer(Connection con) throws SQLException {
+        long ahora = System.currentTimeMillis();
+        for (Iterator<Long> it = huecos.values().iterator(); it.hasNext();) {
+            if (ahora - it.next() > ESPERA_HUECO_MS) {
+                it.remove();
+            }
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT seq, tabla, id_fila, operacion, origen FROM cambios WHERE seq > ?");
+        List<Long> buscados = new ArrayList<>(huecos.keySet());
+        if (!buscados.isEmpty()) {
+            sql.append(" OR seq IN (");
+            for (int i = 0; i < buscados.size(); i++) {
+                sql.append(i == 0 ? "?" : ",?");
+            }
+            sql.append(')');
+        }
+        sql.append(" ORDER BY seq LIMIT ").append(LOTE + buscados.size());
+        Delta delta = new Delta();
+        int nuevas = 0;
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            ps.setLong(1, ultimo);
+            for (int i = 0; i < buscados.size(); i++) {
+                ps.setLong(i + 2, buscados.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong("seq");
+                    if (seq > ultimo) {
+                        for (long s = Math.max(ultimo + 1, seq - MAX_HUECOS); s < seq; s++) {
+                            agregarHueco(s, ahora);
+                        }
+                        ultimo = seq;
+                        nuevas++;
+                    } else {
+                        huecos.remove(seq);
+                    }
+                    if (!ORIGEN.equals(rs.getString("origen"))) {
+                        delta.agregar(rs.getString("tabla"), rs.getInt("id_fila"),
+                                rs.getString("operacion").charAt(0));
+                    }
+                }
+            }
+        }
+        aplicar(delta);
+        return nuevas;
+    }
+
+    private void agregarHueco(long seq, long ahora) {
+        if (huecos.size() >= MAX_HUECOS) {
+            Iterator<Long> it = huecos.keySet().iterator();
+            it.next();
+            it.remove();
+        }
+        huecos.put(seq, ahora);
+    }
+
+    private void aplicar(Delta d) {
+        if (!d.productos.isEmpty()) {
+            proDao.Refrescar(d.productos);
+        }
+        if (!d.stock.isEmpty()) {
+            proDao.RefrescarStock(d.stock);
+        }
+        if (!d.clientes.isEmpty()) {
+            clienteDao.Refrescar(d.clientes);
+        }
+        if (d.config) {
+            PlantillaComprobante.invalidar();
+        }
+    }
+
+    private void recargarTodo() {
+        System.out.println("Cambios: se recargan las cachés completas");
+        proDao.CargarCatalogo();
+        proDao.CargarIndice();
+        clienteDao.CargarClientes();
+        PlantillaComprobante.invalidar();
+    }
+
+    private void limpiar(Connection con) throws SQLException {
+        String sql = "DELETE FROM cambios WHERE fecha < NOW() - INTERVAL 1 DAY";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.executeUpdate();
+        }
+    }
+
+    // Ids a refrescar, sin repetir, agrupados por tipo de cambio.
+    private static final class Delta {
+        final Set<Integer> productos = new LinkedHashSet<>();
+        final Set<Integer> stock = new LinkedHashSet<>();
+        final Set<Integer> clientes = new LinkedHashSet<>();
+        boolean config;
+
+        void agregar(String tabla, int id, char operacion) {
+            if (PRODUCTOS.equals(tabla)) {
+                if (operacion == STOCK) {
+                    if (!productos.contains(id)) {
+                        stock.add(id);
+                    }
+                } else {
+                    // Se relee la fila completa; ya incluye el stock.
+                    stock.remove(id);
+                    productos.add(id);
+                }
+            } else if (CLIENTES.equals(tabla)) {
+                clientes.add(id);
+            } else if (CONFIG.equals(tabla)) {
+                config = true;
+            }
+        }
+    }
+}
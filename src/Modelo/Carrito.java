@@ -0,0 +1,152 @@
+package Modelo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Productos de la venta en curso en la caja.
+ * <p>Las líneas se guardan por id de producto en un {@link LinkedHashMap}, que
+ * conserva el orden en que se agregaron (el de la tabla en pantalla). Agregar,
+ * quitar, buscar un producto y consultar el total no dependen de cuántas
+ * líneas tenga la venta: el total se actualiza en cada cambio en lugar de
+ * recorrer la tabla. Los montos están en céntimos ({@link Dinero}), así que
+ * el total es exacto y coincide con lo que se guarda en la BD.</p>
+ *
+ * <p>No es seguro para varios hilos; se usa desde el hilo de Swing.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class Carrito {
+
+    /**
+     * Una línea del carrito: un producto con su cantidad y precio unitario.
+     */
+    public static final class Linea {
+        private final int idProducto;
+        private final String descripcion;
+        private final int cantidad;
+        private final long precio;
+
+        Linea(int idProducto, String descripcion, int cantidad, long precio) {
+            this.idProducto = idProducto;
+            this.descripcion = descripcion;
+            this.cantidad = cantidad;
+            this.precio = precio;
+        }
+
+        public int getIdProducto() {
+            return idProducto;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        /** @return precio unitario en céntimos */
+        public long getPrecioCentimos() {
+            return precio;
+        }
+
+        /** @return cantidad por precio unitario, en céntimos */
+        public long getSubtotalCentimos() {
+            return Dinero.multiplicar(precio, cantidad);
+        }
+    }
+
+    private final Map<Integer, Linea> lineas = new LinkedHashMap<>();
+    private long total;
+
+    /**
+     * Agrega un producto si todavía no está en el carrito.
+     *
+     * @param idProducto  id del producto
+     * @param descripcion nombre que se muestra
+     * @param cantidad    unidades
+     * @param precio      precio unitario en céntimos
+     * @return la línea agregada, o {@code null} si el producto ya estaba
+     */
+    public Linea agregar(int idProducto, String descripcion, int cantidad, long precio) {
+        if (lineas.containsKey(idProducto)) {
+            return null;
+        }
+        Linea l = new Linea(idProducto, descripcion, cantidad, precio);
+        lineas.put(idProducto, l);
+        total = Dinero.sumar(total, l.getSubtotalCentimos());
+        return l;
+    }
+
+    /**
+     * Quita un producto del carrito.
+     *
+     * @param idProducto id del producto
+     * @return la línea quitada, o {@code null} si no estaba
+     */
+    public Linea quitar(int idProducto) {
+        Linea l = lineas.remove(idProducto);
+        if (l != null) {
+            total = Dinero.restar(total, l.getSubtotalCentimos());
+        }
+        return l;
+    }
+
+    /**
+     * @param idProducto id del producto
+     * @return true si el producto ya está en el carrito
+     */
+    public boolean contiene(int idProducto) {
+        return lineas.containsKey(idProducto);
+    }
+
+    /** @return suma de los subtotales, en céntimos */
+    public long getTotalCentimos() {
+        return total;
+    }
+
+    /** @return cantidad de líneas */
+    public int getCantidadLineas() {
+        return lineas.size();
+    }
+
+    /** @return true si no hay productos */
+    public boolean estaVacio() {
+        return lineas.isEmpty();
+    }
+
+    /** @return líneas en el orden en que se agregaron (solo lectura) */
+    public Collection<Linea> getLineas() {
+        return Collections.unmodifiableCollection(lineas.values());
+    }
+
+    /**
+     * Detalles listos para {@link VentaDao#RegistrarVentaCompleta(Venta, List)}.
+     *
+     * @return un detalle por línea, sin id de venta
+     */
+    public List<Detalle> getDetalles() {
+        List<Detalle> detalles = new ArrayList<>(lineas.size());
+        for (Linea l : lineas.values()) {
+            Detalle d = new Detalle();
+            d.setId_pro(l.getIdProducto());
+            d.setCantidad(l.getCantidad());
+            d.setPrecioCentimos(l.getPrecioCentimos());
+            detalles.add(d);
+        }
+        return detalles;
+    }
+
+    /**
+     * Vacía el carrito (venta registrada o cancelada).
+     */
+    public void vaciar() {
+        lineas.clear();
+        total = 0;
+    }
+}
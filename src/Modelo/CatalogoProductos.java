@@ -0,0 +1,205 @@
+package Modelo;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché en memoria del catálogo de productos, indexada por {@code codigo}.
+ * <p>Se carga al iniciar el sistema ({@link ProductosDao#CargarCatalogo()}) y
+ * responde los escaneos de código de barras sin ir a la BD. Los DAO la mantienen
+ * al día al registrar, modificar o eliminar productos y al confirmar ventas.</p>
+ *
+ * <p>El tamaño máximo se fija con {@code -Dfarma.catalogo.max} (por defecto
+ * 50000). Al superarlo se desaloja el producto usado hace más tiempo (LRU); una
+ * búsqueda posterior de ese código vuelve a la BD y lo reincorpora.</p>
+ *
+ * <p>Las búsquedas devuelven copias, para que la vista pueda modificar el objeto
+ * recibido sin alterar la caché.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class CatalogoProductos {
+
+    private static final CatalogoProductos INSTANCIA =
+            new CatalogoProductos(Integer.getInteger("farma.catalogo.max", 50000));
+
+    private final int maximo;
+    // codigo -> producto, en orden de acceso (el primero es el menos usado).
+    private final LinkedHashMap<String, Productos> porCodigo;
+    // id -> codigo, para mantener la caché cuando solo se conoce el id.
+    private final Map<Integer, String> codigoPorId = new HashMap<>();
+
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+
+    CatalogoProductos(int maximo) {
+        this.maximo = maximo;
+        this.porCodigo = new LinkedHashMap<String, Productos>(Math.min(maximo, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Productos> mayor) {
+                if (size() > CatalogoProductos.this.maximo) {
+                    codigoPorId.remove(mayor.getValue().getId());
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Caché compartida por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static CatalogoProductos getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Busca un producto por código.
+     *
+     * @param codigo código de barras
+     * @return copia del producto, o {@code null} si no está en caché
+     */
+    public synchronized Productos buscar(String codigo) {
+        Productos p = porCodigo.get(codigo);
+        if (p == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return copiar(p);
+    }
+
+    /**
+     * Reemplaza el contenido de la caché con la lista dada.
+     *
+     * @param productos productos leídos de la BD
+     */
+    public synchronized void cargar(List<Productos> productos) {
+        porCodigo.clear();
+        codigoPorId.clear();
+        for (Productos p : productos) {
+            agregar(p);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto (por ejemplo, tras registrarlo o modificarlo).
+     *
+     * @param p producto con id y código
+     */
+    public synchronized void poner(Productos p) {
+        quitarId(p.getId());
+        agregar(p);
+    }
+
+    /**
+     * Quita un producto de la caché (por ejemplo, tras eliminarlo).
+     *
+     * @param id id del producto
+     */
+    public synchronized void quitar(int id) {
+        quitarId(id);
+    }
+
+    /**
+     * Resta del stock en caché lo vendido en una venta confirmada.
+     *
+     * @param id       id del producto
+     * @param cantidad unidades vendidas
+     */
+    public synchronized void descontarStock(int id, int cantidad) {
+        Productos p = enCache(id);
+        if (p != null) {
+            p.setStock(p.getStock() - cantidad);
+        }
+    }
+
+    /**
+     * Fija el stock en caché con un valor leído de la BD.
+     *
+     * @param id    id del producto
+     * @param stock stock actual
+     */
+    public synchronized void actualizarStock(int id, int stock) {
+        Productos p = enCache(id);
+        if (p != null) {
+            p.setStock(stock);
+        }
+    }
+
+    /**
+     * Vacía la caché (los contadores se conservan).
+     */
+    public synchronized void limpiar() {
+        porCodigo.clear();
+        codigoPorId.clear();
+    }
+
+    /** @return productos en caché */
+    public synchronized int getTamanio() {
+        return porCodigo.size();
+    }
+
+    /** @return tamaño máximo configurado */
+    public int getMaximo() {
+        return maximo;
+    }
+
+    /** @return búsquedas resueltas desde la caché */
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    /** @return búsquedas que tuvieron que ir a la BD */
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    /** @return productos desalojados por superar el tamaño máximo */
+    public synchronized long getDesalojos() {
+        return desalojos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "productos=" + porCodigo.size() + "/" + maximo + ", aciertos=" + aciertos
+                + ", fallos=" + fallos + ", desalojos=" + desalojos;
+    }
+
+    private void agregar(Productos p) {
+        if (p.getCodigo() == null) {
+            return;
+        }
+        Productos anterior = porCodigo.put(p.getCodigo(), copiar(p));
+        if (anterior != null && anterior.getId() != p.getId()) {
+            codigoPorId.remove(anterior.getId());
+        }
+        codigoPorId.put(p.getId(), p.getCodigo());
+    }
+
+    private void quitarId(int id) {
+        String codigo = codigoPorId.remove(id);
+        if (codigo != null) {
+            porCodigo.remove(codigo);
+        }
+    }
+
+    // Acceso por id sin afectar los contadores de aciertos/fallos.
+    private Productos enCache(int id) {
+        String codigo = codigoPorId.get(id);
+        return codigo == null ? null : porCodigo.get(codigo);
+    }
+
+    private static Productos copiar(Productos p) {
+        Productos c = new Productos(p.getId(), p.getCodigo(), p.getNombre(), p.getProveedor(),
+                p.getProveedorPro(), p.getStock(), 0);
+        c.setPrecioCentimos(p.getPrecioCentimos());
+        return c;
+    }
+}
@@ -4,7 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import javax.swing.JOptionPane;
 
@@ -15,24 +17,23 @@ import javax.swing.JOptionPane;
  *
  * <p><b>Notas:</b></p>
  * <ul>
- *   <li>Gestiona la conexión mediante la clase {@code Conexion} (no mostrada).</li>
+ *   <li>Gestiona la conexión mediante la clase {@code Conexion}; cada método
+ *       devuelve su conexión al pool al terminar (try-with-resources).</li>
  *   <li>Usa {@code PreparedStatement} para evitar SQL Injection.</li>
+ *   <li>{@code Buscarcliente} responde desde {@link CacheClientes}; registrar,
+ *       modificar y eliminar la mantienen al día y anotan el cambio en
+ *       {@link Cambios} (misma transacción) para las otras cajas.</li>
  *   <li>Mejoras recomendadas marcadas con <code>// TODO:</code>.</li>
  * </ul>
  *
  * @author Eduardo Jimenez
  */
 public class ClienteDao {
-    
+
     // Manejador de conexiones (debe proveer getConnection()).
     Conexion cn = new Conexion();
-    // Conexión activa a la BD. Se va asignando en cada operación.
-    Connection con;
-    // Sentencia preparada para ejecutar SQL con parámetros.
-    PreparedStatement ps;
-    // Resultado de consultas SELECT.
-    ResultSet rs;
-    
+    CacheClientes cache = CacheClientes.getInstancia(); // Caché de clientes por DNI
+
     /**
      * Registra un nuevo cliente en la BD.
      *
@@ -41,61 +42,138 @@ public class ClienteDao {
      */
     public boolean RegistrarCliente(Cliente cl){
         String sql = "INSERT INTO clientes (dni, nombre, telefono, direccion) VALUES (?,?,?,?)";
-        try {
-            con = cn.getConnection(); // obtiene conexión
-            ps = con.prepareStatement(sql); // prepara la sentencia
+        try (Connection con = cn.prestar();          // obtiene conexión
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) { // prepara la sentencia
+            con.setAutoCommit(false);
             // Asigna parámetros en el orden de los placeholders (?)
             ps.setString(1, cl.getDni());
             ps.setString(2, cl.getNombre());
             ps.setString(3, cl.getTelefono());
             ps.setString(4, cl.getDireccion());
             ps.execute(); // ejecuta INSERT
+            Cliente nuevo = null;
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    nuevo = new Cliente(rs.getInt(1), cl.getDni(), cl.getNombre(),
+                            cl.getTelefono(), cl.getDireccion());
+                    Cambios.anotar(con, Cambios.CLIENTES, nuevo.getId(), Cambios.INSERTAR);
+                }
+            }
+            con.commit();
+            if (nuevo != null) {
+                cache.poner(nuevo);
+            }
             return true;
         } catch (SQLException e) {
             // Muestra el error en un diálogo. // TODO: considerar logging y manejo centralizado de errores.
             JOptionPane.showMessageDialog(null, e.toString());
             return false;
-        }finally{
-            // Cierra la conexión para liberar recursos.
-            // TODO: cerrar también ps y rs con try-with-resources o utilitario.
-            try {
-                con.close();
-            } catch (SQLException e) {
-                System.out.println(e.toString());
-            }
         }
     }
-    
+
     /**
      * Lista todos los clientes existentes.
      *
      * @return lista de clientes; si falla, retorna una lista (posiblemente vacía)
      */
-    public List ListarCliente(){
-       // Nota: se usa tipo crudo (raw type) en la firma. // TODO: exponer List<Cliente> como tipo genérico.
-       List<Cliente> ListaCl = new ArrayList();
+    public List<Cliente> ListarCliente(){
+       List<Cliente> ListaCl = new ArrayList<>();
        String sql = "SELECT * FROM clientes";
-       try {
-           con = cn.getConnection();
-           ps = con.prepareStatement(sql);
-           rs = ps.executeQuery();
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
            // Itera sobre el ResultSet y mapea a objetos Cliente (patrón RowMapper manual).
-           while (rs.next()) {               
-               Cliente cl = new Cliente();
-               cl.setId(rs.getInt("id"));
-               cl.setDni(rs.getString("dni"));
-               cl.setNombre(rs.getString("nombre"));
-               cl.setTelefono(rs.getString("telefono"));
-               cl.setDireccion(rs.getString("direccion"));
-               ListaCl.add(cl);
+           while (rs.next()) {
+               ListaCl.add(mapearCliente(rs));
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaCl;
+   }
+
+    /**
+     * Cuenta los clientes registrados.
+     *
+     * @return total de clientes; 0 si ocurrió un error
+     */
+    public int ContarClientes(){
+       String sql = "SELECT COUNT(*) FROM clientes";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
+           if (rs.next()) {
+               return rs.getInt(1);
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return 0;
+   }
+
+    /**
+     * Lista una página de clientes ordenados por id.
+     *
+     * @param desde    posición de la primera fila (0 = primera)
+     * @param cantidad filas a traer como máximo
+     * @return clientes de la página; si falla, lista vacía
+     */
+    public List<Cliente> PaginaClientes(int desde, int cantidad){
+       List<Cliente> ListaCl = new ArrayList<>();
+       String sql = "SELECT * FROM clientes ORDER BY id LIMIT ? OFFSET ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, cantidad);
+           ps.setInt(2, desde);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaCl.add(mapearCliente(rs));
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaCl;
+   }
+
+    /**
+     * Lista los clientes con id mayor que {@code ultimoId}, ordenados por id.
+     * <p>La página siguiente se pide con el id de la última fila recibida (sin
+     * OFFSET), por lo que no se recorren las filas ya leídas.</p>
+     *
+     * @param ultimoId id de la última fila de la página anterior; 0 para la primera página
+     * @param limite   filas a traer como máximo
+     * @return clientes de la página; si falla, lista vacía
+     */
+    public List<Cliente> ListarCliente(int ultimoId, int limite){
+       List<Cliente> ListaCl = new ArrayList<>();
+       String sql = "SELECT * FROM clientes WHERE id > ? ORDER BY id LIMIT ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, ultimoId);
+           ps.setInt(2, limite);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaCl.add(mapearCliente(rs));
+               }
            }
        } catch (SQLException e) {
            System.out.println(e.toString());
        }
-       // TODO: cerrar rs y ps. Considerar try-with-resources para evitar fugas.
        return ListaCl;
    }
-   
+
+    // Mapeo de fila a objeto Cliente
+    private Cliente mapearCliente(ResultSet rs) throws SQLException {
+        Cliente cl = new Cliente();
+        cl.setId(rs.getInt("id"));
+        cl.setDni(rs.getString("dni"));
+        cl.setNombre(rs.getString("nombre"));
+        cl.setTelefono(rs.getString("telefono"));
+        cl.setDireccion(rs.getString("direccion"));
+        return cl;
+    }
+
     /**
      * Elimina un cliente por su ID.
      *
@@ -104,27 +182,21 @@ public class ClienteDao {
      */
     public boolean EliminarCliente(int id){
        String sql = "DELETE FROM clientes WHERE id = ?";
-       try {
-           // Nota: aquí se usa 'con' pero no se asigna con getConnection(). 
-           // Si 'con' no fue inicializada previamente, podría lanzar NullPointerException.
-           // TODO: agregar 'con = cn.getConnection();' como en los otros métodos (sin cambiar lógica ahora).
-           ps = con.prepareStatement(sql);
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           con.setAutoCommit(false);
            ps.setInt(1, id);
            ps.execute();
+           Cambios.anotar(con, Cambios.CLIENTES, id, Cambios.ELIMINAR);
+           con.commit();
+           cache.quitar(id);
            return true;
        } catch (SQLException e) {
            System.out.println(e.toString());
            return false;
-       }finally{
-           // Cierre de conexión. // TODO: cerrar ps.
-           try {
-               con.close();
-           } catch (SQLException ex) {
-               System.out.println(ex.toString());
-           }
        }
    }
-   
+
     /**
      * Modifica los datos de un cliente existente.
      *
@@ -133,61 +205,113 @@ public class ClienteDao {
      */
     public boolean ModificarCliente(Cliente cl){
        String sql = "UPDATE clientes SET dni=?, nombre=?, telefono=?, direccion=? WHERE id=?";
-       try {
-           // Nota: al igual que en EliminarCliente, se usa 'con' sin asignar aquí.
-           // TODO: agregar 'con = cn.getConnection();' para consistencia (sin cambiar ahora).
-           ps = con.prepareStatement(sql);   
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           con.setAutoCommit(false);
            ps.setString(1, cl.getDni());
            ps.setString(2, cl.getNombre());
            ps.setString(3, cl.getTelefono());
            ps.setString(4, cl.getDireccion());
            ps.setInt(5, cl.getId());
            ps.execute();
+           Cambios.anotar(con, Cambios.CLIENTES, cl.getId(), Cambios.MODIFICAR);
+           con.commit();
+           cache.poner(cl);
            return true;
        } catch (SQLException e) {
            System.out.println(e.toString());
            return false;
-       }finally{
-           // TODO: cerrar ps además de con.
-           try {
-               con.close();
+       }
+   }
+
+    /**
+     * Carga todos los clientes en {@link CacheClientes}. Se invoca al iniciar el sistema.
+     *
+     * @return cantidad de clientes cargados
+     */
+    public int CargarClientes(){
+       List<Cliente> lista = new ArrayList<>();
+       String sql = "SELECT * FROM clientes";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
+           while (rs.next()) {
+               lista.add(mapearCliente(rs));
+           }
+           cache.cargar(lista);
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return lista.size();
+   }
+
+    /**
+     * Vuelve a leer clientes que cambiaron en otra caja y actualiza
+     * {@link CacheClientes}; los que ya no existen se quitan. Lo usa {@link Cambios}.
+     *
+     * @param ids ids de los clientes
+     */
+    public void Refrescar(Collection<Integer> ids){
+       List<Integer> faltan = new ArrayList<>(ids);
+       for (List<Integer> tanda : ProductosDao.tandas(ids)) {
+           String sql = "SELECT * FROM clientes WHERE id IN (" + ProductosDao.marcas(tanda.size()) + ")";
+           try (Connection con = cn.prestar();
+                PreparedStatement ps = con.prepareStatement(sql)) {
+               for (int i = 0; i < tanda.size(); i++) {
+                   ps.setInt(i + 1, tanda.get(i));
+               }
+               try (ResultSet rs = ps.executeQuery()) {
+                   while (rs.next()) {
+                       Cliente cl = mapearCliente(rs);
+                       cache.poner(cl);
+                       faltan.remove((Integer) cl.getId());
+                   }
+               }
            } catch (SQLException e) {
                System.out.println(e.toString());
+               return;
            }
        }
+       for (int id : faltan) {
+           cache.quitar(id);
+       }
    }
-   
+
     /**
      * Busca un cliente por DNI.
+     * <p>Primero consulta {@link CacheClientes}; solo si el DNI no está (por
+     * ejemplo, un cliente registrado desde otra caja) va a la BD y lo agrega a
+     * la caché. En la BD se compara texto contra texto, para que la consulta
+     * use el índice único de {@code clientes.dni}: se prueba el número tal cual
+     * y con ceros a la izquierda hasta 8 dígitos.</p>
      *
      * @param dni documento de identidad del cliente (aquí recibido como int)
      * @return objeto Cliente con los campos encontrados; si no existe, retorna
      *         un Cliente con valores por defecto (id=0, etc.)
      */
     public Cliente Buscarcliente(int dni){
+       Cliente enCache = cache.buscar(dni);
+       if (enCache != null) {
+           return enCache;
+       }
        Cliente cl = new Cliente();
-       String sql = "SELECT * FROM clientes WHERE dni = ?";
-       try {
-           con = cn.getConnection();
-           ps = con.prepareStatement(sql);
-           // Se usa setInt porque el parámetro del método es int.
-           // TODO: si el DNI puede contener ceros a la izquierda o no es numérico, conviene usar String.
-           ps.setInt(1, dni);
-           rs = ps.executeQuery();
-           if (rs.next()) {
-               cl.setId(rs.getInt("id"));
-               cl.setNombre(rs.getString("nombre"));
-               cl.setTelefono(rs.getString("telefono"));
-               cl.setDireccion(rs.getString("direccion"));
-               // Nota: no se setea el DNI al objeto. // TODO: cl.setDni(rs.getString("dni"));
+       String sql = "SELECT * FROM clientes WHERE dni IN (?, ?)";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setString(1, String.valueOf(dni));
+           ps.setString(2, String.format("%08d", dni));
+           try (ResultSet rs = ps.executeQuery()) {
+               if (rs.next()) {
+                   cl = mapearCliente(rs);
+                   cache.poner(cl);
+               }
            }
        } catch (SQLException e) {
            System.out.println(e.toString());
        }
-       // TODO: cerrar rs, ps y con en finally/try-with-resources.
        return cl;
    }
-   
+
 }
 
 // Ref: SRP - este DAO solo gestiona persistencia de Cliente; reglas de negocio van en servicio.
@@ -0,0 +1,100 @@
+package Modelo;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de generación de comprobantes PDF en segundo plano.
+ * <p>La venta se confirma en la BD y la caja queda libre de inmediato; el PDF
+ * se genera en un grupo acotado de hilos y el resultado se entrega al
+ * {@link Receptor} indicado (abrir el archivo, mostrar un error, etc.).</p>
+ *
+ * <p>Hilos y capacidad de la cola se ajustan con {@code -Dfarma.pdf.hilos}
+ * (por defecto 2) y {@code -Dfarma.pdf.cola} (por defecto 100). Si la cola está
+ * llena el comprobante se rechaza y se informa como fallo, sin bloquear la venta.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class ColaComprobantes {
+
+    /**
+     * Recibe el resultado de un comprobante. Se invoca desde el hilo de la cola,
+     * no desde el hilo de Swing.
+     */
+    public interface Receptor {
+        /**
+         * El comprobante se generó correctamente.
+         *
+         * @param idVenta id de la venta
+         * @param archivo PDF generado
+         */
+        void listo(int idVenta, File archivo);
+
+        /**
+         * No se pudo generar el comprobante.
+         *
+         * @param idVenta id de la venta
+         * @param error   causa del fallo
+         */
+        void fallo(int idVenta, Exception error);
+    }
+
+    private static final ColaComprobantes INSTANCIA = new ColaComprobantes(
+            Integer.getInteger("farma.pdf.hilos", 2), Integer.getInteger("farma.pdf.cola", 100));
+
+    private final ThreadPoolExecutor ejecutor;
+    private final VentaDao dao = new VentaDao();
+
+    ColaComprobantes(int hilos, int capacidad) {
+        AtomicInteger contador = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(hilos, hilos, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidad), r -> {
+                    Thread t = new Thread(r, "comprobantes-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Cola compartida por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static ColaComprobantes getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Encola la generación del comprobante de una venta ya registrada.
+     *
+     * @param idventa  id de la venta
+     * @param cliente  id del cliente
+     * @param total    monto total de la venta, en céntimos
+     * @param usuario  vendedor que emite
+     * @param receptor destino del resultado
+     */
+    public void encolar(int idventa, int cliente, long total, String usuario, Receptor receptor) {
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    File archivo = dao.generarPdf(idventa, cliente, total, usuario);
+                    receptor.listo(idventa, archivo);
+                } catch (Exception e) {
+                    receptor.fallo(idventa, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            receptor.fallo(idventa, e);
+        }
+    }
+
+    /** @return comprobantes esperando en la cola */
+    public int getPendientes() {
+        return ejecutor.getQueue().size();
+    }
+}
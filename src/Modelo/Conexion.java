@@ -7,37 +7,64 @@ import java.sql.SQLException;
 /**
  * Administrador de conexiones JDBC hacia MySQL/MariaDB.
  * <p>Expone el método {@link #getConnection()} para obtener una conexión
- * usando {@code DriverManager} con la URL, usuario y contraseña definidas.</p>
+ * prestada por un {@link PoolConexiones} compartido por toda la aplicación.
+ * Al cerrar la conexión ({@code con.close()}) ésta vuelve al pool en lugar de
+ * cerrarse físicamente.</p>
+ *
+ * <p>El tamaño y los tiempos del pool se pueden ajustar con propiedades del
+ * sistema ({@code -Dfarma.pool.min=2}, {@code farma.pool.max},
+ * {@code farma.pool.esperaMs}, {@code farma.pool.inactividadMs},
+ * {@code farma.pool.fugaMs}; {@code -Dfarma.pool.trazas=true} agrega a cada
+ * posible fuga la traza de dónde se pidió la conexión). La BD se puede cambiar con {@code farma.db.url},
+ * {@code farma.db.usuario} y {@code farma.db.clave}.</p>
+ *
+ * <p>Las conexiones entregadas pasan por {@link MonitorSql}, que mide cada
+ * sentencia y la espera del pool.</p>
  *
  * <h2>Notas y buenas prácticas (solo comentarios, sin cambiar código)</h2>
  * <ul>
  *   <li>Externalizar credenciales y URL (propiedades/variables de entorno). <!-- TODO --></li>
- *   <li>Usar un pool de conexiones (HikariCP, c3p0) en apps reales. <!-- TODO --></li>
- *   <li>Manejar el cierre en la capa que abre la conexión (try-with-resources). <!-- TODO --></li>
- *   <li>Registrar el driver no suele ser necesario en JDBC 4+, pero si usas
- *       versiones antiguas podrías requerir {@code Class.forName("com.mysql.cj.jdbc.Driver");}. <!-- TODO --></li>
+ *   <li>Manejar el cierre en la capa que abre la conexión (try-with-resources);
+ *       una conexión no cerrada queda fuera del pool y se reporta como fuga.</li>
  * </ul>
  *
  * @author Eduardo Jimenez
  */
 public class Conexion {
 
+    // URL de conexión JDBC (hostname, puerto y schema). Incluye zona horaria.
+    // Se puede apuntar a otra BD (por ejemplo una de pruebas) con -Dfarma.db.url.
+    static final String URL = System.getProperty("farma.db.url",
+            "jdbc:mysql://localhost:3306/farma_sistem?serverTimezone=UTC");
+    // Credenciales de acceso (usuario/contraseña). // TODO: no hardcodear en producción.
+    static final String USUARIO = System.getProperty("farma.db.usuario", "root");
+    static final String CLAVE = System.getProperty("farma.db.clave", "");
+
+    // Pool único para todos los DAO; se crea al cargar la clase.
+    private static final PoolConexiones POOL = new PoolConexiones(URL, USUARIO, CLAVE,
+            Integer.getInteger("farma.pool.min", 2),
+            Integer.getInteger("farma.pool.max", 10),
+            Long.getLong("farma.pool.esperaMs", 5000L),
+            Long.getLong("farma.pool.inactividadMs", 300000L),
+            Long.getLong("farma.pool.fugaMs", 60000L),
+            Boolean.getBoolean("farma.pool.trazas"));
+
+    // Mide latencias por sentencia y registra las lentas (ver MonitorSql).
+    private static final MonitorSql MONITOR = MonitorSql.getInstancia();
+
     // Referencia a la conexión actual. Se asigna en getConnection().
     Connection con;
 
     /**
-     * Obtiene una conexión JDBC a la base de datos.
-     * <p>Devuelve {@code null} si ocurre una {@link SQLException}.</p>
+     * Obtiene una conexión JDBC del pool, medida por {@link MonitorSql}.
+     * <p>Devuelve {@code null} si ocurre una {@link SQLException} (BD caída o
+     * pool agotado).</p>
      *
      * @return conexión activa o {@code null} en caso de error
      */
     public Connection getConnection() {
         try {
-            // URL de conexión JDBC (hostname, puerto y schema). Incluye zona horaria.
-            String myBD = "jdbc:mysql://localhost:3306/farma_sistem?serverTimezone=UTC";
-            // Credenciales de acceso (usuario/contraseña). // TODO: no hardcodear en producción.
-            con = DriverManager.getConnection(myBD, "root", "");
-            return con;
+            return prestar();
         } catch (SQLException e) {
             // Log del error. // TODO: sustituir por logger (nivel ERROR) y mensaje contextual.
             System.out.println(e.toString());
@@ -46,4 +73,60 @@ public class Conexion {
         return null;
     }
 
+    /**
+     * Como {@link #getConnection()}, pero sin conexión lanza la excepción en
+     * lugar de devolver {@code null}: el {@code catch (SQLException e)} del DAO
+     * la maneja como cualquier otro error de BD, y no hace falta comprobar
+     * {@code null} antes de usar la conexión en un try-with-resources.
+     * <p>El SQLState distingue la causa: clase {@code 08} si la BD no
+     * respondió, {@link PoolConexiones#AGOTADO} si todas las conexiones
+     * estaban prestadas.</p>
+     *
+     * @return conexión activa
+     * @throws SQLException si no se pudo obtener
+     */
+    public Connection prestar() throws SQLException {
+        long inicio = System.nanoTime();
+        con = MONITOR.instrumentar(POOL.obtener());
+        MONITOR.registrarEspera(System.nanoTime() - inicio);
+        return con;
+    }
+
+    /**
+     * Abre una conexión propia, fuera del pool, para trabajos largos (por
+     * ejemplo una exportación en streaming): no ocupa una conexión de las cajas
+     * ni se reporta como fuga por estar prestada mucho tiempo.
+     * <p>Se cierra físicamente al llamar a {@code close()}.</p>
+     *
+     * @return conexión nueva, medida por {@link MonitorSql} sin contar filas leídas
+     * @throws SQLException si no se pudo abrir
+     */
+    public static Connection abrirDedicada() throws SQLException {
+        return MONITOR.instrumentar(DriverManager.getConnection(URL, USUARIO, CLAVE), false);
+    }
+
+    /**
+     * Abre una conexión propia (fuera del pool) para cargas masivas, con
+     * {@code rewriteBatchedStatements=true}: Connector/J convierte cada lote de
+     * INSERT en un solo INSERT de varias filas. No se usa en el pool porque
+     * entonces los lotes de INSERT ya no informan filas afectadas por sentencia.
+     * <p>Se cierra físicamente al llamar a {@code close()}.</p>
+     *
+     * @return conexión nueva, medida por {@link MonitorSql} sin contar filas leídas
+     * @throws SQLException si no se pudo abrir
+     */
+    public static Connection abrirParaLotes() throws SQLException {
+        String url = URL + (URL.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        return MONITOR.instrumentar(DriverManager.getConnection(url, USUARIO, CLAVE), false);
+    }
+
+    /**
+     * Métricas del pool compartido (conexiones activas, inactivas, tiempos de espera).
+     *
+     * @return instantánea de las estadísticas
+     */
+    public static PoolConexiones.Estadisticas getEstadisticas() {
+        return POOL.getEstadisticas();
+    }
+
 }
@@ -7,8 +7,8 @@ package Modelo;
  *
  * <p><b>Notas (solo comentarios, sin cambiar código):</b></p>
  * <ul>
- *   <li>Si se requiere el subtotal de la línea, puede calcularse como
- *       {@code cantidad * precio} en la capa de servicio o vista. <!-- TODO --></li>
+ *   <li>El precio se guarda en céntimos ({@link Dinero}); el subtotal exacto
+ *       de la línea es {@link #getSubtotalCentimos()}.</li>
  *   <li>Validar que {@code cantidad} &gt; 0 y {@code precio} &gt;= 0 antes de persistir. <!-- TODO --></li>
  *   <li>Considerar nombres más expresivos como {@code productoId} e {@code ventaId}
  *       en futuras refactorizaciones (manteniendo compatibilidad). <!-- TODO --></li>
@@ -23,8 +23,8 @@ public class Detalle {
     private int id_pro;
     // Cantidad vendida del producto.
     private int cantidad;
-    // Precio unitario del producto en este detalle.
-    private double precio;
+    // Precio unitario del producto en este detalle, en céntimos (ver Dinero).
+    private long precio;
     // Identificador de la venta a la que pertenece este detalle.
     private int id_venta;
     
@@ -49,7 +49,7 @@ public class Detalle {
         this.id = id;
         this.id_pro = id_pro;
         this.cantidad = cantidad;
-        this.precio = precio;
+        this.precio = Dinero.deDouble(precio);
         this.id_venta = id_venta;
     }
 
@@ -103,10 +103,10 @@ public class Detalle {
 
     /**
      * Obtiene el precio unitario del producto en este detalle.
-     * @return precio unitario
+     * @return precio unitario (para mostrar; los cálculos usan {@link #getPrecioCentimos()})
      */
     public double getPrecio() {
-        return precio;
+        return Dinero.aDouble(precio);
     }
 
     /**
@@ -114,9 +114,33 @@ public class Detalle {
      * @param precio precio unitario (debe ser &gt;= 0) <!-- TODO: validar antes de persistir -->
      */
     public void setPrecio(double precio) {
+        this.precio = Dinero.deDouble(precio);
+    }
+
+    /**
+     * Obtiene el precio unitario en céntimos.
+     * @return precio unitario en céntimos
+     */
+    public long getPrecioCentimos() {
+        return precio;
+    }
+
+    /**
+     * Establece el precio unitario en céntimos.
+     * @param precio precio en céntimos
+     */
+    public void setPrecioCentimos(long precio) {
         this.precio = precio;
     }
 
+    /**
+     * Importe de la línea.
+     * @return cantidad por precio unitario, en céntimos
+     */
+    public long getSubtotalCentimos() {
+        return Dinero.multiplicar(precio, cantidad);
+    }
+
     /**
      * Obtiene el identificador de la venta a la que pertenece el detalle.
      * @return id de la venta
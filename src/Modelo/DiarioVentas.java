@@ -0,0 +1,578 @@
+package Modelo;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Diario local de ventas para seguir cobrando cuando la BD no responde.
+ * <p>{@link VentaDao#RegistrarVentaCompleta(Venta, List)} anota aquí la venta si
+ * no consigue conexión; {@link #anotar(Venta, List)} vuelve cuando el registro
+ * ya está en disco ({@code fsync}). Varias ventas que llegan mientras se
+ * sincroniza el disco se escriben juntas con un solo {@code fsync}, así que la
+ * caja solo espera al disco local.</p>
+ *
+ * <p>El archivo es de solo agregado: cada registro lleva su largo y un CRC32,
+ * y un registro cortado por una caída se descarta al leer. Un hilo de fondo
+ * reenvía los registros en orden cada {@code farma.diario.reintentoMs} ms
+ * (por defecto 15000) hasta que la BD responde; si la aplicación arrancó sin
+ * conexión, antes aplica las migraciones ({@link Migraciones#asegurar()}).
+ * Para no mezclar el archivo que se está escribiendo con el que se está
+ * reenviando, antes de reenviar el archivo actual se renombra a un lote
+ * ({@code lote-<milisegundos>.diario}) y las ventas nuevas van a un archivo
+ * nuevo.</p>
+ *
+ * <p>El reenvío es idempotente: cada venta lleva un uuid (columna única
+ * {@code ventas.uuid}) y una venta que ya está en la BD se salta. Un lote se
+ * borra solo cuando todas sus ventas quedaron registradas; si tenía un
+ * registro dañado se renombra a {@code .danado} para revisarlo a mano. Una
+ * venta que la BD rechaza por sus datos (por ejemplo un producto o cliente
+ * borrado en otra caja mientras tanto) se aparta en
+ * {@code <lote>.rechazado}, con el mismo formato, y el reenvío sigue con las
+ * demás. Un error momentáneo (interbloqueo, bloqueo vencido, pool agotado) no
+ * aparta nada: el lote queda como está y se reintenta en la próxima pasada.
+ * Corregida la causa de un rechazo, {@link #reintentarRechazadas()} devuelve
+ * los {@code .rechazado} a la cola de reenvío.</p>
+ *
+ * <p>La carpeta se cambia con {@code -Dfarma.diario.dir} (por defecto
+ * {@code ~/.farmacia/diario}).</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class DiarioVentas {
+
+    private static final DiarioVentas INSTANCIA = new DiarioVentas(
+            new File(System.getProperty("farma.diario.dir",
+                    System.getProperty("user.home") + File.separator + ".farmacia" + File.separator + "diario")),
+            Long.getLong("farma.diario.reintentoMs", 15000L));
+
+    // Formato del registro; se incrementa si cambia el contenido.
+    private static final byte FORMATO = 1;
+    // Un registro más grande que esto solo puede ser basura.
+    private static final int MAX_REGISTRO = 1 << 20;
+    private static final String ACTUAL = "ventas.diario";
+    private static final String PREFIJO_LOTE = "lote-";
+    private static final String EXTENSION = ".diario";
+    private static final String RECHAZADO = ".rechazado";
+
+    private final File carpeta;
+    private final long reintentoMs;
+    private final LinkedBlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    // Protege el canal: lo usan el escritor y la rotación previa al reenvío.
+    private final Object archivo = new Object();
+    private FileChannel canal;
+    private final VentaDao dao = new VentaDao();
+    private final Conexion cn = new Conexion();
+    private ScheduledExecutorService reenvio;
+    // La BD no respondió: las ventas van al diario hasta que el reenvío la vuelva a encontrar.
+    private volatile boolean sinConexion;
+
+    DiarioVentas(File carpeta, long reintentoMs) {
+        this.carpeta = carpeta;
+        this.reintentoMs = reintentoMs;
+        Thread escritor = new Thread(this::escribir, "diario-ventas");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Diario compartido por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static DiarioVentas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Arranca el reenvío en segundo plano. El primer intento es inmediato, para
+     * registrar lo que haya quedado de una sesión anterior. Llamadas repetidas no
+     * tienen efecto.
+     */
+    public synchronized void iniciar() {
+        if (reenvio != null) {
+            return;
+        }
+        // Lo que quedó de la sesión anterior pasa a un lote: si terminó con un
+        // registro cortado, no se agrega nada detrás de él.
+        synchronized (archivo) {
+            rotar();
+        }
+        reenvio = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "diario-reenvio");
+            t.setDaemon(true);
+            return t;
+        });
+        reenvio.scheduleWithFixedDelay(this::reenviar, 0, reintentoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Vuelve a poner en la cola de reenvío las ventas apartadas en archivos
+     * {@code .rechazado}, para usar una vez corregida la causa del rechazo
+     * (por ejemplo, después de restaurar el producto o cliente borrado). Las
+     * que la BD vuelva a rechazar se apartan de nuevo. El trabajo se hace en
+     * el hilo de reenvío, así que no se mezcla con una pasada en curso.
+     * <p>Requiere haber llamado a {@link #iniciar()}; si no, no hace nada.</p>
+     */
+    public synchronized void reintentarRechazadas() {
+        if (reenvio == null) {
+            return;
+        }
+        reenvio.execute(() -> {
+            try {
+                devolverRechazadas();
+            } catch (RuntimeException e) {
+                System.out.println(e.toString());
+            }
+            reenviar();
+        });
+    }
+
+    // Renombra cada <lote>.rechazado a un lote; conserva el nombre original si está libre.
+    private void devolverRechazadas() {
+        File[] archivos = carpeta.listFiles((dir, nombre) ->
+                nombre.startsWith(PREFIJO_LOTE) && nombre.endsWith(EXTENSION + RECHAZADO));
+        if (archivos == null) {
+            return;
+        }
+        Arrays.sort(archivos);
+        for (File f : archivos) {
+            String nombre = f.getName();
+            File destino = new File(carpeta, nombre.substring(0, nombre.length() - RECHAZADO.length()));
+            if (destino.exists()) {
+                destino = nuevoLote();
+            }
+            if (f.renameTo(destino)) {
+                System.out.println("Diario: " + f.getName() + " vuelve a reenviarse como " + destino.getName());
+            } else {
+                System.out.println("No se pudo renombrar " + f + " a " + destino);
+            }
+        }
+    }
+
+    /**
+     * @return true si la última operación no consiguió conexión y las ventas se
+     *         están guardando en el diario
+     */
+    public boolean isSinConexion() {
+        return sinConexion;
+    }
+
+    /**
+     * Indica que la BD no respondió. Mientras tanto las ventas van directo al
+     * diario, sin esperar el tiempo de conexión en cada cobro.
+     */
+    public void marcarSinConexion() {
+        if (!sinConexion) {
+            System.out.println("Sin conexión con la BD: las ventas se guardan en " + carpeta);
+        }
+        sinConexion = true;
+    }
+
+    /**
+     * Guarda una venta en el diario y espera a que esté en disco.
+     *
+     * @param v        cabecera de la venta; debe traer uuid y fecha y hora
+     * @param detalles líneas de la venta
+     * @throws IOException si no se pudo escribir o sincronizar el archivo
+     */
+    public void anotar(Venta v, List<Detalle> detalles) throws IOException {
+        Pendiente p = new Pendiente(serializar(v, detalles));
+        cola.add(p);
+        try {
+            p.hecho.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido esperando el diario", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return cantidad de archivos del diario con ventas por reenviar
+     */
+    public int getLotesPendientes() {
+        int n = lotes().size();
+        return new File(carpeta, ACTUAL).length() > 0 ? n + 1 : n;
+    }
+
+    // Hilo escritor: toma lo que se acumuló en la cola y lo sincroniza de una vez.
+    private void escribir() {
+        List<Pendiente> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            cola.drainTo(lote);
+            try {
+                synchronized (archivo) {
+                    escribirLote(lote);
+                }
+                for (Pendiente p : lote) {
+                    p.hecho.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println(e.toString());
+                for (Pendiente p : lote) {
+                    p.hecho.completeExceptionally(e);
+                }
+            }
+            lote.clear();
+        }
+    }
+
+    private void escribirLote(List<Pendiente> lote) throws IOException {
+        if (canal == null) {
+            if (!carpeta.isDirectory() && !carpeta.mkdirs()) {
+                throw new IOException("No se pudo crear la carpeta del diario: " + carpeta);
+            }
+            canal = FileChannel.open(new File(carpeta, ACTUAL).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        long antes = canal.size();
+        try {
+            for (Pendiente p : lote) {
+                ByteBuffer buf = ByteBuffer.wrap(p.bytes);
+                while (buf.hasRemaining()) {
+                    canal.write(buf);
+                }
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            // Que un registro a medias no quede delante de los siguientes.
+            try {
+                canal.truncate(antes);
+            } catch (IOException ex) {
+                System.out.println(ex.toString());
+            }
+            throw e;
+        }
+    }
+
+    // Cierra el archivo actual y lo renombra a un lote. Llamar con el lock de 'archivo'.
+    private void rotar() {
+        try {
+            if (canal != null) {
+                canal.close();
+                canal = null;
+            }
+        } catch (IOException e) {
+            System.out.println(e.toString());
+            canal = null;
+        }
+        File actual = new File(carpeta, ACTUAL);
+        if (actual.length() == 0) {
+            return;
+        }
+        File destino = nuevoLote();
+        if (!actual.renameTo(destino)) {
+            System.out.println("No se pudo renombrar " + actual + " a " + destino);
+        }
+    }
+
+    // Nombre libre para un lote nuevo, con la hora actual.
+    private File nuevoLote() {
+        long marca = System.currentTimeMillis();
+        File destino;
+        do {
+            destino = new File(carpeta, String.format("%s%013d%s", PREFIJO_LOTE, marca++, EXTENSION));
+        } while (destino.exists());
+        return destino;
+    }
+
+    // Lotes a reenviar, del más antiguo al más nuevo (el nombre lleva la hora con ancho fijo).
+    private List<File> lotes() {
+        File[] archivos = carpeta.listFiles((dir, nombre) ->
+                nombre.startsWith(PREFIJO_LOTE) && nombre.endsWith(EXTENSION));
+        if (archivos == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(archivos);
+        return new ArrayList<>(Arrays.asList(archivos));
+    }
+
+    // Tarea periódica: reenvía todos los lotes mientras haya conexión.
+    private void reenviar() {
+        try {
+            // Si se arrancó sin conexión el esquema puede estar viejo: se migra
+            // antes de registrar nada, del diario o de las ventas nuevas.
+            if (!Migraciones.asegurar()) {
+                return;
+            }
+            // Con la BD de vuelta las ventas nuevas van directo, aunque quede diario por reenviar.
+            if (sinConexion && hayConexion()) {
+                sinConexion = false;
+                System.out.println("Conexión con la BD recuperada");
+            }
+            while (true) {
+                synchronized (archivo) {
+                    rotar();
+                }
+                List<File> lotes = lotes();
+                if (lotes.isEmpty()) {
+                    return;
+                }
+                for (File lote : lotes) {
+                    if (!reenviarLote(lote)) {
+                        return;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Que un error inesperado no detenga el reenvío periódico.
+            System.out.println(e.toString());
+        }
+    }
+
+    // Un pool agotado también cuenta como conexión: la BD está respondiendo.
+    private boolean hayConexion() {
+        try (Connection con = cn.prestar()) {
+            return true;
+        } catch (SQLException e) {
+            return !VentaDao.esFallaDeConexion(e);
+        }
+    }
+
+    // Registra las ventas de un lote; false si la BD no respondió o el error fue
+    // momentáneo (se reintenta luego).
+    private boolean reenviarLote(File lote) {
+        Lectura lectura;
+        try {
+            lectura = leer(lote);
+        } catch (IOException e) {
+            System.out.println(e.toString());
+            return false;
+        }
+        try (Connection con = cn.prestar()) {
+            int registradas = 0;
+            List<Registro> rechazadas = new ArrayList<>();
+            for (Registro r : lectura.registros) {
+                try {
+                    if (dao.reenviar(con, r.venta, r.detalles) > 0) {
+                        registradas++;
+                    }
+                } catch (SQLException e) {
+                    if (VentaDao.esFallaDeConexion(e) || VentaDao.esTransitorio(e)) {
+                        // El lote se conserva; lo registrado se salta por uuid en la próxima pasada.
+                        throw e;
+                    }
+                    // Reintentarla daría el mismo error y trabaría las siguientes.
+                    System.out.println("Diario: venta " + r.venta.getUuid() + " rechazada por la BD: " + e.toString());
+                    rechazadas.add(r);
+                }
+            }
+            System.out.println("Diario: " + registradas + " de " + lectura.registros.size()
+                    + " ventas registradas desde " + lote.getName());
+            if (!rechazadas.isEmpty() && !apartar(lote, rechazadas)) {
+                // Sin poder guardarlas aparte, el lote se conserva y se reintenta.
+                return false;
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            if (VentaDao.esFallaDeConexion(e)) {
+                marcarSinConexion();
+            }
+            // Lo ya registrado se salta por uuid en el próximo intento.
+            return false;
+        }
+        if (lectura.danado) {
+            File revisar = new File(lote.getPath() + ".danado");
+            System.out.println("Diario con registros dañados, se guarda como " + revisar);
+            if (!lote.renameTo(revisar)) {
+                System.out.println("No se pudo renombrar " + lote);
+            }
+        } else if (!lote.delete()) {
+            System.out.println("No se pudo borrar " + lote);
+        }
+        return true;
+    }
+
+    // Escribe las ventas rechazadas en <lote>.rechazado, para revisarlas a mano.
+    private boolean apartar(File lote, List<Registro> rechazadas) {
+        File destino = new File(lote.getPath() + RECHAZADO);
+        try (FileChannel f = FileChannel.open(destino.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Registro r : rechazadas) {
+                ByteBuffer buf = ByteBuffer.wrap(serializar(r.venta, r.detalles));
+                while (buf.hasRemaining()) {
+                    f.write(buf);
+                }
+            }
+            f.force(false);
+            System.out.println("Diario: " + rechazadas.size() + " ventas rechazadas guardadas en " + destino);
+            return true;
+        } catch (IOException e) {
+            System.out.println(e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Convierte una venta en un registro del diario: largo, contenido y CRC32.
+     *
+     * @param v        cabecera (uuid, cliente, vendedor, total, fecha y hora)
+     * @param detalles líneas de la venta
+     * @return bytes listos para agregar al archivo
+     * @throws IOException no ocurre al escribir en memoria
+     */
+    static byte[] serializar(Venta v, List<Detalle> detalles) throws IOException {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream(128 + detalles.size() * 16);
+        DataOutputStream out = new DataOutputStream(contenido);
+        out.writeByte(FORMATO);
+        out.writeUTF(v.getUuid());
+        out.writeInt(v.getCliente());
+        out.writeUTF(v.getVendedor());
+        out.writeLong(v.getTotalCentimos());
+        out.writeUTF(v.getFecha());
+        out.writeUTF(v.getFechaHora().toString());
+        out.writeInt(detalles.size());
+        for (Detalle d : detalles) {
+            out.writeInt(d.getId_pro());
+            out.writeInt(d.getCantidad());
+            out.writeLong(d.getPrecioCentimos());
+        }
+        byte[] datos = contenido.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        ByteArrayOutputStream registro = new ByteArrayOutputStream(datos.length + 8);
+        DataOutputStream reg = new DataOutputStream(registro);
+        reg.writeInt(datos.length);
+        reg.write(datos);
+        reg.writeInt((int) crc.getValue());
+        return registro.toByteArray();
+    }
+
+    /**
+     * Lee los registros válidos de un archivo del diario. Se detiene en el
+     * primer registro cortado o con CRC distinto.
+     *
+     * @param f archivo del diario
+     * @return registros leídos e indicación de si quedaron bytes sin leer
+     * @throws IOException si no se pudo abrir el archivo
+     */
+    static Lectura leer(File f) throws IOException {
+        Lectura lectura = new Lectura();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            while (true) {
+                // Fin limpio solo entre registros; un largo a medias también es una cola cortada.
+                int primero = in.read();
+                if (primero < 0) {
+                    return lectura;
+                }
+                int largo;
+                try {
+                    largo = (primero << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+                            | in.readUnsignedByte();
+                } catch (EOFException cortado) {
+                    lectura.danado = true;
+                    return lectura;
+                }
+                if (largo <= 0 || largo > MAX_REGISTRO) {
+                    lectura.danado = true;
+                    return lectura;
+                }
+                byte[] datos = new byte[largo];
+                int crcGuardado;
+                try {
+                    in.readFully(datos);
+                    crcGuardado = in.readInt();
+                } catch (EOFException cortado) {
+                    lectura.danado = true;
+                    return lectura;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(datos);
+                if ((int) crc.getValue() != crcGuardado) {
+                    lectura.danado = true;
+                    return lectura;
+                }
+                try {
+                    lectura.registros.add(registro(datos));
+                } catch (IOException | RuntimeException e) {
+                    System.out.println(e.toString());
+                    lectura.danado = true;
+                    return lectura;
+                }
+            }
+        }
+    }
+
+    private static Registro registro(byte[] datos) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos));
+        byte formato = in.readByte();
+        if (formato != FORMATO) {
+            throw new IOException("Formato de diario desconocido: " + formato);
+        }
+        Venta v = new Venta();
+        v.setUuid(in.readUTF());
+        v.setCliente(in.readInt());
+        v.setVendedor(in.readUTF());
+        v.setTotalCentimos(in.readLong());
+        v.setFecha(in.readUTF());
+        v.setFechaHora(LocalDateTime.parse(in.readUTF()));
+        int n = in.readInt();
+        List<Detalle> detalles = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Detalle d = new Detalle();
+            d.setId_pro(in.readInt());
+            d.setCantidad(in.readInt());
+            d.setPrecioCentimos(in.readLong());
+            detalles.add(d);
+        }
+        return new Registro(v, detalles);
+    }
+
+    /** Venta leída del diario. */
+    static final class Registro {
+        final Venta venta;
+        final List<Detalle> detalles;
+
+        Registro(Venta venta, List<Detalle> detalles) {
+            this.venta = venta;
+            this.detalles = detalles;
+        }
+    }
+
+    /** Resultado de leer un archivo del diario. */
+    static final class Lectura {
+        final List<Registro> registros = new ArrayList<>();
+        // Quedaron bytes que no forman un registro válido.
+        boolean danado;
+    }
+
+    // Registro esperando el fsync del escritor.
+    private static final class Pendiente {
+        final byte[] bytes;
+        final CompletableFuture<Void> hecho = new CompletableFuture<>();
+
+        Pendiente(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package Modelo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montos de dinero como {@code long} de céntimos.
+ * <p>La BD guarda precios y totales como {@code decimal(10,2)}. Sumar esos
+ * montos en {@code double} arrastra errores de redondeo (0.1 + 0.2 no da 0.3)
+ * que terminan en subtotales distintos entre la pantalla, la BD y el PDF. En
+ * céntimos la suma y la multiplicación por cantidad son exactas y no crean
+ * objetos; {@link BigDecimal} solo se usa en el borde con JDBC.</p>
+ *
+ * <p>Las operaciones desbordan con {@link ArithmeticException} en lugar de
+ * dar un monto incorrecto.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class Dinero {
+
+    /** Céntimos por unidad de moneda. */
+    public static final int CENTIMOS = 100;
+
+    private Dinero() {
+    }
+
+    /**
+     * @param valor monto leído de la BD (puede ser {@code null})
+     * @return céntimos, redondeando medio céntimo hacia arriba; 0 si es {@code null}
+     */
+    public static long deDecimal(BigDecimal valor) {
+        if (valor == null) {
+            return 0;
+        }
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @param centimos monto en céntimos
+     * @return monto con dos decimales, para {@code PreparedStatement.setBigDecimal}
+     */
+    public static BigDecimal aDecimal(long centimos) {
+        return BigDecimal.valueOf(centimos, 2);
+    }
+
+    /**
+     * Convierte un monto en {@code double} (código anterior, gráficos).
+     * <p>Parte de la representación decimal más corta del {@code double}, así
+     * 1.005 da 101 céntimos y no 100 como daría {@code Math.round(1.005 * 100)}.</p>
+     *
+     * @param valor monto
+     * @return céntimos, redondeando medio céntimo hacia arriba
+     */
+    public static long deDouble(double valor) {
+        return deDecimal(BigDecimal.valueOf(valor));
+    }
+
+    /**
+     * @param centimos monto en céntimos
+     * @return monto en {@code double}, solo para mostrar o graficar
+     */
+    public static double aDouble(long centimos) {
+        return centimos / (double) CENTIMOS;
+    }
+
+    /**
+     * Lee un monto escrito por el usuario ("12", "12.5", "12.50").
+     *
+     * @param texto monto con punto decimal
+     * @return céntimos
+     * @throws NumberFormatException si el texto no es un número
+     */
+    public static long parsear(String texto) {
+        return deDecimal(new BigDecimal(texto.trim()));
+    }
+
+    /**
+     * @param centimos monto en céntimos
+     * @return texto con dos decimales ("1234.50", "-0.05")
+     */
+    public static String formatear(long centimos) {
+        return aDecimal(centimos).toPlainString();
+    }
+
+    /**
+     * Importe de una línea.
+     *
+     * @param precio   precio unitario en céntimos
+     * @param cantidad unidades
+     * @return precio por cantidad, en céntimos
+     */
+    public static long multiplicar(long precio, int cantidad) {
+        return Math.multiplyExact(precio, (long) cantidad);
+    }
+
+    /**
+     * @param a monto en céntimos
+     * @param b monto en céntimos
+     * @return suma en céntimos
+     */
+    public static long sumar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * @param a monto en céntimos
+     * @param b monto en céntimos
+     * @return {@code a - b} en céntimos
+     */
+    public static long restar(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+}
@@ -0,0 +1,543 @@
+package Modelo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importa productos desde un CSV: los códigos que ya existen se actualizan y
+ * los nuevos se insertan ({@code INSERT ... ON DUPLICATE KEY UPDATE} sobre
+ * {@code uk_productos_codigo}).
+ * <p>El archivo va en UTF-8 (con o sin BOM), separado por coma o punto y coma
+ * (se detecta en el encabezado). El encabezado nombra las columnas
+ * {@code codigo}, {@code nombre}, {@code proveedor} (nombre del proveedor) y
+ * {@code precio}; {@code stock} es opcional: si falta, los productos nuevos
+ * entran con stock 0 y los existentes conservan el suyo.</p>
+ *
+ * <p>Todo el archivo se valida antes de escribir. Los proveedores se resuelven
+ * con un mapa nombre → id leído una vez, no con una consulta por fila. Las
+ * filas válidas se ordenan por código y se guardan en tandas de
+ * {@value #TANDA}, cada una un lote JDBC en su propia transacción (junto con
+ * sus filas de {@link Cambios}). Las tandas se reparten entre varios hilos, cada
+ * uno con su conexión de {@link Conexion#abrirParaLotes()}: como cada tanda
+ * toca un rango de códigos distinto no se pisan, y si InnoDB igual detecta un
+ * bloqueo mutuo la tanda se reintenta.</p>
+ *
+ * <p>Las filas rechazadas (por validación o porque su tanda falló) se escriben
+ * junto al archivo en {@code <nombre>-rechazados.csv} con la línea y el motivo.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class ImportarProductos {
+
+    /**
+     * Recibe el avance de una importación. Se llama desde los hilos que
+     * guardan las tandas.
+     */
+    public interface Progreso {
+        /**
+         * @param filas filas guardadas o rechazadas en la BD hasta ahora
+         * @param total filas válidas a guardar
+         */
+        void avance(int filas, int total);
+    }
+
+    /** Filas por tanda (un lote y una transacción). */
+    static final int TANDA = 1000;
+    /** Largo máximo de {@code productos.codigo}. */
+    static final int LARGO_CODIGO = 20;
+    /** Mayor precio que admite {@code decimal(10,2)}, en céntimos. */
+    static final long PRECIO_MAXIMO = 9999999999L;
+
+    private static final int HILOS = Integer.getInteger("farma.importar.hilos",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int INTENTOS = 3;
+    // ER_LOCK_DEADLOCK
+    private static final int BLOQUEO_MUTUO = 1213;
+
+    private static final String GUARDAR = "INSERT INTO productos (codigo, nombre, proveedor, stock, precio) "
+            + "VALUES (?,?,?,?,?) ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), "
+            + "proveedor = VALUES(proveedor), precio = VALUES(precio)";
+
+    private ImportarProductos() {
+    }
+
+    /**
+     * Importa el archivo.
+     * <p>Si se cancela (interrupción del hilo) las tandas ya confirmadas quedan
+     * guardadas.</p>
+     *
+     * @param archivo  CSV a importar
+     * @param progreso recibe el avance; puede ser {@code null}
+     * @return resumen de la importación
+     * @throws SQLException si no se pudo leer los proveedores o abrir una conexión
+     * @throws IOException  si no se pudo leer el archivo, el encabezado no es
+     *                      válido o se canceló ({@link InterruptedIOException})
+     */
+    public static Resultado Importar(File archivo, Progreso progreso) throws SQLException, IOException {
+        long inicio = System.currentTimeMillis();
+        Map<String, Integer> proveedores = proveedores();
+        List<Fila> validas = new ArrayList<>();
+        List<Fila> rechazadas = Collections.synchronizedList(new ArrayList<Fila>());
+        boolean conStock;
+        try (LectorCsv csv = new LectorCsv(new BufferedReader(new InputStreamReader(
+                new FileInputStream(archivo), StandardCharsets.UTF_8), 1 << 16))) {
+            conStock = leer(csv, proveedores, validas, rechazadas);
+        }
+        // Tandas con rangos de códigos contiguos: dos hilos no compiten por las mismas claves.
+        validas.sort(Comparator.comparing(f -> f.codigo, String.CASE_INSENSITIVE_ORDER));
+        List<List<Fila>> tandas = new ArrayList<>();
+        for (int i = 0; i < validas.size(); i += TANDA) {
+            tandas.add(validas.subList(i, Math.min(validas.size(), i + TANDA)));
+        }
+        int leidas = validas.size() + rechazadas.size();
+        int importadas = guardar(tandas, conStock, validas.size(), rechazadas, progreso);
+        if (importadas > 0) {
+            // Las demás cajas se enteran por Cambios; esta recarga sus cachés.
+            ProductosDao dao = new ProductosDao();
+            dao.CargarCatalogo();
+            dao.CargarIndice();
+        }
+        File reporte = null;
+        if (!rechazadas.isEmpty()) {
+            reporte = reporte(archivo);
+            escribirRechazos(reporte, rechazadas);
+        }
+        return new Resultado(leidas, importadas, rechazadas.size(), reporte, System.currentTimeMillis() - inicio);
+    }
+
+    // nombre normalizado -> id
+    private static Map<String, Integer> proveedores() throws SQLException {
+        Map<String, Integer> mapa = new HashMap<>();
+        try (Connection con = new Conexion().getConnection()) {
+            if (con == null) {
+                throw new SQLException("Sin conexión a la base de datos");
+            }
+            try (PreparedStatement ps = con.prepareStatement("SELECT id, nombre FROM proveedor");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    mapa.putIfAbsent(clave(rs.getString("nombre")), rs.getInt("id"));
+                }
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Lee y valida el archivo.
+     *
+     * @return true si el archivo trae la columna stock
+     */
+    static boolean leer(LectorCsv csv, Map<String, Integer> proveedores, List<Fila> validas,
+            List<Fila> rechazadas) throws IOException {
+        List<String> encabezado = csv.siguiente();
+        if (encabezado == null) {
+            throw new IOException("El archivo está vacío");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            columnas.putIfAbsent(clave(encabezado.get(i)), i);
+        }
+        for (String c : new String[]{"codigo", "nombre", "proveedor", "precio"}) {
+            if (!columnas.containsKey(c)) {
+                throw new IOException("Falta la columna " + c + " en el encabezado");
+            }
+        }
+        int cCodigo = columnas.get("codigo");
+        int cNombre = columnas.get("nombre");
+        int cProveedor = columnas.get("proveedor");
+        int cPrecio = columnas.get("precio");
+        int cStock = columnas.getOrDefault("stock", -1);
+        // clave del código -> línea donde apareció; la clave compara como
+        // utf8_spanish_ci (la colación de productos.codigo): "CÓD1" repite a "cod1".
+        Map<String, Integer> vistos = new HashMap<>();
+        List<String> campos;
+        while ((campos = csv.siguiente()) != null) {
+            if (csv.texto().trim().isEmpty()) {
+                continue;
+            }
+            Fila f = new Fila(csv.linea(), csv.texto());
+            f.codigo = campo(campos, cCodigo);
+            f.nombre = campo(campos, cNombre);
+            String proveedor = campo(campos, cProveedor);
+            String precio = campo(campos, cPrecio);
+            String stock = cStock < 0 ? "0" : campo(campos, cStock);
+            Integer idProveedor = proveedores.get(clave(proveedor));
+            if (f.codigo.isEmpty()) {
+                f.motivo = "Código vacío";
+            } else if (f.codigo.length() > LARGO_CODIGO) {
+                f.motivo = "Código de más de " + LARGO_CODIGO + " caracteres";
+            } else if (f.nombre.isEmpty()) {
+                f.motivo = "Nombre vacío";
+            } else if (idProveedor == null) {
+                f.motivo = "Proveedor desconocido: " + proveedor;
+            } else {
+                f.proveedor = idProveedor;
+                f.motivo = numeros(f, precio, stock);
+            }
+            if (f.motivo == null) {
+                Integer anterior = vistos.putIfAbsent(clave(f.codigo), f.linea);
+                if (anterior != null) {
+                    f.motivo = "Código repetido (ya está en la línea " + anterior + ")";
+                }
+            }
+            if (f.motivo == null) {
+                validas.add(f);
+            } else {
+                rechazadas.add(f);
+            }
+        }
+        return cStock >= 0;
+    }
+
+    // Valida precio y stock; devuelve el motivo del rechazo o null.
+    private static String numeros(Fila f, String precio, String stock) {
+        try {
+            // Acepta coma decimal ("12,50"), común en archivos separados por punto y coma.
+            f.precio = Dinero.parsear(precio.indexOf('.') < 0 ? precio.replace(',', '.') : precio);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return "Precio no válido: " + precio;
+        }
+        if (f.precio < 0 || f.precio > PRECIO_MAXIMO) {
+            return "Precio fuera de rango: " + precio;
+        }
+        try {
+            f.stock = Integer.parseInt(stock);
+        } catch (NumberFormatException e) {
+            return "Stock no válido: " + stock;
+        }
+        return f.stock < 0 ? "Stock negativo: " + stock : null;
+    }
+
+    private static String campo(List<String> campos, int i) {
+        return i < campos.size() ? campos.get(i).trim() : "";
+    }
+
+    /*
+     * Minúsculas, sin tildes ni espacios sobrantes: "Código " -> "codigo".
+     * Compara como la colación utf8_spanish_ci de las columnas: ignora
+     * mayúsculas y tildes, pero la ñ es una letra propia ("año" != "ano").
+     */
+    static String clave(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(texto.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("(?<!n)\\p{M}|(?<=n)[\\p{M}&&[^\\u0303]]", "");
+        return Normalizer.normalize(sinTildes, Normalizer.Form.NFC);
+    }
+
+    // Reparte las tandas entre los hilos; devuelve cuántas filas se guardaron.
+    private static int guardar(List<List<Fila>> tandas, boolean conStock, int total, List<Fila> rechazadas,
+            Progreso progreso) throws SQLException, IOException {
+        if (tandas.isEmpty()) {
+            return 0;
+        }
+        String sql = conStock ? GUARDAR + ", stock = VALUES(stock)" : GUARDAR;
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicInteger guardadas = new AtomicInteger();
+        AtomicInteger hechas = new AtomicInteger();
+        int hilos = Math.max(1, Math.min(HILOS, tandas.size()));
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Void>> trabajos = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                trabajos.add(ejecutor.submit(() -> {
+                    try (Connection con = Conexion.abrirParaLotes();
+                         PreparedStatement ps = con.prepareStatement(sql)) {
+                        con.setAutoCommit(false);
+                        int t;
+                        while ((t = siguiente.getAndIncrement()) < tandas.size()) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                return null;
+                            }
+                            List<Fila> tanda = tandas.get(t);
+                            try {
+                                guardarTanda(con, ps, tanda);
+                                guardadas.addAndGet(tanda.size());
+                            } catch (SQLException e) {
+                                System.out.println(e.toString());
+                                for (Fila f : tanda) {
+                                    f.motivo = "Error al guardar: " + e.getMessage();
+                                }
+                                rechazadas.addAll(tanda);
+                            }
+                            synchronized (hechas) {
+                                avisar(progreso, hechas.addAndGet(tanda.size()), total);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> trabajo : trabajos) {
+                trabajo.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación cancelada; quedaron guardadas "
+                    + guardadas.get() + " filas");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return guardadas.get();
+    }
+
+    // Una tanda: lote de upserts + filas de cambios, confirmados juntos.
+    private static void guardarTanda(Connection con, PreparedStatement ps, List<Fila> tanda) throws SQLException {
+        List<String> codigos = new ArrayList<>(tanda.size());
+        for (Fila f : tanda) {
+            codigos.add(f.codigo);
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                for (Fila f : tanda) {
+                    ps.setString(1, f.codigo);
+                    ps.setString(2, f.nombre);
+                    ps.setInt(3, f.proveedor);
+                    ps.setInt(4, f.stock);
+                    ps.setBigDecimal(5, Dinero.aDecimal(f.precio));
+                    ps.addBatch();
+                }
+                // Con rewriteBatchedStatements sale como un solo INSERT de varias filas.
+                ps.executeBatch();
+                Cambios.anotarProductos(con, codigos);
+                con.commit();
+                return;
+            } catch (SQLException e) {
+                ps.clearBatch();
+                con.rollback();
+                if (e.getErrorCode() != BLOQUEO_MUTUO || intento == INTENTOS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void avisar(Progreso progreso, int filas, int total) {
+        if (progreso != null) {
+            progreso.avance(filas, total);
+        }
+    }
+
+    // productos.csv -> productos-rechazados.csv, en la misma carpeta.
+    static File reporte(File archivo) {
+        String nombre = archivo.getName();
+        int punto = nombre.lastIndexOf('.');
+        String base = punto > 0 ? nombre.substring(0, punto) : nombre;
+        return new File(archivo.getAbsoluteFile().getParentFile(), base + "-rechazados.csv");
+    }
+
+    private static void escribirRechazos(File reporte, List<Fila> rechazadas) throws IOException {
+        List<Fila> ordenadas = new ArrayList<>(rechazadas);
+        ordenadas.sort(Comparator.comparingInt(f -> f.linea));
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(reporte), StandardCharsets.UTF_8))) {
+            out.write("\uFEFFLínea,Motivo,Registro\r\n");
+            for (Fila f : ordenadas) {
+                out.write(Integer.toString(f.linea));
+                out.write(',');
+                out.write(comillas(f.motivo));
+                out.write(',');
+                out.write(comillas(f.texto));
+                out.write("\r\n");
+            }
+        }
+    }
+
+    private static String comillas(String texto) {
+        return "\"" + texto.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Resumen de una importación.
+     */
+    public static final class Resultado {
+        private final int leidas;
+        private final int importadas;
+        private final int rechazadas;
+        private final File reporte;
+        private final long milisegundos;
+
+        Resultado(int leidas, int importadas, int rechazadas, File reporte, long milisegundos) {
+            this.leidas = leidas;
+            this.importadas = importadas;
+            this.rechazadas = rechazadas;
+            this.reporte = reporte;
+            this.milisegundos = milisegundos;
+        }
+
+        /** @return filas de datos leídas (sin encabezado ni líneas en blanco) */
+        public int getLeidas() {
+            return leidas;
+        }
+
+        /** @return filas insertadas o actualizadas */
+        public int getImportadas() {
+            return importadas;
+        }
+
+        /** @return filas rechazadas */
+        public int getRechazadas() {
+            return rechazadas;
+        }
+
+        /** @return archivo con las filas rechazadas, o {@code null} si no hubo */
+        public File getReporte() {
+            return reporte;
+        }
+
+        /** @return duración total */
+        public long getMilisegundos() {
+            return milisegundos;
+        }
+    }
+
+    // Una fila de datos del archivo.
+    static final class Fila {
+        final int linea;
+        final String texto;
+        String codigo;
+        String nombre;
+        int proveedor;
+        int stock;
+        long precio;
+        String motivo;
+
+        Fila(int linea, String texto) {
+            this.linea = linea;
+            this.texto = texto;
+        }
+    }
+
+    /**
+     * Lee registros CSV (RFC 4180): campos entre comillas pueden tener el
+     * separador, comillas dobladas y saltos de línea. El separador (coma o punto
+     * y coma) se elige con la primera línea.
+     */
+    static final class LectorCsv implements Closeable {
+        private final BufferedReader in;
+        private char separador = ',';
+        private int lineas;
+        private int linea;
+        private String texto;
+
+        LectorCsv(BufferedReader in) {
+            this.in = in;
+        }
+
+        /**
+         * @return campos del siguiente registro, o {@code null} al final
+         * @throws IOException si no se pudo leer
+         */
+        List<String> siguiente() throws IOException {
+            String l = in.readLine();
+            if (l == null) {
+                return null;
+            }
+            if (lineas++ == 0) {
+                if (l.startsWith("\uFEFF")) {
+                    l = l.substring(1);
+                }
+                separador = cuenta(l, ';') > cuenta(l, ',') ? ';' : ',';
+            }
+            linea = lineas;
+            StringBuilder sb = new StringBuilder(l);
+            // Comillas sin cerrar: el campo sigue en la línea siguiente.
+            while (cuenta(sb, '"') % 2 != 0) {
+                String mas = in.readLine();
+                if (mas == null) {
+                    break;
+                }
+                lineas++;
+                sb.append('\n').append(mas);
+            }
+            texto = sb.toString();
+            return campos(texto, separador);
+        }
+
+        /** @return línea donde empieza el último registro leído */
+        int linea() {
+            return linea;
+        }
+
+        /** @return último registro tal como está en el archivo */
+        String texto() {
+            return texto;
+        }
+
+        static List<String> campos(String registro, char separador) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            for (int i = 0; i < registro.length(); i++) {
+                char c = registro.charAt(i);
+                if (entreComillas) {
+                    if (c != '"') {
+                        campo.append(c);
+                    } else if (i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == separador) {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append(c);
+                }
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+
+        private static int cuenta(CharSequence s, char c) {
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) == c) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package Modelo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice en memoria para buscar productos por parte del nombre o del código
+ * mientras el cajero escribe ("amoxi", "paracet 500", "ibuprofeno" mal escrito).
+ * <p>Cada palabra del nombre y del código se parte en trigramas (grupos de tres
+ * letras); el trigrama se codifica en un {@code int} y apunta a la lista de
+ * productos que lo contienen ({@link MapaIntObjeto}). Una búsqueda cuenta en
+ * cuántos trigramas de la consulta aparece cada producto, revisa los que más
+ * coinciden y los ordena:</p>
+ * <ol>
+ *   <li>código igual a la consulta;</li>
+ *   <li>palabra que empieza con lo escrito;</li>
+ *   <li>lo escrito aparece dentro de una palabra;</li>
+ *   <li>palabra parecida, con uno o dos errores de tipeo según el largo.</li>
+ * </ol>
+ * <p>Las mayúsculas, tildes y signos se ignoran. Si la consulta tiene varias
+ * palabras, todas deben coincidir.</p>
+ *
+ * <p>Se carga al iniciar el sistema ({@link ProductosDao#CargarIndice()}) y
+ * {@link ProductosDao} lo mantiene al día al registrar, modificar o eliminar
+ * productos. Los métodos están sincronizados: se busca desde el hilo de Swing
+ * y se actualiza desde los hilos de fondo.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class IndiceProductos {
+
+    private static final IndiceProductos INSTANCIA = new IndiceProductos();
+
+    // Productos revisados como máximo por búsqueda (los de más trigramas en común).
+    private static final int MAX_REVISAR = 4000;
+    // Posiciones libres que se toleran antes de reconstruir las listas.
+    private static final int MIN_COMPACTAR = 1024;
+
+    // Puntajes: prefijo de palabra > dentro de una palabra > parecido.
+    private static final int PUNTOS_PREFIJO = 300;
+    private static final int PUNTOS_CONTIENE = 200;
+    private static final int PUNTOS_PARECIDO = 100;
+    private static final int PENALIDAD_ERROR = 30;
+    private static final int PUNTOS_CODIGO = 1000;
+    private static final int PUNTOS_INICIO = 50;
+
+    /**
+     * Un producto indexado. El nombre y el código normalizados van juntos en un
+     * solo arreglo ("amoxicilina 500mg p002"): revisar un candidato recorre
+     * memoria contigua en lugar de un objeto por palabra.
+     */
+    private static final class Entrada {
+        final int id;
+        final String codigo;
+        final String nombre;
+        final String codigoNorm;
+        final char[] texto;
+        final int largoNombre;
+
+        Entrada(int id, String codigo, String nombre) {
+            this.id = id;
+            this.codigo = codigo;
+            this.nombre = nombre;
+            this.codigoNorm = normalizar(codigo);
+            String nombreNorm = normalizar(nombre);
+            this.largoNombre = nombreNorm.length();
+            this.texto = (nombreNorm + " " + codigoNorm).trim().toCharArray();
+        }
+    }
+
+    /**
+     * Lista de posiciones que contienen un trigrama.
+     */
+    private static final class Lista {
+        int[] pos = new int[4];
+        int n;
+
+        void agregar(int p) {
+            if (n == pos.length) {
+                pos = Arrays.copyOf(pos, n * 2);
+            }
+            pos[n++] = p;
+        }
+    }
+
+    private Entrada[] entradas = new Entrada[1024];
+    private int usadas;
+    private int libres;
+    private MapaIntObjeto<Lista> listas = new MapaIntObjeto<>();
+    // id -> posición en entradas; solo se consulta al modificar o quitar.
+    private final MapaIntObjeto<Integer> posicionPorId = new MapaIntObjeto<>();
+
+    // Trabajo de la búsqueda, reutilizado (los métodos están sincronizados).
+    private int[] cuentas = new int[1024];
+    private int[] tocadas = new int[1024];
+    private int[] orden = new int[1024];
+    private int[] filaA = new int[32];
+    private int[] filaB = new int[32];
+    private int[] filaC = new int[32];
+
+    IndiceProductos() {
+    }
+
+    /**
+     * Índice compartido por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static IndiceProductos getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Reemplaza el contenido del índice.
+     *
+     * @param productos productos con id, código y nombre
+     */
+    public synchronized void cargar(List<Productos> productos) {
+        entradas = new Entrada[Math.max(1024, productos.size())];
+        usadas = 0;
+        libres = 0;
+        listas = new MapaIntObjeto<>(productos.size() * 4);
+        posicionPorId.clear();
+        for (Productos p : productos) {
+            agregar(p);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto (por ejemplo, tras registrarlo o modificarlo).
+     *
+     * @param p producto con id, código y nombre
+     */
+    public synchronized void poner(Productos p) {
+        quitarId(p.getId());
+        agregar(p);
+        compactarSiHaceFalta();
+    }
+
+    /**
+     * Quita un producto (por ejemplo, tras eliminarlo).
+     *
+     * @param id id del producto
+     */
+    public synchronized void quitar(int id) {
+        quitarId(id);
+        compactarSiHaceFalta();
+    }
+
+    /** @return productos indexados */
+    public synchronized int getTamanio() {
+        return posicionPorId.size();
+    }
+
+    /**
+     * Busca productos por parte del nombre o del código.
+     *
+     * @param texto lo que escribió el cajero
+     * @param max   resultados como máximo
+     * @return productos (solo id, código y nombre), del más al menos relevante
+     */
+    public synchronized List<Productos> buscar(String texto, int max) {
+        String consulta = normalizar(texto);
+        String[] palabrasConsulta = palabras(consulta);
+        if (palabrasConsulta.length == 0 || max <= 0) {
+            return new ArrayList<>();
+        }
+        // Trigramas de inicio (prefijos, palabras cortas) e internos (texto en
+        // medio de una palabra); con un error de tipeo siguen coincidiendo varios.
+        int[] trigramas = trigramasConsulta(palabrasConsulta);
+
+        // 1. Cuenta cuántos trigramas de la consulta tiene cada producto.
+        if (cuentas.length < usadas) {
+            cuentas = new int[entradas.length];
+            tocadas = new int[entradas.length];
+            orden = new int[entradas.length];
+        }
+        int nTocadas = 0;
+        int maxCuenta = 0;
+        for (int t : trigramas) {
+            Lista l = listas.get(t);
+            if (l == null) {
+                continue;
+            }
+            for (int i = 0; i < l.n; i++) {
+                int p = l.pos[i];
+                if (entradas[p] == null) {
+                    continue;
+                }
+                if (cuentas[p]++ == 0) {
+                    tocadas[nTocadas++] = p;
+                }
+                maxCuenta = Math.max(maxCuenta, cuentas[p]);
+            }
+        }
+
+        // 2. Ordena por cantidad de coincidencias, de mayor a menor (conteo).
+        int[] inicio = new int[maxCuenta + 2];
+        for (int i = 0; i < nTocadas; i++) {
+            inicio[maxCuenta - cuentas[tocadas[i]] + 1]++;
+        }
+        for (int c = 1; c < inicio.length; c++) {
+            inicio[c] += inicio[c - 1];
+        }
+        for (int i = 0; i < nTocadas; i++) {
+            int p = tocadas[i];
+            orden[inicio[maxCuenta - cuentas[p]]++] = p;
+        }
+
+        // 3. Revisa primero los que más coinciden y guarda los mejores. Se corta
+        //    cuando ya hay max resultados que ningún candidato restante puede
+        //    superar (ver cota).
+        int[] mejores = new int[max];
+        int[] puntajes = new int[max];
+        int nMejores = 0;
+        int errores = 0;
+        for (String q : palabrasConsulta) {
+            errores += erroresPermitidos(q.length());
+        }
+        int revisar = Math.min(nTocadas, MAX_REVISAR);
+        for (int i = 0; i < revisar; i++) {
+            int p = orden[i];
+            int tope = cota(trigramas.length - cuentas[p], palabrasConsulta.length, errores);
+            if (tope == 0 || (nMejores == max && puntajes[max - 1] >= tope)) {
+                break;
+            }
+            int puntos = puntuar(entradas[p], consulta, palabrasConsulta);
+            if (puntos > 0) {
+                nMejores = insertar(mejores, puntajes, nMejores, p, puntos);
+            }
+        }
+        for (int i = 0; i < nTocadas; i++) {
+            cuentas[tocadas[i]] = 0;
+        }
+
+        List<Productos> resultado = new ArrayList<>(nMejores);
+        for (int i = 0; i < nMejores; i++) {
+            Entrada e = entradas[mejores[i]];
+            Productos pro = new Productos();
+            pro.setId(e.id);
+            pro.setCodigo(e.codigo);
+            pro.setNombre(e.nombre);
+            resultado.add(pro);
+        }
+        return resultado;
+    }
+
+    /*
+     * Puntaje máximo de un producto al que le faltan "faltan" trigramas de una
+     * consulta de n palabras que tolera "errores" errores en total. Que una
+     * palabra empiece con lo escrito exige todos sus trigramas; que lo contenga,
+     * todos menos el de inicio; y cada error de tipeo cambia a lo sumo cuatro
+     * (intercambiar dos letras vecinas toca los trigramas de ambas; cambiar,
+     * agregar o quitar una letra, tres o menos). Si faltan más de n, alguna
+     * palabra coincide solo por parecido. 0 = ya no puede coincidir.
+     */
+    private static int cota(int faltan, int n, int errores) {
+        if (faltan == 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (faltan <= n) {
+            return (n - 1) * PUNTOS_PREFIJO + PUNTOS_CONTIENE;
+        }
+        if (faltan <= n + 4 * errores) {
+            // Las otras n - 1 palabras aportan a lo sumo uno cada una (contener).
+            int minimoErrores = (faltan - (n - 1) + 3) / 4;
+            return (n - 1) * PUNTOS_PREFIJO + PUNTOS_PARECIDO - minimoErrores * PENALIDAD_ERROR;
+        }
+        return 0;
+    }
+
+    // Inserta ordenado por puntaje (y por nombre más corto si empatan); descarta el peor.
+    private int insertar(int[] mejores, int[] puntajes, int n, int p, int puntos) {
+        if (n == mejores.length && !antes(p, puntos, mejores[n - 1], puntajes[n - 1])) {
+            return n;
+        }
+        int i = n;
+        while (i > 0 && antes(p, puntos, mejores[i - 1], puntajes[i - 1])) {
+            i--;
+        }
+        if (i >= mejores.length) {
+            return n;
+        }
+        int mover = Math.min(n, mejores.length - 1) - i;
+        System.arraycopy(mejores, i, mejores, i + 1, mover);
+        System.arraycopy(puntajes, i, puntajes, i + 1, mover);
+        mejores[i] = p;
+        puntajes[i] = puntos;
+        return Math.min(n + 1, mejores.length);
+    }
+
+    // A igual puntaje va primero el nombre más corto (el más parecido a lo escrito).
+    private boolean antes(int p, int puntos, int q, int puntosQ) {
+        if (puntos != puntosQ) {
+            return puntos > puntosQ;
+        }
+        int largo = entradas[p].largoNombre;
+        int largoQ = entradas[q].largoNombre;
+        return largo != largoQ ? largo < largoQ : p < q;
+    }
+
+    // 0 si alguna palabra de la consulta no coincide con ninguna del producto.
+    private int puntuar(Entrada e, String consulta, String[] palabrasConsulta) {
+        char[] t = e.texto;
+        int total = 0;
+        for (String q : palabrasConsulta) {
+            int mejor = 0;
+            int errores = erroresPermitidos(q.length());
+            int inicio = 0;
+            while (inicio < t.length && mejor < PUNTOS_PREFIJO) {
+                int fin = inicio;
+                while (fin < t.length && t[fin] != ' ') {
+                    fin++;
+                }
+                int puntos;
+                if (coincide(t, inicio, fin, q)) {
+                    puntos = PUNTOS_PREFIJO;
+                } else if (mejor < PUNTOS_CONTIENE && q.length() >= 3 && contiene(t, inicio, fin, q)) {
+                    puntos = PUNTOS_CONTIENE;
+                } else if (mejor < PUNTOS_PARECIDO - PENALIDAD_ERROR && errores > 0) {
+                    int d = distanciaPrefijo(q, t, inicio, fin, errores);
+                    puntos = d <= errores ? PUNTOS_PARECIDO - d * PENALIDAD_ERROR : 0;
+                } else {
+                    puntos = 0;
+                }
+                mejor = Math.max(mejor, puntos);
+                inicio = fin + 1;
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        if (consulta.length() == e.codigoNorm.length() && e.codigoNorm.equals(consulta)) {
+            total += PUNTOS_CODIGO;
+        }
+        if (consulta.length() <= e.largoNombre && coincide(t, 0, e.largoNombre, consulta)) {
+            total += PUNTOS_INICIO;
+        }
+        return total;
+    }
+
+    // ¿t[desde, hasta) empieza con q?
+    private static boolean coincide(char[] t, int desde, int hasta, String q) {
+        if (hasta - desde < q.length()) {
+            return false;
+        }
+        for (int i = 0; i < q.length(); i++) {
+            if (t[desde + i] != q.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ¿q aparece dentro de t[desde, hasta)?
+    private static boolean contiene(char[] t, int desde, int hasta, String q) {
+        for (int i = desde + 1; i + q.length() <= hasta; i++) {
+            if (coincide(t, i, hasta, q)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Errores de tipeo tolerados según el largo de la palabra buscada.
+    private static int erroresPermitidos(int largo) {
+        if (largo <= 3) {
+            return 0;
+        }
+        return largo <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Menor distancia de edición entre {@code q} y algún prefijo de la palabra
+     * {@code t[desde, hasta)}, contando el intercambio de dos letras vecinas
+     * como un error ("ibuprofneo"). Corta apenas se sabe que supera {@code tope}.
+     */
+    private int distanciaPrefijo(String q, char[] t, int desde, int hasta, int tope) {
+        // Un prefijo más largo que q + tope no puede estar a tope errores o menos.
+        int m = Math.min(hasta - desde, q.length() + tope);
+        if (filaA.length <= m) {
+            filaA = new int[m + 1];
+            filaB = new int[m + 1];
+            filaC = new int[m + 1];
+        }
+        int[] anterior = filaC;
+        int[] previa = filaA;
+        int[] actual = filaB;
+        for (int j = 0; j <= m; j++) {
+            previa[j] = j;
+        }
+        for (int i = 1; i <= q.length(); i++) {
+            actual[0] = i;
+            int minimo = i;
+            char c = q.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char w = t[desde + j - 1];
+                int v = Math.min(Math.min(actual[j - 1] + 1, previa[j] + 1), previa[j - 1] + (c == w ? 0 : 1));
+                if (i > 1 && j > 1 && c == t[desde + j - 2] && q.charAt(i - 2) == w) {
+                    v = Math.min(v, anterior[j - 2] + 1);
+                }
+                actual[j] = v;
+                minimo = Math.min(minimo, v);
+            }
+            if (minimo > tope) {
+                return minimo;
+            }
+            int[] x = anterior;
+            anterior = previa;
+            previa = actual;
+            actual = x;
+        }
+        int mejor = Integer.MAX_VALUE;
+        for (int j = 0; j <= m; j++) {
+            mejor = Math.min(mejor, previa[j]);
+        }
+        return mejor;
+    }
+
+    private void agregar(Productos p) {
+        Entrada e = new Entrada(p.getId(), p.getCodigo(), p.getNombre());
+        if (usadas == entradas.length) {
+            entradas = Arrays.copyOf(entradas, usadas * 2);
+        }
+        int pos = usadas++;
+        entradas[pos] = e;
+        posicionPorId.put(e.id, pos);
+        for (int t : trigramasEntrada(palabras(new String(e.texto)))) {
+            Lista l = listas.get(t);
+            if (l == null) {
+                l = new Lista();
+                listas.put(t, l);
+            }
+            l.agregar(pos);
+        }
+    }
+
+    private void quitarId(int id) {
+        Integer pos = posicionPorId.remove(id);
+        if (pos != null) {
+            // Las listas conservan la posición; se saltea hasta compactar.
+            entradas[pos] = null;
+            libres++;
+        }
+    }
+
+    private void compactarSiHaceFalta() {
+        if (libres < MIN_COMPACTAR || libres * 2 < usadas) {
+            return;
+        }
+        List<Productos> vivos = new ArrayList<>(usadas - libres);
+        for (int i = 0; i < usadas; i++) {
+            Entrada e = entradas[i];
+            if (e != null) {
+                Productos p = new Productos();
+                p.setId(e.id);
+                p.setCodigo(e.codigo);
+                p.setNombre(e.nombre);
+                vivos.add(p);
+            }
+        }
+        cargar(vivos);
+    }
+
+    // Letras latinas con tilde (U+00C0..U+024F) -> letra base en minúscula; 0 si no es letra.
+    private static final char[] SIN_TILDE = new char[0x250 - 0xC0];
+
+    static {
+        for (char c = 0xC0; c < 0x250; c++) {
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            base = Character.toLowerCase(base);
+            SIN_TILDE[c - 0xC0] = base >= 'a' && base <= 'z' ? base : 0;
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes y con todo lo que no sea letra o dígito como espacio.
+     *
+     * @param texto texto original (puede ser {@code null})
+     * @return texto normalizado, palabras separadas por un espacio
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        boolean espacio = true;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            } else if (c >= 0xC0 && c < 0x250) {
+                c = SIN_TILDE[c - 0xC0];
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+                espacio = false;
+            } else if (!espacio) {
+                sb.append(' ');
+                espacio = true;
+            }
+        }
+        int n = sb.length();
+        if (n > 0 && sb.charAt(n - 1) == ' ') {
+            sb.setLength(n - 1);
+        }
+        return sb.toString();
+    }
+
+    private static String[] palabras(String normalizado) {
+        return normalizado.isEmpty() ? new String[0] : normalizado.trim().split(" ");
+    }
+
+    /*
+     * Trigramas de cada palabra con dos espacios delante ("  a", " am", "amo"...):
+     * los primeros representan el inicio de la palabra, así una consulta de una
+     * o dos letras también encuentra candidatos.
+     */
+    private static int[] trigramasEntrada(String[] palabras) {
+        return trigramas(palabras, 0);
+    }
+
+    /*
+     * En la consulta se omite "  a" si la palabra tiene dos letras o más: " am"
+     * ya marca el inicio, y "  a" está en casi todo el catálogo. Así un producto
+     * cuya palabra empieza con lo escrito tiene todos los trigramas de la consulta.
+     */
+    private static int[] trigramasConsulta(String[] palabras) {
+        return trigramas(palabras, 1);
+    }
+
+    private static int[] trigramas(String[] palabras, int omitirInicio) {
+        int[] t = new int[16];
+        int n = 0;
+        for (String w : palabras) {
+            String p = "  " + w;
+            int desde = w.length() >= 2 ? omitirInicio : 0;
+            for (int i = desde; i + 3 <= p.length(); i++) {
+                if (n == t.length) {
+                    t = Arrays.copyOf(t, n * 2);
+                }
+                t[n++] = trigrama(p, i);
+            }
+        }
+        return unicos(t, n);
+    }
+
+    private static int trigrama(String s, int i) {
+        return (codigo(s.charAt(i)) << 12) | (codigo(s.charAt(i + 1)) << 6) | codigo(s.charAt(i + 2));
+    }
+
+    // 6 bits por carácter: espacio 0, a-z 1..26, 0-9 27..36.
+    private static int codigo(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    private static int[] unicos(int[] t, int n) {
+        Arrays.sort(t, 0, n);
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (k == 0 || t[i] != t[k - 1]) {
+                t[k++] = t[i];
+            }
+        }
+        return Arrays.copyOf(t, k);
+    }
+}
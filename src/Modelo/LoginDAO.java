@@ -19,7 +19,7 @@ public class LoginDAO {
         final String correoNorm = (correo == null) ? null : correo.trim().toLowerCase();
         final String passHash   = HashUtil.sha256(pass);
 
-        try (Connection con = cn.getConnection();
+        try (Connection con = cn.prestar();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setString(1, correoNorm);
@@ -46,7 +46,7 @@ public class LoginDAO {
         final String correoNorm = reg.getCorreo().trim().toLowerCase();
         final String passHash   = HashUtil.sha256(reg.getPass());
 
-        try (Connection con = cn.getConnection();
+        try (Connection con = cn.prestar();
              PreparedStatement ps = con.prepareStatement(sql)) {
 
             ps.setString(1, reg.getNombre());
@@ -66,7 +66,7 @@ public class LoginDAO {
         List<login> lista = new ArrayList<>();
         final String sql = "SELECT id, nombre, correo, rol FROM usuarios";
 
-        try (Connection con = cn.getConnection();
+        try (Connection con = cn.prestar();
              PreparedStatement ps = con.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
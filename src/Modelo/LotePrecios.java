@@ -0,0 +1,69 @@
+package Modelo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un cambio de precios masivo ya aplicado (fila de {@code lotes_precios}).
+ * <p>Los precios anteriores de cada producto quedan en
+ * {@code historial_precios}; con eso {@link PreciosDao#Revertir(int)} deshace
+ * el lote completo.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class LotePrecios {
+    private final int id;
+    private final String descripcion;
+    private final String usuario;
+    private final LocalDateTime fecha;
+    private final int productos;
+    private final boolean revertido;
+
+    /**
+     * @param id          id del lote
+     * @param descripcion regla y filtro aplicados
+     * @param usuario     quién lo aplicó
+     * @param fecha       cuándo se aplicó
+     * @param productos   productos que cambiaron de precio
+     * @param revertido   true si ya se revirtió
+     */
+    public LotePrecios(int id, String descripcion, String usuario, LocalDateTime fecha, int productos,
+            boolean revertido) {
+        this.id = id;
+        this.descripcion = descripcion;
+        this.usuario = usuario;
+        this.fecha = fecha;
+        this.productos = productos;
+        this.revertido = revertido;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public int getProductos() {
+        return productos;
+    }
+
+    public boolean isRevertido() {
+        return revertido;
+    }
+
+    // Para mostrarlo en una lista.
+    @Override
+    public String toString() {
+        return "#" + id + " " + fecha.toLocalDate() + " - " + descripcion + " (" + productos + " productos"
+                + (revertido ? ", revertido)" : ")");
+    }
+}
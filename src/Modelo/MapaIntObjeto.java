@@ -0,0 +1,177 @@
+package Modelo;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de claves {@code int} a objetos, sin convertir las claves a
+ * {@link Integer}.
+ * <p>Direccionamiento abierto con sondeo lineal sobre dos arreglos paralelos
+ * (claves y valores). Una búsqueda no crea objetos y suele resolverse en una o
+ * dos posiciones contiguas de memoria, a diferencia de {@code HashMap<Integer, V>}
+ * que crea un {@code Integer} y un nodo por entrada.</p>
+ *
+ * <p>Una posición está libre cuando su valor es {@code null}, por eso no se
+ * admiten valores {@code null}. Al borrar se corren hacia atrás las entradas
+ * siguientes del mismo grupo, sin dejar marcas de borrado. No es seguro para
+ * varios hilos; quien lo comparta debe sincronizar.</p>
+ *
+ * @param <V> tipo de los valores
+ * @author Eduardo Jimenez
+ */
+public final class MapaIntObjeto<V> {
+
+    // Se agranda al superar la mitad de ocupación: grupos cortos al sondear.
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    private int[] claves;
+    private Object[] valores;
+    private int mascara;
+    private int tamanio;
+
+    /**
+     * Mapa vacío con capacidad inicial por defecto.
+     */
+    public MapaIntObjeto() {
+        this(CAPACIDAD_MINIMA / 2);
+    }
+
+    /**
+     * @param esperados cantidad de entradas prevista (evita agrandar al cargar)
+     */
+    public MapaIntObjeto(int esperados) {
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < esperados * 2) {
+            capacidad <<= 1;
+        }
+        reservar(capacidad);
+    }
+
+    /**
+     * @param clave clave
+     * @return valor asociado, o {@code null} si no existe
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int clave) {
+        int i = posicion(clave);
+        return (V) valores[i];
+    }
+
+    /**
+     * @param clave clave
+     * @return true si la clave existe
+     */
+    public boolean containsKey(int clave) {
+        return valores[posicion(clave)] != null;
+    }
+
+    /**
+     * Asocia un valor a la clave, reemplazando el anterior.
+     *
+     * @param clave clave
+     * @param valor valor (no puede ser {@code null})
+     * @return valor anterior, o {@code null} si no había
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("MapaIntObjeto no admite valores null");
+        }
+        int i = posicion(clave);
+        V anterior = (V) valores[i];
+        if (anterior == null) {
+            claves[i] = clave;
+            tamanio++;
+        }
+        valores[i] = valor;
+        if (anterior == null && tamanio * 2 > claves.length) {
+            reubicar(claves.length << 1);
+        }
+        return anterior;
+    }
+
+    /**
+     * Quita la clave.
+     *
+     * @param clave clave
+     * @return valor que tenía, o {@code null} si no existía
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int clave) {
+        int i = posicion(clave);
+        V anterior = (V) valores[i];
+        if (anterior == null) {
+            return null;
+        }
+        tamanio--;
+        // Corre hacia atrás las entradas que quedarían inalcanzables tras el hueco.
+        int hueco = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (valores[j] == null) {
+                break;
+            }
+            int ideal = mezclar(claves[j]) & mascara;
+            // ¿ideal queda fuera del tramo circular (hueco, j]? Entonces se puede mover.
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        valores[hueco] = null;
+        return anterior;
+    }
+
+    /** @return cantidad de entradas */
+    public int size() {
+        return tamanio;
+    }
+
+    /** @return true si no hay entradas */
+    public boolean isEmpty() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Quita todas las entradas (conserva la capacidad).
+     */
+    public void clear() {
+        Arrays.fill(valores, null);
+        tamanio = 0;
+    }
+
+    // Posición de la clave, o la posición libre donde iría.
+    private int posicion(int clave) {
+        int i = mezclar(clave) & mascara;
+        while (valores[i] != null && claves[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    // Los DNI son consecutivos en tramos: se mezclan los bits para repartirlos.
+    private static int mezclar(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void reservar(int capacidad) {
+        claves = new int[capacidad];
+        valores = new Object[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    private void reubicar(int capacidad) {
+        int[] viejasClaves = claves;
+        Object[] viejosValores = valores;
+        reservar(capacidad);
+        for (int i = 0; i < viejasClaves.length; i++) {
+            if (viejosValores[i] != null) {
+                int j = posicion(viejasClaves[i]);
+                claves[j] = viejasClaves[i];
+                valores[j] = viejosValores[i];
+            }
+        }
+    }
+}
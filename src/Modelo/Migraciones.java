@@ -0,0 +1,268 @@
+package Modelo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Aplica al iniciar la aplicación los cambios de esquema pendientes.
+ * <p>Cada migración es un script {@code migraciones/V<n>__<descripcion>.sql}
+ * junto a esta clase. Las versiones aplicadas se registran en la tabla
+ * {@code schema_version}; al arrancar solo se ejecutan las que faltan, en
+ * orden. Para agregar una migración se crea el script y se suma a
+ * {@link #SCRIPTS}; nunca se modifica un script ya publicado.</p>
+ *
+ * <p>En MySQL cada {@code ALTER TABLE} confirma por sí solo, así que una
+ * migración que falló a la mitad se vuelve a ejecutar completa. Por eso se
+ * ignoran los errores de columna o índice ya existente (1060, 1061) y los
+ * scripts deben poder repetirse. Si varias cajas arrancan a la vez, un
+ * {@code GET_LOCK} hace que solo una migre y las demás esperen.</p>
+ *
+ * <p>Antes de crear las claves únicas de V2 se buscan valores repetidos; si
+ * los hay, la migración no se intenta y el error los lista para corregirlos a
+ * mano. Sin conexión el error lleva SQLState {@code 08001}, para distinguirlo
+ * de una migración fallida.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class Migraciones {
+
+    /** Scripts en orden de versión. */
+    static final String[] SCRIPTS = {
+        "V1__ventas_fecha_hora.sql",
+        "V2__indices_busqueda.sql",
+        "V3__ventas_uuid.sql",
+        "V4__cambios.sql",
+        "V5__historial_precios.sql",
+        "V6__resumenes_ventas.sql"
+    };
+
+    // Columna o índice ya existente: la sentencia ya se aplicó en un intento anterior.
+    private static final int COLUMNA_DUPLICADA = 1060;
+    private static final int INDICE_DUPLICADO = 1061;
+    private static final int ESPERA_BLOQUEO_SEG = 60;
+    // Repetidos que se listan como máximo en el mensaje de error.
+    private static final int MAX_REPETIDOS = 20;
+
+    // Las migraciones se aplicaron con éxito en este proceso.
+    private static volatile boolean alDia;
+
+    private Migraciones() {
+    }
+
+    /**
+     * Aplica las migraciones si todavía no se aplicaron con éxito en este
+     * proceso. Si el arranque fue sin conexión, {@link DiarioVentas} llama
+     * aquí antes de reenviar: las ventas del diario no se registran sobre un
+     * esquema viejo. Con la BD al día cuesta una lectura de un campo.
+     *
+     * @return true si el esquema está al día; false si falló (el error se
+     *         registra y se reintenta en la próxima llamada)
+     */
+    public static synchronized boolean asegurar() {
+        if (alDia) {
+            return true;
+        }
+        try {
+            aplicar();
+            return true;
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     * <p>Se detiene en la primera que falle (las siguientes pueden depender de
+     * ella); la versión fallida no se registra y se reintenta en el próximo
+     * arranque.</p>
+     *
+     * @return versiones aplicadas en esta llamada
+     * @throws SQLException si no hay conexión o falló una migración
+     */
+    public static synchronized int aplicar() throws SQLException {
+        try (Connection con = new Conexion().getConnection()) {
+            if (con == null) {
+                throw new SQLException("Sin conexión a la base de datos", "08001");
+            }
+            bloquear(con);
+            try {
+                crearTablaVersiones(con);
+                Set<Integer> aplicadas = versionesAplicadas(con);
+                int nuevas = 0;
+                for (String script : SCRIPTS) {
+                    int version = version(script);
+                    if (!aplicadas.contains(version)) {
+                        verificar(con, script);
+                        ejecutar(con, script);
+                        registrar(con, version, descripcion(script));
+                        System.out.println("Migración aplicada: " + script);
+                        nuevas++;
+                    }
+                }
+                alDia = true;
+                return nuevas;
+            } finally {
+                liberar(con);
+            }
+        }
+    }
+
+    private static void bloquear(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK('farma_migraciones', ?)")) {
+            ps.setInt(1, ESPERA_BLOQUEO_SEG);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Otra instancia está migrando la base de datos");
+                }
+            }
+        }
+    }
+
+    private static void liberar(Connection con) {
+        try (Statement st = con.createStatement()) {
+            st.execute("SELECT RELEASE_LOCK('farma_migraciones')");
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+    }
+
+    private static void crearTablaVersiones(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version int(11) NOT NULL PRIMARY KEY, "
+                    + "descripcion varchar(100) NOT NULL, "
+                    + "aplicada datetime NOT NULL"
+                    + ") ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci");
+        }
+    }
+
+    private static Set<Integer> versionesAplicadas(Connection con) throws SQLException {
+        Set<Integer> versiones = new HashSet<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versiones.add(rs.getInt(1));
+            }
+        }
+        return versiones;
+    }
+
+    // Condiciones previas de un script; lanza la excepción en lugar de dejarlo fallar a medias.
+    private static void verificar(Connection con, String script) throws SQLException {
+        if (version(script) != 2) {
+            return;
+        }
+        StringBuilder problemas = new StringBuilder();
+        repetidos(con, "productos", "codigo", "Códigos de producto repetidos", problemas);
+        repetidos(con, "clientes", "dni", "DNI de clientes repetidos", problemas);
+        if (problemas.length() > 0) {
+            throw new SQLException("No se puede aplicar " + script + ": hay valores que deben ser únicos."
+                    + problemas + "\nCorríjalos en la base de datos y vuelva a iniciar el sistema.");
+        }
+    }
+
+    private static void repetidos(Connection con, String tabla, String columna, String titulo,
+            StringBuilder problemas) throws SQLException {
+        String sql = "SELECT " + columna + ", COUNT(*) FROM " + tabla + " GROUP BY " + columna
+                + " HAVING COUNT(*) > 1 ORDER BY " + columna + " LIMIT " + (MAX_REPETIDOS + 1);
+        List<String> valores = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                valores.add(rs.getString(1) + " (" + rs.getInt(2) + " veces)");
+            }
+        }
+        if (valores.isEmpty()) {
+            return;
+        }
+        problemas.append("\n").append(titulo).append(": ");
+        problemas.append(String.join(", ", valores.subList(0, Math.min(MAX_REPETIDOS, valores.size()))));
+        if (valores.size() > MAX_REPETIDOS) {
+            problemas.append(", ...");
+        }
+    }
+
+    private static void ejecutar(Connection con, String script) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            for (String sql : sentencias(script)) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != COLUMNA_DUPLICADA && e.getErrorCode() != INDICE_DUPLICADO) {
+                        throw new SQLException("Falló la migración " + script + ": " + e.getMessage(),
+                                e.getSQLState(), e.getErrorCode(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void registrar(Connection con, int version, String descripcion) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, descripcion, aplicada) VALUES (?, ?, NOW())";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, version);
+            ps.setString(2, descripcion);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Sentencias de un script: se separan por {@code ;} al final de línea y se
+     * descartan los comentarios de línea ({@code --}).
+     *
+     * @param script nombre del archivo en {@code migraciones/}
+     * @return sentencias en orden
+     * @throws SQLException si el script no está en el classpath
+     */
+    static List<String> sentencias(String script) throws SQLException {
+        InputStream in = Migraciones.class.getResourceAsStream("migraciones/" + script);
+        if (in == null) {
+            throw new SQLException("No se encontró la migración " + script);
+        }
+        List<String> lista = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                String t = linea.trim();
+                if (t.isEmpty() || t.startsWith("--")) {
+                    continue;
+                }
+                actual.append(t).append(' ');
+                if (t.endsWith(";")) {
+                    lista.add(actual.substring(0, actual.lastIndexOf(";")).trim());
+                    actual.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("No se pudo leer la migración " + script, e);
+        }
+        if (actual.toString().trim().length() > 0) {
+            lista.add(actual.toString().trim());
+        }
+        return lista;
+    }
+
+    // "V12__algo.sql" -> 12
+    static int version(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+
+    // "V1__ventas_fecha_hora.sql" -> "ventas fecha hora"
+    static String descripcion(String script) {
+        return script.substring(script.indexOf("__") + 2, script.lastIndexOf('.')).replace('_', ' ');
+    }
+}
@@ -0,0 +1,509 @@
+package Modelo;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Mide las sentencias SQL que ejecutan los DAO.
+ * <p>{@link Conexion#getConnection()} envuelve cada conexión con
+ * {@link #instrumentar(Connection)}; los {@code Statement},
+ * {@code PreparedStatement} y {@code ResultSet} que se obtienen de ella quedan
+ * medidos sin cambiar los DAO. Por cada texto SQL se guarda un histograma de
+ * latencias (p50/p95/p99), la cantidad de ejecuciones, errores y filas
+ * (leídas o modificadas). También se mide cuánto se espera al pedir una
+ * conexión al pool.</p>
+ *
+ * <p>Las sentencias que superan {@code -Dfarma.sql.lentaMs} (por defecto 500) y
+ * las que fallan se escriben en {@code -Dfarma.sql.log} (por defecto
+ * {@code sql-lentas.log}); al cerrar la aplicación se agrega allí el resumen.
+ * Con {@code -Dfarma.sql.monitor=false} las conexiones se entregan sin envolver.</p>
+ *
+ * <p>Las listas {@code IN (?,?,...)} y los {@code INSERT} de varias filas se
+ * registran bajo un solo texto sin importar cuántas marcas tengan; si no,
+ * cada largo ocuparía un histograma propio y llenaría el máximo de
+ * sentencias. En las conexiones dedicadas a trabajos largos (exportación,
+ * importación) los {@code ResultSet} se entregan sin envolver: contar filas
+ * pasaría por reflexión en cada {@code next()} y cada columna.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class MonitorSql {
+
+    // Textos SQL distintos que se registran; el resto se acumula en OTRAS.
+    private static final int MAX_SENTENCIAS = 500;
+    private static final String OTRAS = "(otras sentencias)";
+    // "IN (?,?,?)" -> "IN (?, ...)"; "VALUES (?,?),(?,?)" -> "VALUES (?,?), ...".
+    private static final Pattern LISTA_IN = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VARIAS_FILAS = Pattern.compile(
+            "(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))(?:\\s*,\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))+");
+
+    private static final MonitorSql INSTANCIA = new MonitorSql(
+            Boolean.parseBoolean(System.getProperty("farma.sql.monitor", "true")),
+            Long.getLong("farma.sql.lentaMs", 500L),
+            System.getProperty("farma.sql.log", "sql-lentas.log"));
+
+    private final boolean activo;
+    private final long lentaMicros;
+    private final String archivoLog;
+    private final Map<String, Registro> registros = new ConcurrentHashMap<>();
+    private final Registro espera = new Registro("(espera de conexión)");
+    private PrintWriter log;
+
+    MonitorSql(boolean activo, long lentaMs, String archivoLog) {
+        this.activo = activo;
+        this.lentaMicros = lentaMs * 1000L;
+        this.archivoLog = archivoLog;
+        if (activo) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::volcarResumen, "monitor-sql"));
+        }
+    }
+
+    /**
+     * Monitor compartido por toda la aplicación.
+     *
+     * @return instancia única
+     */
+    public static MonitorSql getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Envuelve una conexión para medir las sentencias que se ejecuten con ella.
+     *
+     * @param con conexión del pool (puede ser {@code null})
+     * @return conexión medida, o la misma si el monitor está desactivado
+     */
+    public Connection instrumentar(Connection con) {
+        return instrumentar(con, true);
+    }
+
+    /**
+     * Como {@link #instrumentar(Connection)}, pero puede dejar los
+     * {@code ResultSet} sin envolver. Las sentencias se siguen midiendo; solo
+     * no se cuentan las filas leídas. Es para conexiones que recorren millones
+     * de filas, donde el envoltorio costaría en cada fila y columna.
+     *
+     * @param con         conexión (puede ser {@code null})
+     * @param contarFilas envolver los {@code ResultSet} para contar filas leídas
+     * @return conexión medida, o la misma si el monitor está desactivado
+     */
+    public Connection instrumentar(Connection con, boolean contarFilas) {
+        if (!activo || con == null) {
+            return con;
+        }
+        return envolver(Connection.class, new ConexionMedida(con, contarFilas));
+    }
+
+    /**
+     * Registra el tiempo que tardó el pool en entregar una conexión.
+     *
+     * @param nanos espera en nanosegundos
+     */
+    public void registrarEspera(long nanos) {
+        if (activo) {
+            espera.registrar(nanos / 1000L, 0);
+        }
+    }
+
+    /**
+     * Estadísticas por sentencia, de mayor a menor tiempo total.
+     *
+     * @return una entrada por texto SQL ejecutado
+     */
+    public List<Estadistica> getEstadisticas() {
+        List<Estadistica> lista = new ArrayList<>();
+        for (Registro r : registros.values()) {
+            lista.add(r.foto());
+        }
+        lista.sort((a, b) -> Long.compare(b.getTotalMicros(), a.getTotalMicros()));
+        return lista;
+    }
+
+    /** @return estadísticas de la espera al pedir conexiones al pool */
+    public Estadistica getEsperaConexion() {
+        return espera.foto();
+    }
+
+    /**
+     * Resumen en texto: espera de conexión y una línea por sentencia.
+     *
+     * @return resumen legible
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getEsperaConexion()).append('\n');
+        for (Estadistica e : getEstadisticas()) {
+            sb.append(e).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Descarta las estadísticas acumuladas.
+     */
+    public void reiniciar() {
+        registros.clear();
+        espera.reiniciar();
+    }
+
+    private Registro registro(String sql) {
+        String clave = sql == null ? OTRAS : normalizar(sql);
+        Registro r = registros.get(clave);
+        if (r == null) {
+            if (registros.size() >= MAX_SENTENCIAS) {
+                clave = OTRAS;
+            }
+            r = registros.computeIfAbsent(clave, Registro::new);
+        }
+        return r;
+    }
+
+    /**
+     * Texto con el que se agrupa una sentencia: las listas de marcas de largo
+     * variable se reducen a una sola forma.
+     *
+     * @param sql texto SQL
+     * @return texto normalizado (el mismo si no tiene listas de marcas)
+     */
+    static String normalizar(String sql) {
+        // Sin marcas no hay lista que reducir: se evitan las expresiones.
+        if (sql.indexOf('?') < 0) {
+            return sql;
+        }
+        String t = LISTA_IN.matcher(sql).replaceAll("IN (?, ...)");
+        return VARIAS_FILAS.matcher(t).replaceAll("$1, ...");
+    }
+
+    private void volcarResumen() {
+        if (!registros.isEmpty()) {
+            escribir("RESUMEN\n" + resumen());
+        }
+    }
+
+    private synchronized void escribir(String linea) {
+        try {
+            if (log == null) {
+                log = new PrintWriter(new FileWriter(archivoLog, true), true);
+            }
+            log.println(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()) + " " + linea);
+        } catch (IOException e) {
+            System.out.println(e.toString());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T envolver(Class<T> tipo, InvocationHandler h) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, h);
+    }
+
+    private static Object invocar(Object destino, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Fotografía de las estadísticas de una sentencia. Los tiempos están en
+     * microsegundos; los percentiles son el límite superior del intervalo del
+     * histograma (error menor al 25%).
+     */
+    public static final class Estadistica {
+        private final String sql;
+        private final long ejecuciones;
+        private final long errores;
+        private final long filas;
+        private final long totalMicros;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long maximo;
+
+        Estadistica(String sql, long ejecuciones, long errores, long filas, long totalMicros,
+                long p50, long p95, long p99, long maximo) {
+            this.sql = sql;
+            this.ejecuciones = ejecuciones;
+            this.errores = errores;
+            this.filas = filas;
+            this.totalMicros = totalMicros;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.maximo = maximo;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getEjecuciones() {
+            return ejecuciones;
+        }
+
+        public long getErrores() {
+            return errores;
+        }
+
+        public long getFilas() {
+            return filas;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public long getP50Micros() {
+            return p50;
+        }
+
+        public long getP95Micros() {
+            return p95;
+        }
+
+        public long getP99Micros() {
+            return p99;
+        }
+
+        public long getMaximoMicros() {
+            return maximo;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d err=%d filas=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms | %s",
+                    ejecuciones, errores, filas, p50 / 1000.0, p95 / 1000.0, p99 / 1000.0, maximo / 1000.0, sql);
+        }
+    }
+
+    // Contadores de una sentencia.
+    private static final class Registro {
+        // Límites superiores de cada intervalo en µs: 10µs, x1.25 ... hasta pasar 60 s.
+        private static final long[] LIMITES;
+
+        static {
+            List<Long> l = new ArrayList<>();
+            double v = 10;
+            while (v < 60000000) {
+                l.add((long) Math.ceil(v));
+                v *= 1.25;
+            }
+            LIMITES = new long[l.size()];
+            for (int i = 0; i < LIMITES.length; i++) {
+                LIMITES[i] = l.get(i);
+            }
+        }
+
+        final String sql;
+        final LongAdder filas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        // El último intervalo acumula lo que supera el mayor límite.
+        private final long[] cuentas = new long[LIMITES.length + 1];
+        private long ejecuciones;
+        private long total;
+        private long maximo;
+
+        Registro(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized void registrar(long micros, long filasAfectadas) {
+            int i = Arrays.binarySearch(LIMITES, micros);
+            cuentas[i >= 0 ? i : -i - 1]++;
+            ejecuciones++;
+            total += micros;
+            maximo = Math.max(maximo, micros);
+            if (filasAfectadas > 0) {
+                filas.add(filasAfectadas);
+            }
+        }
+
+        synchronized void reiniciar() {
+            Arrays.fill(cuentas, 0);
+            ejecuciones = 0;
+            total = 0;
+            maximo = 0;
+            filas.reset();
+            errores.reset();
+        }
+
+        synchronized Estadistica foto() {
+            return new Estadistica(sql, ejecuciones, errores.sum(), filas.sum(), total,
+                    percentil(0.50), percentil(0.95), percentil(0.99), maximo);
+        }
+
+        private long percentil(double p) {
+            if (ejecuciones == 0) {
+                return 0;
+            }
+            long objetivo = (long) Math.ceil(p * ejecuciones);
+            long acumulado = 0;
+            for (int i = 0; i < cuentas.length; i++) {
+                acumulado += cuentas[i];
+                if (acumulado >= objetivo) {
+                    return i < LIMITES.length ? Math.min(LIMITES[i], maximo) : maximo;
+                }
+            }
+            return maximo;
+        }
+    }
+
+    private final class ConexionMedida implements InvocationHandler {
+        final Connection con;
+        final boolean contarFilas;
+
+        ConexionMedida(Connection con, boolean contarFilas) {
+            this.con = con;
+            this.contarFilas = contarFilas;
+        }
+
+        @Override
+        public Object invoke(Object o, Method m, Object[] args) throws Throwable {
+            String nombre = m.getName();
+            if ("equals".equals(nombre)) {
+                return o == args[0];
+            }
+            if ("hashCode".equals(nombre)) {
+                return System.identityHashCode(o);
+            }
+            Object r = invocar(con, m, args);
+            switch (nombre) {
+                case "prepareStatement":
+                    return envolver(PreparedStatement.class,
+                            new SentenciaMedida((Statement) r, (String) args[0], contarFilas));
+                case "prepareCall":
+                    return envolver(CallableStatement.class,
+                            new SentenciaMedida((Statement) r, (String) args[0], contarFilas));
+                case "createStatement":
+                    return envolver(Statement.class, new SentenciaMedida((Statement) r, null, contarFilas));
+                default:
+                    return r;
+            }
+        }
+    }
+
+    private final class SentenciaMedida implements InvocationHandler {
+        final Statement st;
+        // SQL del PreparedStatement; null en un Statement simple (viene en cada execute).
+        final String sql;
+        // Envolver los ResultSet para contar las filas leídas.
+        final boolean contarFilas;
+        // Última sentencia agregada con addBatch(String), para Statement simples.
+        String lote;
+
+        SentenciaMedida(Statement st, String sql, boolean contarFilas) {
+            this.st = st;
+            this.sql = sql;
+            this.contarFilas = contarFilas;
+        }
+
+        @Override
+        public Object invoke(Object o, Method m, Object[] args) throws Throwable {
+            String nombre = m.getName();
+            if ("equals".equals(nombre)) {
+                return o == args[0];
+            }
+            if ("hashCode".equals(nombre)) {
+                return System.identityHashCode(o);
+            }
+            if ("addBatch".equals(nombre) && args != null && args.length == 1) {
+                lote = (String) args[0];
+            }
+            if (!nombre.startsWith("execute")) {
+                return invocar(st, m, args);
+            }
+            String texto = sql;
+            if (texto == null) {
+                texto = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : lote;
+            }
+            Registro reg = registro(texto);
+            long inicio = System.nanoTime();
+            Object r;
+            try {
+                r = invocar(st, m, args);
+            } catch (Throwable e) {
+                reg.errores.increment();
+                escribir("ERROR " + e + " | " + texto);
+                throw e;
+            }
+            long micros = (System.nanoTime() - inicio) / 1000L;
+            long filas = filas(r);
+            reg.registrar(micros, filas);
+            if (micros >= lentaMicros) {
+                escribir(String.format("LENTA %.1f ms%s [%s] | %s", micros / 1000.0,
+                        filas >= 0 ? " filas=" + filas : "", Thread.currentThread().getName(), texto));
+            }
+            if (contarFilas && r instanceof ResultSet) {
+                return envolver(ResultSet.class, new ResultadoMedido((ResultSet) r, reg));
+            }
+            return r;
+        }
+
+        // Filas modificadas según lo que devolvió execute*; -1 si es una consulta.
+        private long filas(Object r) {
+            if (r instanceof Integer || r instanceof Long) {
+                return ((Number) r).longValue();
+            }
+            long suma = 0;
+            if (r instanceof int[]) {
+                for (int n : (int[]) r) {
+                    suma += Math.max(n, 0);
+                }
+                return suma;
+            }
+            if (r instanceof long[]) {
+                for (long n : (long[]) r) {
+                    suma += Math.max(n, 0);
+                }
+                return suma;
+            }
+            return -1;
+        }
+    }
+
+    // Cuenta las filas leídas de una consulta.
+    private static final class ResultadoMedido implements InvocationHandler {
+        final ResultSet rs;
+        final Registro reg;
+
+        ResultadoMedido(ResultSet rs, Registro reg) {
+            this.rs = rs;
+            this.reg = reg;
+        }
+
+        @Override
+        public Object invoke(Object o, Method m, Object[] args) throws Throwable {
+            String nombre = m.getName();
+            if ("equals".equals(nombre)) {
+                return o == args[0];
+            }
+            if ("hashCode".equals(nombre)) {
+                return System.identityHashCode(o);
+            }
+            Object r = invocar(rs, m, args);
+            if ("next".equals(nombre) && Boolean.TRUE.equals(r)) {
+                reg.filas.increment();
+            }
+            return r;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package Modelo;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfPCell;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partes fijas del comprobante PDF que no cambian entre ventas: logo ya
+ * decodificado, fuentes, anchos de columna, celdas de títulos y datos de la
+ * empresa (tabla {@code config}).
+ * <p>Se construye la primera vez que se genera un comprobante y se reutiliza
+ * hasta que {@link ProductosDao#ModificarDatos(Config)} cambia los datos de la
+ * empresa y llama a {@link #invalidar()}.</p>
+ *
+ * <p>Es inmutable: varios hilos de {@link ColaComprobantes} pueden usarla a la
+ * vez. {@code PdfPTable.addCell(PdfPCell)} copia la celda, así que las celdas de
+ * título se pueden agregar a cualquier documento.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class PlantillaComprobante {
+
+    /** Anchos de la tabla de cabecera (logo, espacio, empresa, fecha). */
+    static final float[] ANCHOS_ENCABEZADO = {20f, 30f, 70f, 40f};
+    /** Anchos de la tabla de datos del cliente. */
+    static final float[] ANCHOS_CLIENTE = {50f, 25f, 25f};
+    /** Anchos de la tabla de detalle. */
+    static final float[] ANCHOS_DETALLE = {10f, 50f, 15f, 15f};
+
+    private static volatile PlantillaComprobante actual;
+    // Sube en cada invalidar(); una plantilla armada con config leída antes no se publica.
+    private static final AtomicInteger GENERACION = new AtomicInteger();
+
+    private final Image logo;
+    private final Font negrita;
+    private final String empresa;
+    private final String mensaje;
+    private final PdfPCell[] titulosCliente;
+    private final PdfPCell[] titulosDetalle;
+
+    private PlantillaComprobante(Config conf) throws BadElementException, IOException {
+        // Requiere que el recurso exista en el classpath
+        logo = Image.getInstance(PlantillaComprobante.class.getResource("/Img/logo_pdf.jpg"));
+        negrita = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.BOLD, BaseColor.GREEN);
+        if (conf.getNombre() != null) {
+            empresa = "Ruc:    " + conf.getRuc() + "\nNombre: " + conf.getNombre() + "\nTeléfono: "
+                    + conf.getTelefono() + "\nDirección: " + conf.getDireccion() + "\n\n";
+            mensaje = conf.getMensaje();
+        } else {
+            // Sin fila en config: el comprobante sale sin datos de empresa ni mensaje.
+            empresa = null;
+            mensaje = "";
+        }
+        titulosCliente = titulos(null, "Nombre", "Télefono", "Dirección");
+        titulosDetalle = titulos(BaseColor.LIGHT_GRAY, "Cant.", "Descripción.", "P. unt.", "P. Total");
+    }
+
+    /**
+     * Devuelve la plantilla vigente, construyéndola si hace falta.
+     *
+     * @return plantilla lista para usar
+     * @throws BadElementException si el logo no es una imagen válida
+     * @throws IOException         si no se pudo leer el logo
+     */
+    public static PlantillaComprobante obtener() throws BadElementException, IOException {
+        PlantillaComprobante p = actual;
+        if (p == null) {
+            synchronized (PlantillaComprobante.class) {
+                p = actual;
+                if (p == null) {
+                    int gen = GENERACION.get();
+                    Config conf = new ProductosDao().BuscarDatos();
+                    p = new PlantillaComprobante(conf);
+                    // Si no se pudo leer config (id 0) no se guarda, para reintentar en el próximo.
+                    // Tampoco si se invalidó mientras se armaba: la config leída puede ser la vieja.
+                    if (conf.getId() != 0 && GENERACION.get() == gen) {
+                        actual = p;
+                    }
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Descarta la plantilla; el próximo comprobante vuelve a leer la tabla {@code config}.
+     */
+    public static void invalidar() {
+        GENERACION.incrementAndGet();
+        actual = null;
+    }
+
+    /**
+     * Logo para un documento. Se entrega una copia liviana que comparte los bytes
+     * ya decodificados.
+     *
+     * @return imagen del logo
+     */
+    public Image getLogo() {
+        return Image.getInstance(logo);
+    }
+
+    /** @return fuente de los títulos */
+    public Font getNegrita() {
+        return negrita;
+    }
+
+    /** @return texto de la empresa para la cabecera, o {@code null} si no hay config */
+    public String getEmpresa() {
+        return empresa;
+    }
+
+    /** @return mensaje final del comprobante */
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    /** @return celdas de título de la tabla de cliente */
+    public PdfPCell[] getTitulosCliente() {
+        return titulosCliente.clone();
+    }
+
+    /** @return celdas de título de la tabla de detalle */
+    public PdfPCell[] getTitulosDetalle() {
+        return titulosDetalle.clone();
+    }
+
+    private PdfPCell[] titulos(BaseColor fondo, String... textos) {
+        PdfPCell[] celdas = new PdfPCell[textos.length];
+        for (int i = 0; i < textos.length; i++) {
+            celdas[i] = new PdfPCell(new Phrase(textos[i], negrita));
+            celdas[i].setBorder(Rectangle.NO_BORDER);
+            if (fondo != null) {
+                celdas[i].setBackgroundColor(fondo);
+            }
+        }
+        return celdas;
+    }
+}
@@ -0,0 +1,413 @@
+package Modelo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool acotado de conexiones JDBC, sin dependencias externas.
+ * <p>Mantiene entre {@code minimo} y {@code maximo} conexiones físicas abiertas
+ * y entrega a los DAO un envoltorio cuyo {@code close()} devuelve la conexión
+ * al pool en lugar de cerrarla.</p>
+ *
+ * <ul>
+ *   <li><b>Validación al prestar:</b> cada conexión inactiva se comprueba con
+ *       {@link Connection#isValid(int)} antes de entregarse.</li>
+ *   <li><b>Desalojo por inactividad:</b> una tarea periódica cierra las conexiones
+ *       que llevan más de {@code inactividadMs} sin uso, sin bajar del mínimo.</li>
+ *   <li><b>Detección de fugas:</b> si un préstamo supera {@code fugaMs} se informa
+ *       una sola vez con el hilo que la pidió. Con {@code trazas} también se
+ *       informa la traza del punto donde se pidió; capturarla cuesta en cada
+ *       préstamo, por eso es opcional. Con {@code fugaMs <= 0} no se vigila.</li>
+ * </ul>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class PoolConexiones {
+
+    /** SQLState del pool agotado: tiempo de espera vencido, no una falla de conexión. */
+    public static final String AGOTADO = "HYT00";
+    /** SQLState de una espera de conexión interrumpida. */
+    public static final String INTERRUMPIDO = "HY008";
+
+    private final String url;
+    private final String usuario;
+    private final String clave;
+    private final int minimo;
+    private final int maximo;
+    private final long esperaMaxMs;
+    private final long inactividadMs;
+    private final long fugaMs;
+    private final boolean trazas;
+
+    // Conexiones físicas libres; se usa como pila (LIFO) para reutilizar las más recientes.
+    private final LinkedBlockingDeque<Fisica> inactivas = new LinkedBlockingDeque<>();
+    // Préstamos en curso (para métricas y detección de fugas).
+    private final Set<Prestamo> prestadas = ConcurrentHashMap.newKeySet();
+    // Un permiso por conexión que puede estar prestada a la vez.
+    private final Semaphore permisos;
+    private final AtomicInteger abiertas = new AtomicInteger();
+
+    private final AtomicLong totalPrestamos = new AtomicLong();
+    private final AtomicLong totalEsperaNanos = new AtomicLong();
+    private final AtomicLong maxEsperaNanos = new AtomicLong();
+    private final AtomicLong agotamientos = new AtomicLong();
+    private final AtomicLong fugasDetectadas = new AtomicLong();
+
+    private final ScheduledExecutorService mantenimiento;
+
+    /**
+     * Crea el pool y programa la tarea de mantenimiento.
+     *
+     * @param url           URL JDBC
+     * @param usuario       usuario de BD
+     * @param clave         contraseña de BD
+     * @param minimo        conexiones que se intentan mantener abiertas
+     * @param maximo        conexiones prestadas simultáneamente como máximo
+     * @param esperaMaxMs   tiempo máximo de espera por una conexión libre
+     * @param inactividadMs tiempo sin uso tras el cual se cierra una conexión sobrante
+     * @param fugaMs        tiempo de préstamo a partir del cual se reporta posible
+     *                      fuga; 0 o menos desactiva la detección
+     * @param trazas        guardar la traza de cada préstamo para mostrarla si se
+     *                      reporta como fuga
+     */
+    public PoolConexiones(String url, String usuario, String clave, int minimo, int maximo,
+            long esperaMaxMs, long inactividadMs, long fugaMs, boolean trazas) {
+        if (maximo < 1 || minimo < 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaño de pool inválido: min=" + minimo + " max=" + maximo);
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.clave = clave;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.esperaMaxMs = esperaMaxMs;
+        this.inactividadMs = inactividadMs;
+        this.fugaMs = fugaMs;
+        this.trazas = trazas && fugaMs > 0;
+        this.permisos = new Semaphore(maximo, true);
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexiones");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000L, (fugaMs > 0 ? Math.min(inactividadMs, fugaMs) : inactividadMs) / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión. El llamador debe cerrarla (idealmente con
+     * try-with-resources) para devolverla al pool.
+     *
+     * @return conexión lista para usar
+     * @throws SQLException si no se pudo abrir una conexión nueva (el error del
+     *         driver), o si no hubo una libre dentro del tiempo de espera
+     *         (SQLState {@code HYT00}) o se interrumpió la espera ({@code HY008}):
+     *         esos dos no son fallas de conexión y la BD puede estar respondiendo
+     */
+    public Connection obtener() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(esperaMaxMs, TimeUnit.MILLISECONDS)) {
+                agotamientos.incrementAndGet();
+                throw new SQLException("Pool agotado: " + maximo + " conexiones en uso tras " + esperaMaxMs + " ms",
+                        AGOTADO);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", INTERRUMPIDO, e);
+        }
+        try {
+            Fisica f = tomarValida();
+            registrarEspera(System.nanoTime() - inicio);
+            Prestamo p = new Prestamo(f);
+            prestadas.add(p);
+            return p.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    // Saca una conexión inactiva válida o abre una nueva.
+    private Fisica tomarValida() throws SQLException {
+        Fisica f;
+        while ((f = inactivas.pollFirst()) != null) {
+            if (esValida(f.con)) {
+                return f;
+            }
+            cerrarFisica(f);
+        }
+        Connection con = DriverManager.getConnection(url, usuario, clave);
+        abiertas.incrementAndGet();
+        return new Fisica(con);
+    }
+
+    private static boolean esValida(Connection con) {
+        try {
+            return !con.isClosed() && con.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        totalPrestamos.incrementAndGet();
+        totalEsperaNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxEsperaNanos.get()) && !maxEsperaNanos.compareAndSet(max, nanos)) {
+            // reintenta hasta fijar el nuevo máximo
+        }
+    }
+
+    // Devuelve la conexión física al pool dejando su estado como recién abierta.
+    private void devolver(Prestamo p) {
+        prestadas.remove(p);
+        Fisica f = p.fisica;
+        try {
+            if (!f.con.isClosed()) {
+                if (!f.con.getAutoCommit()) {
+                    f.con.rollback();
+                    f.con.setAutoCommit(true);
+                }
+                f.ultimoUso = System.currentTimeMillis();
+                inactivas.offerFirst(f);
+            } else {
+                abiertas.decrementAndGet();
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            cerrarFisica(f);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private void cerrarFisica(Fisica f) {
+        abiertas.decrementAndGet();
+        try {
+            f.con.close();
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+    }
+
+    // Tarea periódica: desalojo por inactividad, relleno hasta el mínimo y aviso de fugas.
+    private void mantener() {
+        try {
+            long ahora = System.currentTimeMillis();
+            Iterator<Fisica> it = inactivas.descendingIterator();
+            while (it.hasNext() && abiertas.get() > minimo) {
+                Fisica f = it.next();
+                if (ahora - f.ultimoUso > inactividadMs && inactivas.remove(f)) {
+                    cerrarFisica(f);
+                }
+            }
+            while (abiertas.get() < minimo) {
+                Connection con = DriverManager.getConnection(url, usuario, clave);
+                abiertas.incrementAndGet();
+                inactivas.offerLast(new Fisica(con));
+            }
+            for (Prestamo p : prestadas) {
+                if (fugaMs > 0 && !p.reportada && ahora - p.desde > fugaMs) {
+                    p.reportada = true;
+                    fugasDetectadas.incrementAndGet();
+                    System.out.println("Posible fuga de conexión: prestada hace " + (ahora - p.desde)
+                            + " ms en hilo " + p.hilo);
+                    if (p.origen != null) {
+                        p.origen.printStackTrace(System.out);
+                    } else {
+                        System.out.println("(con -Dfarma.pool.trazas=true se muestra dónde se pidió)");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        } catch (RuntimeException e) {
+            // La tarea programada no debe morir por un error puntual.
+            System.out.println(e.toString());
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones inactivas y detiene el mantenimiento.
+     * Las conexiones prestadas se cierran al devolverse.
+     */
+    public void cerrar() {
+        mantenimiento.shutdownNow();
+        Fisica f;
+        while ((f = inactivas.pollFirst()) != null) {
+            cerrarFisica(f);
+        }
+    }
+
+    /**
+     * Instantánea de las métricas del pool.
+     *
+     * @return estadísticas actuales
+     */
+    public Estadisticas getEstadisticas() {
+        long prestamos = totalPrestamos.get();
+        return new Estadisticas(prestadas.size(), inactivas.size(), abiertas.get(), maximo,
+                prestamos, prestamos == 0 ? 0 : totalEsperaNanos.get() / prestamos,
+                maxEsperaNanos.get(), agotamientos.get(), fugasDetectadas.get());
+    }
+
+    /**
+     * Métricas del pool en un instante dado (inmutable).
+     */
+    public static final class Estadisticas {
+        private final int activas;
+        private final int inactivas;
+        private final int abiertas;
+        private final int maximo;
+        private final long prestamos;
+        private final long esperaPromedioNanos;
+        private final long esperaMaximaNanos;
+        private final long agotamientos;
+        private final long fugas;
+
+        Estadisticas(int activas, int inactivas, int abiertas, int maximo, long prestamos,
+                long esperaPromedioNanos, long esperaMaximaNanos, long agotamientos, long fugas) {
+            this.activas = activas;
+            this.inactivas = inactivas;
+            this.abiertas = abiertas;
+            this.maximo = maximo;
+            this.prestamos = prestamos;
+            this.esperaPromedioNanos = esperaPromedioNanos;
+            this.esperaMaximaNanos = esperaMaximaNanos;
+            this.agotamientos = agotamientos;
+            this.fugas = fugas;
+        }
+
+        /** @return conexiones prestadas en este momento */
+        public int getActivas() {
+            return activas;
+        }
+
+        /** @return conexiones abiertas esperando ser prestadas */
+        public int getInactivas() {
+            return inactivas;
+        }
+
+        /** @return conexiones físicas abiertas (activas + inactivas) */
+        public int getAbiertas() {
+            return abiertas;
+        }
+
+        /** @return tamaño máximo del pool */
+        public int getMaximo() {
+            return maximo;
+        }
+
+        /** @return préstamos atendidos desde el arranque */
+        public long getPrestamos() {
+            return prestamos;
+        }
+
+        /** @return espera promedio para obtener una conexión, en nanosegundos */
+        public long getEsperaPromedioNanos() {
+            return esperaPromedioNanos;
+        }
+
+        /** @return mayor espera observada para obtener una conexión, en nanosegundos */
+        public long getEsperaMaximaNanos() {
+            return esperaMaximaNanos;
+        }
+
+        /** @return veces que se agotó el tiempo de espera sin conexión libre */
+        public long getAgotamientos() {
+            return agotamientos;
+        }
+
+        /** @return préstamos reportados como posible fuga */
+        public long getFugas() {
+            return fugas;
+        }
+
+        @Override
+        public String toString() {
+            return "activas=" + activas + ", inactivas=" + inactivas + ", abiertas=" + abiertas
+                    + "/" + maximo + ", prestamos=" + prestamos
+                    + ", esperaProm=" + esperaPromedioNanos / 1000 + "us"
+                    + ", esperaMax=" + esperaMaximaNanos / 1000 + "us"
+                    + ", agotamientos=" + agotamientos + ", fugas=" + fugas;
+        }
+    }
+
+    // Conexión física y momento de su último uso.
+    private static final class Fisica {
+        final Connection con;
+        volatile long ultimoUso = System.currentTimeMillis();
+
+        Fisica(Connection con) {
+            this.con = con;
+        }
+    }
+
+    // Un préstamo: envoltorio entregado al DAO que intercepta close()/isClosed().
+    private final class Prestamo implements InvocationHandler {
+        final Fisica fisica;
+        final Connection proxy;
+        final long desde = System.currentTimeMillis();
+        final String hilo = Thread.currentThread().getName();
+        // Solo con trazas activadas: armar la traza en cada préstamo no es gratis.
+        final Throwable origen = trazas ? new Throwable("Conexión obtenida aquí") : null;
+        volatile boolean reportada;
+        private boolean cerrada;
+
+        Prestamo(Fisica fisica) {
+            this.fisica = fisica;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object o, Method m, Object[] args) throws Throwable {
+            String nombre = m.getName();
+            if ("equals".equals(nombre)) {
+                return o == args[0];
+            }
+            if ("hashCode".equals(nombre)) {
+                return System.identityHashCode(o);
+            }
+            synchronized (this) {
+                if ("close".equals(nombre)) {
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(this);
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(nombre)) {
+                    return cerrada || fisica.con.isClosed();
+                }
+                if (cerrada) {
+                    if ("toString".equals(nombre)) {
+                        return "Conexión devuelta al pool";
+                    }
+                    throw new SQLException("La conexión ya fue devuelta al pool");
+                }
+            }
+            try {
+                return m.invoke(fisica.con, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package Modelo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cambios de precio masivos: por proveedor y/o texto en el código o nombre.
+ * <p>El flujo es en dos pasos. {@link #Previsualizar} lee los productos
+ * afectados y calcula el precio nuevo sin escribir nada. {@link #Aplicar}
+ * escribe la vista previa en una sola transacción: un lote de
+ * {@code UPDATE ... WHERE id = ? AND precio = ?} (si el precio cambió desde la
+ * vista previa, esa fila se omite), el historial con el precio anterior y
+ * las filas de {@link Cambios} para las demás cajas. Las filas cuyo precio
+ * nuevo no cabe en la columna ({@link CambioPrecio#isFueraDeRango()}) se
+ * muestran en la vista previa pero no se aplican.</p>
+ *
+ * <p>{@link #Revertir(int)} deshace un lote con un solo {@code UPDATE ... JOIN}
+ * contra {@code historial_precios}; los productos cuyo precio se volvió a
+ * cambiar después del lote se dejan como están.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class PreciosDao {
+    Conexion cn = new Conexion();
+    private final ProductosDao proDao = new ProductosDao();
+
+    /**
+     * Calcula los precios nuevos sin modificar nada.
+     *
+     * @param proveedor id del proveedor, o 0 para todos
+     * @param filtro    texto a buscar en el código o nombre; vacío para no filtrar
+     * @param regla     regla a aplicar
+     * @return productos cuyo precio cambiaría, ordenados por nombre (incluye
+     *         los que quedarían fuera de rango, marcados)
+     */
+    public List<CambioPrecio> Previsualizar(int proveedor, String filtro, ReglaPrecio regla){
+        List<CambioPrecio> lista = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, codigo, nombre, precio FROM productos WHERE 1 = 1");
+        if (proveedor > 0) {
+            sql.append(" AND proveedor = ?");
+        }
+        boolean conFiltro = filtro != null && !filtro.trim().isEmpty();
+        if (conFiltro) {
+            sql.append(" AND (codigo LIKE ? OR nombre LIKE ?)");
+        }
+        sql.append(" ORDER BY nombre");
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int i = 1;
+            if (proveedor > 0) {
+                ps.setInt(i++, proveedor);
+            }
+            if (conFiltro) {
+                String patron = "%" + escaparLike(filtro.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i, patron);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long actual = Dinero.deDecimal(rs.getBigDecimal("precio"));
+                    long nuevo = regla.aplicar(actual);
+                    if (nuevo != actual) {
+                        lista.add(new CambioPrecio(rs.getInt("id"), rs.getString("codigo"),
+                                rs.getString("nombre"), actual, nuevo));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return lista;
+    }
+
+    /**
+     * Aplica una vista previa en una sola transacción y la registra como lote.
+     *
+     * @param descripcion regla y filtro, para el historial
+     * @param usuario     quién aplica el cambio
+     * @param vista       filas de {@link #Previsualizar}; las fuera de rango se omiten
+     * @return lote creado ({@code getProductos()} dice cuántos cambiaron; el
+     *         resto tenía otro precio al aplicar), o {@code null} si falló
+     */
+    public LotePrecios Aplicar(String descripcion, String usuario, List<CambioPrecio> vista){
+        List<CambioPrecio> cambios = new ArrayList<>();
+        for (CambioPrecio c : vista) {
+            if (!c.isFueraDeRango()) {
+                cambios.add(c);
+            }
+        }
+        String sqlLote = "INSERT INTO lotes_precios (descripcion, usuario, fecha) VALUES (?,?,?)";
+        String sqlPrecio = "UPDATE productos SET precio = ? WHERE id = ? AND precio = ?";
+        String sqlHistorial = "INSERT INTO historial_precios (id_lote, id_pro, precio_anterior, precio_nuevo) VALUES (?,?,?,?)";
+        Timestamp fecha = new Timestamp(System.currentTimeMillis());
+        List<Integer> aplicados = new ArrayList<>();
+        int idLote = 0;
+        if (cambios.isEmpty()) {
+            return new LotePrecios(0, descripcion, usuario, fecha.toLocalDateTime(), 0, false);
+        }
+        try (Connection con = cn.prestar()) {
+            // Todo o nada; si algo falla, el pool revierte al devolver la conexión.
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sqlLote, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, descripcion);
+                ps.setString(2, usuario);
+                ps.setTimestamp(3, fecha);
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        idLote = rs.getInt(1);
+                    }
+                }
+            }
+            List<CambioPrecio> hechos = new ArrayList<>();
+            try (PreparedStatement ps = con.prepareStatement(sqlPrecio)) {
+                for (CambioPrecio c : cambios) {
+                    ps.setBigDecimal(1, Dinero.aDecimal(c.getNuevo()));
+                    ps.setInt(2, c.getId());
+                    ps.setBigDecimal(3, Dinero.aDecimal(c.getAnterior()));
+                    ps.addBatch();
+                }
+                int[] filas = ps.executeBatch();
+                for (int i = 0; i < filas.length; i++) {
+                    if (filas[i] > 0) {
+                        hechos.add(cambios.get(i));
+                        aplicados.add(cambios.get(i).getId());
+                    }
+                }
+            }
+            if (hechos.isEmpty()) {
+                con.rollback();
+                return new LotePrecios(0, descripcion, usuario, fecha.toLocalDateTime(), 0, false);
+            }
+            try (PreparedStatement ps = con.prepareStatement(sqlHistorial)) {
+                for (CambioPrecio c : hechos) {
+                    ps.setInt(1, idLote);
+                    ps.setInt(2, c.getId());
+                    ps.setBigDecimal(3, Dinero.aDecimal(c.getAnterior()));
+                    ps.setBigDecimal(4, Dinero.aDecimal(c.getNuevo()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = con.prepareStatement("UPDATE lotes_precios SET productos = ? WHERE id = ?")) {
+                ps.setInt(1, hechos.size());
+                ps.setInt(2, idLote);
+                ps.executeUpdate();
+            }
+            Cambios.anotar(con, Cambios.PRODUCTOS, aplicados, Cambios.MODIFICAR);
+            con.commit();
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            return null;
+        }
+        proDao.Refrescar(aplicados);
+        return new LotePrecios(idLote, descripcion, usuario, fecha.toLocalDateTime(), aplicados.size(), false);
+    }
+
+    /**
+     * Deshace un lote: vuelve al precio anterior los productos que todavía
+     * tienen el precio que les puso el lote.
+     *
+     * @param idLote id del lote
+     * @return productos restaurados; -1 si el lote no existe, ya se revirtió o
+     *         hubo un error
+     */
+    public int Revertir(int idLote){
+        List<Integer> ids = new ArrayList<>();
+        try (Connection con = cn.prestar()) {
+            con.setAutoCommit(false);
+            // FOR UPDATE: dos usuarios no revierten el mismo lote a la vez.
+            try (PreparedStatement ps = con.prepareStatement("SELECT revertido FROM lotes_precios WHERE id = ? FOR UPDATE")) {
+                ps.setInt(1, idLote);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getBoolean("revertido")) {
+                        return -1;
+                    }
+                }
+            }
+            String sqlIds = "SELECT p.id FROM productos p INNER JOIN historial_precios h ON h.id_pro = p.id "
+                    + "WHERE h.id_lote = ? AND p.precio = h.precio_nuevo FOR UPDATE";
+            try (PreparedStatement ps = con.prepareStatement(sqlIds)) {
+                ps.setInt(1, idLote);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+            String sqlRevertir = "UPDATE productos p INNER JOIN historial_precios h ON h.id_pro = p.id "
+                    + "SET p.precio = h.precio_anterior WHERE h.id_lote = ? AND p.precio = h.precio_nuevo";
+            try (PreparedStatement ps = con.prepareStatement(sqlRevertir)) {
+                ps.setInt(1, idLote);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = con.prepareStatement("UPDATE lotes_precios SET revertido = 1 WHERE id = ?")) {
+                ps.setInt(1, idLote);
+                ps.executeUpdate();
+            }
+            Cambios.anotar(con, Cambios.PRODUCTOS, ids, Cambios.MODIFICAR);
+            con.commit();
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            return -1;
+        }
+        proDao.Refrescar(ids);
+        return ids.size();
+    }
+
+    /**
+     * Últimos lotes aplicados, del más reciente al más antiguo.
+     *
+     * @param limite cantidad máxima
+     * @return lotes; lista vacía si hubo un error
+     */
+    public List<LotePrecios> ListarLotes(int limite){
+        List<LotePrecios> lista = new ArrayList<>();
+        String sql = "SELECT id, descripcion, usuario, fecha, productos, revertido FROM lotes_precios ORDER BY id DESC LIMIT ?";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new LotePrecios(rs.getInt("id"), rs.getString("descripcion"),
+                            rs.getString("usuario"), rs.getTimestamp("fecha").toLocalDateTime(),
+                            rs.getInt("productos"), rs.getBoolean("revertido")));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return lista;
+    }
+
+    // Para que % y _ escritos por el usuario se busquen literalmente.
+    static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
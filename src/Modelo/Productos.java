@@ -28,8 +28,8 @@ public class Productos {
     private String proveedorPro;
     // Stock actual disponible del producto.
     private int stock;
-    // Precio unitario del producto.
-    private double precio;
+    // Precio unitario del producto, en céntimos (ver Dinero).
+    private long precio;
     
     /**
      * Constructor por defecto.
@@ -57,7 +57,7 @@ public class Productos {
         this.proveedor = proveedor;
         this.proveedorPro = proveedorPro;
         this.stock = stock;
-        this.precio = precio;
+        this.precio = Dinero.deDouble(precio);
     }
 
     /**
@@ -158,17 +158,33 @@ public class Productos {
 
     /**
      * Obtiene el precio unitario del producto.
-     * @return precio unitario
+     * @return precio unitario (para mostrar; los cálculos usan {@link #getPrecioCentimos()})
      */
     public double getPrecio() {
-        return precio;
+        return Dinero.aDouble(precio);
     }
 
     /**
      * Establece el precio unitario del producto.
-     * @param precio precio a asignar <!-- TODO: validar que sea &ge; 0 -->
+     * @param precio precio a asignar, se redondea al céntimo <!-- TODO: validar que sea &ge; 0 -->
      */
     public void setPrecio(double precio) {
+        this.precio = Dinero.deDouble(precio);
+    }
+
+    /**
+     * Obtiene el precio unitario en céntimos.
+     * @return precio unitario en céntimos
+     */
+    public long getPrecioCentimos() {
+        return precio;
+    }
+
+    /**
+     * Establece el precio unitario en céntimos.
+     * @param precio precio en céntimos
+     */
+    public void setPrecioCentimos(long precio) {
         this.precio = precio;
     }
 
@@ -4,7 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,20 +16,24 @@ import java.util.List;
  *
  * <p><b>Notas (solo comentarios, sin cambiar lógica):</b></p>
  * <ul>
- *   <li>Se recomienda cerrar recursos (ResultSet, PreparedStatement, Connection)
- *       con try-with-resources para evitar fugas. <!-- TODO --></li>
- *   <li>Algunos métodos usan {@code con} sin inicializar con {@code cn.getConnection()};
- *       esto puede provocar NullPointerException si no se abrió antes. <!-- TODO --></li>
+ *   <li>Los recursos (ResultSet, PreparedStatement, Connection) se cierran con
+ *       try-with-resources; cerrar la conexión la devuelve al pool.</li>
  *   <li>Agregar índices/UNIQUE en BD para campos como <code>codigo</code> en productos. <!-- TODO --></li>
+ *   <li>{@link #BuscarPro(String)} responde desde {@link CatalogoProductos}; los métodos que
+ *       modifican productos mantienen esa caché al día.</li>
+ *   <li>La búsqueda por parte del nombre usa {@link IndiceProductos}, que también se
+ *       actualiza al registrar, modificar o eliminar.</li>
+ *   <li>Registrar, modificar y eliminar anotan el cambio en {@link Cambios} dentro de la
+ *       misma transacción, para que las otras cajas actualicen sus cachés.</li>
  * </ul>
  *
  * @author Eduardo Jimenez
  */
 public class ProductosDao {
-    Connection con;            // Conexión activa
     Conexion cn = new Conexion(); // Proveedor de conexiones
-    PreparedStatement ps;      // Sentencia preparada
-    ResultSet rs;              // Resultado de consultas
+    CatalogoProductos catalogo = CatalogoProductos.getInstancia(); // Caché por código
+    IndiceProductos indice = IndiceProductos.getInstancia(); // Búsqueda por nombre
+    
     
     /**
      * Registra un producto en la base de datos.
@@ -37,22 +43,37 @@ public class ProductosDao {
      */
     public boolean RegistrarProductos(Productos pro){
         String sql = "INSERT INTO productos (codigo, nombre, proveedor, stock, precio) VALUES (?,?,?,?,?)";
-        try {
-            con = cn.getConnection();         // obtiene conexión
-            ps = con.prepareStatement(sql);   // prepara sentencia
+        try (Connection con = cn.prestar();          // obtiene conexión
+             PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) { // prepara sentencia
+            // Producto y fila de cambios juntos; si algo falla, el pool revierte al devolver la conexión.
+            con.setAutoCommit(false);
             // Asigna parámetros a los placeholders (?)
             ps.setString(1, pro.getCodigo());
             ps.setString(2, pro.getNombre());
             ps.setInt(3, pro.getProveedor());
             ps.setInt(4, pro.getStock());
-            ps.setDouble(5, pro.getPrecio());
-            ps.execute();                     // ejecuta INSERT
+            ps.setBigDecimal(5, Dinero.aDecimal(pro.getPrecioCentimos()));
+            ps.executeUpdate();               // ejecuta INSERT
+            Productos nuevo = null;
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    // Se agrega a la caché una copia con el id generado.
+                    nuevo = new Productos(rs.getInt(1), pro.getCodigo(), pro.getNombre(),
+                            pro.getProveedor(), pro.getProveedorPro(), pro.getStock(), 0);
+                    nuevo.setPrecioCentimos(pro.getPrecioCentimos());
+                    Cambios.anotar(con, Cambios.PRODUCTOS, nuevo.getId(), Cambios.INSERTAR);
+                }
+            }
+            con.commit();
+            if (nuevo != null) {
+                catalogo.poner(nuevo);
+                indice.poner(nuevo);
+            }
             return true;
         } catch (SQLException e) {
             System.out.println(e.toString());
             return false;
         }
-        // TODO: cerrar ps y con (try-with-resources o finally).
     }
     
     /**
@@ -60,31 +81,106 @@ public class ProductosDao {
      *
      * @return lista de productos; si falla, puede retornar lista vacía
      */
-    public List ListarProductos(){
-       List<Productos> Listapro = new ArrayList(); // TODO: tipar también la firma: List<Productos>
+    public List<Productos> ListarProductos(){
+       List<Productos> Listapro = new ArrayList<>();
        String sql = "SELECT pr.id AS id_proveedor, pr.nombre AS nombre_proveedor, p.* FROM proveedor pr INNER JOIN productos p ON pr.id = p.proveedor ORDER BY p.id DESC";
-       try {
-           con = cn.getConnection();
-           ps = con.prepareStatement(sql);
-           rs = ps.executeQuery();
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
            while (rs.next()) {
-               // Mapeo de fila a objeto Productos
-               Productos pro = new Productos();
-               pro.setId(rs.getInt("id"));
-               pro.setCodigo(rs.getString("codigo"));
-               pro.setNombre(rs.getString("nombre"));
-               pro.setProveedor(rs.getInt("id_proveedor"));
-               pro.setProveedorPro(rs.getString("nombre_proveedor"));
-               pro.setStock(rs.getInt("stock"));
-               pro.setPrecio(rs.getDouble("precio"));
-               Listapro.add(pro);
+               Listapro.add(mapearProducto(rs));
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return Listapro;
+   }
+
+    /**
+     * Cuenta los productos registrados.
+     *
+     * @return total de productos; 0 si ocurrió un error
+     */
+    public int ContarProductos(){
+       String sql = "SELECT COUNT(*) FROM productos";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
+           if (rs.next()) {
+               return rs.getInt(1);
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return 0;
+   }
+
+    /**
+     * Lista una página de productos, en el mismo orden que {@link #ListarProductos()}.
+     *
+     * @param desde    posición de la primera fila (0 = primera)
+     * @param cantidad filas a traer como máximo
+     * @return productos de la página; si falla, lista vacía
+     */
+    public List<Productos> PaginaProductos(int desde, int cantidad){
+       List<Productos> Listapro = new ArrayList<>();
+       String sql = "SELECT pr.id AS id_proveedor, pr.nombre AS nombre_proveedor, p.* FROM proveedor pr INNER JOIN productos p ON pr.id = p.proveedor ORDER BY p.id DESC LIMIT ? OFFSET ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, cantidad);
+           ps.setInt(2, desde);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   Listapro.add(mapearProducto(rs));
+               }
            }
        } catch (SQLException e) {
            System.out.println(e.toString());
        }
-       // TODO: cerrar rs, ps y con.
        return Listapro;
    }
+
+    /**
+     * Lista los productos siguientes a {@code ultimoId}, en el mismo orden que
+     * {@link #ListarProductos()} (id descendente).
+     * <p>Paginación por clave (keyset): en lugar de OFFSET se continúa desde el
+     * último id recibido, así cada página cuesta lo mismo sin importar cuántas
+     * filas tenga la tabla.</p>
+     *
+     * @param ultimoId id de la última fila de la página anterior; 0 para la primera página
+     * @param limite   filas a traer como máximo
+     * @return productos de la página; si falla, lista vacía
+     */
+    public List<Productos> ListarProductos(int ultimoId, int limite){
+       List<Productos> Listapro = new ArrayList<>();
+       String sql = "SELECT pr.id AS id_proveedor, pr.nombre AS nombre_proveedor, p.* FROM proveedor pr INNER JOIN productos p ON pr.id = p.proveedor WHERE p.id < ? ORDER BY p.id DESC LIMIT ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, ultimoId == 0 ? Integer.MAX_VALUE : ultimoId); // orden descendente
+           ps.setInt(2, limite);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   Listapro.add(mapearProducto(rs));
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return Listapro;
+   }
+
+    // Mapeo de fila (JOIN con proveedor) a objeto Productos
+    private Productos mapearProducto(ResultSet rs) throws SQLException {
+        Productos pro = new Productos();
+        pro.setId(rs.getInt("id"));
+        pro.setCodigo(rs.getString("codigo"));
+        pro.setNombre(rs.getString("nombre"));
+        pro.setProveedor(rs.getInt("id_proveedor"));
+        pro.setProveedorPro(rs.getString("nombre_proveedor"));
+        pro.setStock(rs.getInt("stock"));
+        pro.setPrecioCentimos(Dinero.deDecimal(rs.getBigDecimal("precio")));
+        return pro;
+    }
     
     /**
      * Elimina un producto por su ID.
@@ -94,23 +190,19 @@ public class ProductosDao {
      */
     public boolean EliminarProductos(int id){
        String sql = "DELETE FROM productos WHERE id = ?";
-       try {
-           // Nota: aquí no se invoca cn.getConnection(); si 'con' es null, fallará.
-           // TODO: agregar con = cn.getConnection(); para consistencia (sin cambiar ahora).
-           ps = con.prepareStatement(sql);
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           con.setAutoCommit(false);
            ps.setInt(1, id);
            ps.execute();
+           Cambios.anotar(con, Cambios.PRODUCTOS, id, Cambios.ELIMINAR);
+           con.commit();
+           catalogo.quitar(id);
+           indice.quitar(id);
            return true;
        } catch (SQLException e) {
            System.out.println(e.toString());
            return false;
-       }finally{
-           // Cierra la conexión (ps permanece abierto). // TODO: cerrar ps también.
-           try {
-               con.close();
-           } catch (SQLException ex) {
-               System.out.println(ex.toString());
-           }
        }
    }
     
@@ -122,58 +214,205 @@ public class ProductosDao {
      */
     public boolean ModificarProductos(Productos pro){
        String sql = "UPDATE productos SET codigo=?, nombre=?, proveedor=?, stock=?, precio=? WHERE id=?";
-       try {
-           // Nota: igual que en eliminar, aquí no se abre la conexión explícitamente.
-           // TODO: agregar con = cn.getConnection(); (sin modificar ahora).
-           ps = con.prepareStatement(sql);
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           con.setAutoCommit(false);
            ps.setString(1, pro.getCodigo());
            ps.setString(2, pro.getNombre());
            ps.setInt(3, pro.getProveedor());
            ps.setInt(4, pro.getStock());
-           ps.setDouble(5, pro.getPrecio());
+           ps.setBigDecimal(5, Dinero.aDecimal(pro.getPrecioCentimos()));
            ps.setInt(6, pro.getId());
            ps.execute();
+           Cambios.anotar(con, Cambios.PRODUCTOS, pro.getId(), Cambios.MODIFICAR);
+           con.commit();
+           catalogo.poner(pro); // guarda una copia; reemplaza también si cambió el código
+           indice.poner(pro);
            return true;
        } catch (SQLException e) {
            System.out.println(e.toString());
            return false;
-       }finally{
-           // TODO: cerrar ps además de con.
-           try {
-               con.close();
-           } catch (SQLException e) {
-               System.out.println(e.toString());
-           }
        }
    }
     
+    /**
+     * Carga el catálogo de productos en {@link CatalogoProductos}.
+     * <p>Se invoca al iniciar el sistema; si hay más productos que el máximo de la
+     * caché se cargan los más recientes.</p>
+     *
+     * @return cantidad de productos cargados
+     */
+    public int CargarCatalogo(){
+        List<Productos> lista = new ArrayList<>();
+        String sql = "SELECT id, codigo, nombre, proveedor, stock, precio FROM productos ORDER BY id DESC LIMIT ?";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, catalogo.getMaximo());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Productos pro = new Productos();
+                    pro.setId(rs.getInt("id"));
+                    pro.setCodigo(rs.getString("codigo"));
+                    pro.setNombre(rs.getString("nombre"));
+                    pro.setProveedor(rs.getInt("proveedor"));
+                    pro.setStock(rs.getInt("stock"));
+                    pro.setPrecioCentimos(Dinero.deDecimal(rs.getBigDecimal("precio")));
+                    lista.add(pro);
+                }
+            }
+            catalogo.cargar(lista);
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return lista.size();
+    }
+
+    /**
+     * Carga id, código y nombre de todos los productos en {@link IndiceProductos}.
+     * Se invoca al iniciar el sistema.
+     *
+     * @return cantidad de productos indexados
+     */
+    public int CargarIndice(){
+        List<Productos> lista = new ArrayList<>();
+        String sql = "SELECT id, codigo, nombre FROM productos";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Productos pro = new Productos();
+                pro.setId(rs.getInt("id"));
+                pro.setCodigo(rs.getString("codigo"));
+                pro.setNombre(rs.getString("nombre"));
+                lista.add(pro);
+            }
+            indice.cargar(lista);
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return lista.size();
+    }
+
+    /**
+     * Vuelve a leer productos que cambiaron en otra caja y actualiza
+     * {@link CatalogoProductos} e {@link IndiceProductos}; los que ya no existen
+     * se quitan. Lo usa {@link Cambios}.
+     *
+     * @param ids ids de los productos
+     */
+    public void Refrescar(Collection<Integer> ids){
+        List<Integer> faltan = new ArrayList<>(ids);
+        for (List<Integer> tanda : tandas(ids)) {
+            String sql = "SELECT id, codigo, nombre, proveedor, stock, precio FROM productos WHERE id IN (" + marcas(tanda.size()) + ")";
+            try (Connection con = cn.prestar();
+                 PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int i = 0; i < tanda.size(); i++) {
+                    ps.setInt(i + 1, tanda.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Productos pro = new Productos();
+                        pro.setId(rs.getInt("id"));
+                        pro.setCodigo(rs.getString("codigo"));
+                        pro.setNombre(rs.getString("nombre"));
+                        pro.setProveedor(rs.getInt("proveedor"));
+                        pro.setStock(rs.getInt("stock"));
+                        pro.setPrecioCentimos(Dinero.deDecimal(rs.getBigDecimal("precio")));
+                        catalogo.poner(pro);
+                        indice.poner(pro);
+                        faltan.remove((Integer) pro.getId());
+                    }
+                }
+            } catch (SQLException e) {
+                System.out.println(e.toString());
+                return;
+            }
+        }
+        for (int id : faltan) {
+            catalogo.quitar(id);
+            indice.quitar(id);
+        }
+    }
+
+    /**
+     * Vuelve a leer solo el stock de productos vendidos en otra caja y lo
+     * actualiza en {@link CatalogoProductos}. Lo usa {@link Cambios}.
+     *
+     * @param ids ids de los productos
+     */
+    public void RefrescarStock(Collection<Integer> ids){
+        for (List<Integer> tanda : tandas(ids)) {
+            String sql = "SELECT id, stock FROM productos WHERE id IN (" + marcas(tanda.size()) + ")";
+            try (Connection con = cn.prestar();
+                 PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int i = 0; i < tanda.size(); i++) {
+                    ps.setInt(i + 1, tanda.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        catalogo.actualizarStock(rs.getInt("id"), rs.getInt("stock"));
+                    }
+                }
+            } catch (SQLException e) {
+                System.out.println(e.toString());
+                return;
+            }
+        }
+    }
+
+    // Divide los ids en tandas para no armar un IN (...) demasiado largo.
+    static List<List<Integer>> tandas(Collection<Integer> ids) {
+        List<Integer> todos = new ArrayList<>(ids);
+        List<List<Integer>> lista = new ArrayList<>();
+        for (int i = 0; i < todos.size(); i += 500) {
+            lista.add(todos.subList(i, Math.min(todos.size(), i + 500)));
+        }
+        return lista;
+    }
+
+    // "?,?,...,?" con n marcas.
+    static String marcas(int n) {
+        StringBuilder sb = new StringBuilder(n * 2);
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
     /**
      * Busca un producto por su código.
+     * <p>Primero consulta {@link CatalogoProductos}; solo si el código no está en
+     * caché va a la BD (y lo agrega a la caché si existe).</p>
      *
      * @param cod código del producto (SKU/EAN/UPC)
      * @return objeto Productos con los campos encontrados; si no existe, retorna
      *         un objeto con valores por defecto
      */
     public Productos BuscarPro(String cod){
+        Productos enCache = catalogo.buscar(cod);
+        if (enCache != null) {
+            return enCache;
+        }
         Productos producto = new Productos();
         String sql = "SELECT * FROM productos WHERE codigo = ?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, cod);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                // Se mapean solo algunos campos necesarios para ventas/búsqueda rápida
-                producto.setId(rs.getInt("id"));
-                producto.setNombre(rs.getString("nombre"));
-                producto.setPrecio(rs.getDouble("precio"));
-                producto.setStock(rs.getInt("stock"));
-                // Nota: no se setean proveedor/codigo aquí, solo lo esencial para la operación.
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    // Se mapean solo algunos campos necesarios para ventas/búsqueda rápida
+                    producto.setId(rs.getInt("id"));
+                    producto.setCodigo(rs.getString("codigo"));
+                    producto.setNombre(rs.getString("nombre"));
+                    producto.setProveedor(rs.getInt("proveedor"));
+                    producto.setPrecioCentimos(Dinero.deDecimal(rs.getBigDecimal("precio")));
+                    producto.setStock(rs.getInt("stock"));
+                    catalogo.poner(producto);
+                }
             }
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return producto;
     }
 
@@ -186,24 +425,23 @@ public class ProductosDao {
     public Productos BuscarId(int id){
         Productos pro = new Productos();
         String sql = "SELECT pr.id AS id_proveedor, pr.nombre AS nombre_proveedor, p.* FROM proveedor pr INNER JOIN productos p ON p.proveedor = pr.id WHERE p.id = ?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, id);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                pro.setId(rs.getInt("id"));
-                pro.setCodigo(rs.getString("codigo"));
-                pro.setNombre(rs.getString("nombre"));
-                pro.setProveedor(rs.getInt("proveedor")); // id del proveedor según alias p.*
-                pro.setProveedorPro(rs.getString("nombre_proveedor"));
-                pro.setStock(rs.getInt("stock"));
-                pro.setPrecio(rs.getDouble("precio"));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    pro.setId(rs.getInt("id"));
+                    pro.setCodigo(rs.getString("codigo"));
+                    pro.setNombre(rs.getString("nombre"));
+                    pro.setProveedor(rs.getInt("proveedor")); // id del proveedor según alias p.*
+                    pro.setProveedorPro(rs.getString("nombre_proveedor"));
+                    pro.setStock(rs.getInt("stock"));
+                    pro.setPrecioCentimos(Dinero.deDecimal(rs.getBigDecimal("precio")));
+                }
             }
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return pro;
     }
 
@@ -216,18 +454,17 @@ public class ProductosDao {
     public Proveedor BuscarProveedor(String nombre){
         Proveedor pr = new Proveedor();
         String sql = "SELECT * FROM proveedor WHERE nombre = ?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, nombre);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                pr.setId(rs.getInt("id"));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    pr.setId(rs.getInt("id"));
+                }
             }
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return pr;
     }
 
@@ -239,10 +476,9 @@ public class ProductosDao {
     public Config BuscarDatos(){
         Config conf = new Config();
         String sql = "SELECT * FROM config";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
                 conf.setId(rs.getInt("id"));
                 conf.setRuc(rs.getString("ruc"));
@@ -254,7 +490,6 @@ public class ProductosDao {
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return conf;
     }
     
@@ -266,9 +501,9 @@ public class ProductosDao {
      */
     public boolean ModificarDatos(Config conf){
        String sql = "UPDATE config SET ruc=?, nombre=?, telefono=?, direccion=?, mensaje=? WHERE id=?";
-       try {
-           // Nota: aquí no se inicializa 'con'. // TODO: con = cn.getConnection();
-           ps = con.prepareStatement(sql);
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           con.setAutoCommit(false);
            ps.setString(1, conf.getRuc());
            ps.setString(2, conf.getNombre());
            ps.setString(3, conf.getTelefono());
@@ -276,17 +511,13 @@ public class ProductosDao {
            ps.setString(5, conf.getMensaje());
            ps.setInt(6, conf.getId());
            ps.execute();
+           Cambios.anotar(con, Cambios.CONFIG, conf.getId(), Cambios.MODIFICAR);
+           con.commit();
+           PlantillaComprobante.invalidar(); // los comprobantes siguientes usan los datos nuevos
            return true;
        } catch (SQLException e) {
            System.out.println(e.toString());
            return false;
-       }finally{
-           // TODO: cerrar ps además de con.
-           try {
-               con.close();
-           } catch (SQLException e) {
-               System.out.println(e.toString());
-           }
        }
    }
 }
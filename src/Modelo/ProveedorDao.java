@@ -13,7 +13,8 @@ import java.util.List;
  *
  * <p><b>Buenas prácticas (solo comentarios, sin cambiar código):</b></p>
  * <ul>
- *   <li>Cerrar siempre <code>rs</code>, <code>ps</code> y <code>con</code> (try-with-resources). <!-- TODO --></li>
+ *   <li>Los recursos (<code>rs</code>, <code>ps</code>, <code>con</code>) se cierran con
+ *       try-with-resources; cerrar la conexión la devuelve al pool.</li>
  *   <li>Validar RUC (11 dígitos) y normalizar textos antes de persistir. <!-- TODO --></li>
  *   <li>Definir índice UNIQUE para <code>ruc</code> en la BD. <!-- TODO --></li>
  * </ul>
@@ -21,10 +22,7 @@ import java.util.List;
  * @author USUARIO
  */
 public class ProveedorDao {
-    Connection con;            // Conexión activa a la BD
     Conexion cn = new Conexion(); // Proveedor de conexiones
-    PreparedStatement ps;      // Sentencia preparada
-    ResultSet rs;              // Conjunto de resultados
 
     /**
      * Inserta un nuevo proveedor en la tabla <code>proveedor</code>.
@@ -34,9 +32,8 @@ public class ProveedorDao {
      */
     public boolean RegistrarProveedor(Proveedor pr){
         String sql = "INSERT INTO proveedor(ruc, nombre, telefono, direccion) VALUES (?,?,?,?)";
-        try {
-           con = cn.getConnection();          // obtiene conexión
-           ps = con.prepareStatement(sql);    // prepara sentencia
+        try (Connection con = cn.prestar();          // obtiene conexión
+             PreparedStatement ps = con.prepareStatement(sql)) { // prepara sentencia
            // Asignación de parámetros (en orden de los ?)
            ps.setString(1, pr.getRuc());
            ps.setString(2, pr.getNombre());
@@ -47,46 +44,111 @@ public class ProveedorDao {
         } catch (SQLException e) {
             System.out.println(e.toString());
             return false;
-        }finally{
-            // Cierre de conexión. // TODO: cerrar también ps con manejo seguro.
-            try {
-                con.close();
-            } catch (SQLException e) {
-                System.out.println(e.toString());
-            }
         }
     }
-    
+
     /**
      * Recupera todos los proveedores.
      *
      * @return lista de proveedores; si falla, devuelve lista (posiblemente vacía)
      */
-    public List ListarProveedor(){
-        List<Proveedor> Listapr = new ArrayList(); // TODO: tipar también la firma: List<Proveedor>
+    public List<Proveedor> ListarProveedor(){
+        List<Proveedor> Listapr = new ArrayList<>();
         String sql = "SELECT * FROM proveedor";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
-            // Mapeo fila → objeto Proveedor
-            while (rs.next()) {                
-                Proveedor pr = new Proveedor();
-                pr.setId(rs.getInt("id"));
-                pr.setRuc(rs.getString("ruc"));
-                pr.setNombre(rs.getString("nombre"));
-                pr.setTelefono(rs.getString("telefono"));
-                pr.setDireccion(rs.getString("direccion"));
-                Listapr.add(pr);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Listapr.add(mapearProveedor(rs));
+            }
+
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return Listapr;
+    }
+
+    /**
+     * Cuenta los proveedores registrados.
+     *
+     * @return total de proveedores; 0 si ocurrió un error
+     */
+    public int ContarProveedores(){
+        String sql = "SELECT COUNT(*) FROM proveedor";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return 0;
+    }
+
+    /**
+     * Lista una página de proveedores ordenados por id.
+     *
+     * @param desde    posición de la primera fila (0 = primera)
+     * @param cantidad filas a traer como máximo
+     * @return proveedores de la página; si falla, lista vacía
+     */
+    public List<Proveedor> PaginaProveedores(int desde, int cantidad){
+        List<Proveedor> Listapr = new ArrayList<>();
+        String sql = "SELECT * FROM proveedor ORDER BY id LIMIT ? OFFSET ?";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, cantidad);
+            ps.setInt(2, desde);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Listapr.add(mapearProveedor(rs));
+                }
             }
-            
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return Listapr;
     }
-    
+
+    /**
+     * Lista los proveedores con id mayor que {@code ultimoId}, ordenados por id
+     * (paginación por clave, como {@link ProductosDao#ListarProductos(int, int)}).
+     *
+     * @param ultimoId id de la última fila de la página anterior; 0 para la primera página
+     * @param limite   filas a traer como máximo
+     * @return proveedores de la página; si falla, lista vacía
+     */
+    public List<Proveedor> ListarProveedor(int ultimoId, int limite){
+        List<Proveedor> Listapr = new ArrayList<>();
+        String sql = "SELECT * FROM proveedor WHERE id > ? ORDER BY id LIMIT ?";
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, ultimoId);
+            ps.setInt(2, limite);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Listapr.add(mapearProveedor(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+        }
+        return Listapr;
+    }
+
+    // Mapeo fila → objeto Proveedor
+    private Proveedor mapearProveedor(ResultSet rs) throws SQLException {
+        Proveedor pr = new Proveedor();
+        pr.setId(rs.getInt("id"));
+        pr.setRuc(rs.getString("ruc"));
+        pr.setNombre(rs.getString("nombre"));
+        pr.setTelefono(rs.getString("telefono"));
+        pr.setDireccion(rs.getString("direccion"));
+        return pr;
+    }
+
     /**
      * Elimina un proveedor por su ID.
      *
@@ -95,25 +157,17 @@ public class ProveedorDao {
      */
     public boolean EliminarProveedor(int id){
         String sql = "DELETE FROM proveedor WHERE id = ? ";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, id);
             ps.execute();
             return true;
         } catch (SQLException e) {
             System.out.println(e.toString());
             return false;
-        }finally{
-            // TODO: cerrar ps además de con.
-            try {
-                con.close();
-            } catch (SQLException e) {
-                System.out.println(e.toString());
-            }
         }
     }
-    
+
     /**
      * Actualiza los datos de un proveedor existente.
      *
@@ -122,9 +176,8 @@ public class ProveedorDao {
      */
     public boolean ModificarProveedor(Proveedor pr){
         String sql = "UPDATE proveedor SET ruc=?, nombre=?, telefono=?, direccion=? WHERE id=?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setString(1, pr.getRuc());
             ps.setString(2, pr.getNombre());
             ps.setString(3, pr.getTelefono());
@@ -135,13 +188,6 @@ public class ProveedorDao {
         } catch (SQLException e) {
             System.out.println(e.toString());
             return false;
-        }finally{
-            // TODO: cerrar ps además de con.
-            try {
-                con.close();
-            } catch (SQLException e) {
-                System.out.println(e.toString());
-            }
         }
     }
 }
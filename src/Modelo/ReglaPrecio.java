@@ -0,0 +1,139 @@
+package Modelo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Regla para cambiar precios en masa: un porcentaje o un monto fijo, y cómo
+ * redondear el resultado.
+ * <p>Trabaja en céntimos (ver {@link Dinero}). El porcentaje se aplica con
+ * {@code BigDecimal} y redondeo al céntimo más cercano antes de aplicar el
+ * redondeo elegido. Un resultado negativo queda en 0; uno que no cabe en
+ * {@code productos.precio} se devuelve igual (ver {@link CambioPrecio#isFueraDeRango()})
+ * para que la vista previa lo muestre en lugar de fallar al aplicar.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class ReglaPrecio {
+
+    /**
+     * Cómo se interpreta el valor de la regla.
+     */
+    public enum Tipo {
+        /** Porcentaje sobre el precio actual (5 = +5%, -10 = -10%). */
+        PORCENTAJE("Porcentaje (%)"),
+        /** Monto que se suma al precio actual (negativo para bajar). */
+        MONTO("Monto fijo");
+
+        private final String etiqueta;
+
+        Tipo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        @Override
+        public String toString() {
+            return etiqueta;
+        }
+    }
+
+    /**
+     * Redondeo del precio resultante.
+     */
+    public enum Redondeo {
+        /** Al céntimo. */
+        NINGUNO("Sin redondeo"),
+        /** A los 10 céntimos más cercanos. */
+        DECIMO("A 0.10"),
+        /** A la unidad más cercana. */
+        UNIDAD("A 1.00"),
+        /** Al precio terminado en .90 más cercano. */
+        NOVENTA("Terminar en .90");
+
+        private final String etiqueta;
+
+        Redondeo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        @Override
+        public String toString() {
+            return etiqueta;
+        }
+    }
+
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+    // Tope del cálculo: muy por encima de cualquier precio válido y sin
+    // desbordar al redondear.
+    private static final BigDecimal TOPE = BigDecimal.valueOf(Long.MAX_VALUE / 2);
+
+    private final Tipo tipo;
+    private final BigDecimal valor;
+    private final Redondeo redondeo;
+
+    /**
+     * @param tipo     porcentaje o monto
+     * @param valor    porcentaje (5 = 5%) o monto en soles según el tipo
+     * @param redondeo redondeo del resultado
+     */
+    public ReglaPrecio(Tipo tipo, BigDecimal valor, Redondeo redondeo) {
+        this.tipo = tipo;
+        this.valor = valor;
+        this.redondeo = redondeo;
+    }
+
+    /**
+     * Calcula el precio nuevo.
+     *
+     * @param centimos precio actual en céntimos
+     * @return precio nuevo en céntimos, nunca negativo; puede pasar del máximo
+     *         de {@code decimal(10,2)} si la regla es muy grande
+     */
+    public long aplicar(long centimos) {
+        BigDecimal nuevo;
+        if (tipo == Tipo.PORCENTAJE) {
+            nuevo = BigDecimal.valueOf(centimos).multiply(CIEN.add(valor)).divide(CIEN, 0, RoundingMode.HALF_UP);
+        } else {
+            nuevo = BigDecimal.valueOf(centimos).add(valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP));
+        }
+        long c = nuevo.max(BigDecimal.ZERO).min(TOPE).longValueExact();
+        return Math.max(0, redondear(c));
+    }
+
+    private long redondear(long c) {
+        switch (redondeo) {
+            case DECIMO:
+                return Math.floorDiv(c + 5, 10) * 10;
+            case UNIDAD:
+                return Math.floorDiv(c + 50, 100) * 100;
+            case NOVENTA:
+                // El más cercano entre ...,  n.90, (n+1).90, ...
+                return Math.floorDiv(c - 90 + 50, 100) * 100 + 90;
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * @return descripción corta, por ejemplo "+5% (A 0.10)"
+     */
+    public String describir() {
+        String signo = valor.signum() >= 0 ? "+" : "";
+        String texto = tipo == Tipo.PORCENTAJE
+                ? signo + valor.stripTrailingZeros().toPlainString() + "%"
+                : signo + valor.setScale(2, RoundingMode.HALF_UP).toPlainString();
+        return redondeo == Redondeo.NINGUNO ? texto : texto + " (" + redondeo + ")";
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public BigDecimal getValor() {
+        return valor;
+    }
+
+    public Redondeo getRedondeo() {
+        return redondeo;
+    }
+}
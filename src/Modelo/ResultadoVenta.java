@@ -0,0 +1,114 @@
+package Modelo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de registrar una venta con {@link VentaDao#RegistrarVentaCompleta}.
+ * <p>Si la venta se confirmó trae el id generado; si se revirtió por falta de
+ * stock trae, por cada línea afectada, lo solicitado y lo disponible. Si la BD
+ * no respondió y la venta quedó en {@link DiarioVentas}, no trae id pero
+ * {@link #isEnDiario()} es verdadero.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class ResultadoVenta {
+    // Id de la venta registrada (0 si no se registró).
+    private int idVenta;
+    // Líneas que no se pudieron descontar por stock insuficiente.
+    private final List<Faltante> faltantes = new ArrayList<>();
+    // Guardada en el diario local; se registrará en la BD al volver la conexión.
+    private boolean enDiario;
+
+    /**
+     * Indica si la venta quedó registrada.
+     * @return true si se confirmó la transacción
+     */
+    public boolean isExito() {
+        return idVenta > 0;
+    }
+
+    /**
+     * Obtiene el id de la venta registrada.
+     * @return id generado o 0 si la venta no se registró
+     */
+    public int getIdVenta() {
+        return idVenta;
+    }
+
+    /**
+     * Establece el id de la venta registrada.
+     * @param idVenta id generado por la BD
+     */
+    public void setIdVenta(int idVenta) {
+        this.idVenta = idVenta;
+    }
+
+    /**
+     * Indica si la venta quedó en el diario local porque la BD no respondió.
+     * @return true si la venta se registrará al volver la conexión
+     */
+    public boolean isEnDiario() {
+        return enDiario;
+    }
+
+    /**
+     * Marca la venta como guardada en el diario local.
+     * @param enDiario true si se guardó en {@link DiarioVentas}
+     */
+    public void setEnDiario(boolean enDiario) {
+        this.enDiario = enDiario;
+    }
+
+    /**
+     * Líneas rechazadas por falta de stock (vacía si no hubo faltantes).
+     * @return lista de faltantes
+     */
+    public List<Faltante> getFaltantes() {
+        return faltantes;
+    }
+
+    /**
+     * Una línea de la venta cuyo stock no alcanzó al momento de descontar.
+     */
+    public static class Faltante {
+        private final int idProducto;
+        private final String nombre;
+        private final int solicitado;
+        private final int disponible;
+
+        /**
+         * @param idProducto id del producto
+         * @param nombre     descripción del producto
+         * @param solicitado cantidad pedida en la venta
+         * @param disponible stock que había en BD
+         */
+        public Faltante(int idProducto, String nombre, int solicitado, int disponible) {
+            this.idProducto = idProducto;
+            this.nombre = nombre;
+            this.solicitado = solicitado;
+            this.disponible = disponible;
+        }
+
+        public int getIdProducto() {
+            return idProducto;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public int getSolicitado() {
+            return solicitado;
+        }
+
+        public int getDisponible() {
+            return disponible;
+        }
+
+        @Override
+        public String toString() {
+            return nombre + ": solicitado " + solicitado + ", disponible " + disponible;
+        }
+    }
+}
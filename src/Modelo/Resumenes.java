@@ -0,0 +1,127 @@
+package Modelo;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resúmenes diarios de ventas: por día ({@code resumen_dia}), por producto y
+ * día ({@code resumen_producto_dia}) y por vendedor y día
+ * ({@code resumen_vendedor_dia}).
+ * <p>{@link VentaDao} llama a {@link #sumarVenta} dentro de la transacción
+ * que registra la venta, así que los resúmenes siempre coinciden con
+ * {@code ventas} y {@code detalle}. Los reportes leen una fila por día (y por
+ * producto o vendedor) sin importar cuántas ventas haya; el costo depende de
+ * los días del rango y no de los años de historia.</p>
+ *
+ * <p>Los totales por día y vendedor suman {@code ventas.total}; los de
+ * producto suman {@code cantidad * precio} de cada línea, igual que los
+ * reportes que leían las tablas originales.</p>
+ *
+ * <p>Si los resúmenes dejan de coincidir (ventas borradas a mano, una
+ * restauración parcial), {@link #Reconstruir()} los recalcula desde cero; se
+ * ejecuta con {@code --reconstruir-resumenes} al iniciar el sistema.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class Resumenes {
+
+    private static final String SUMAR_DIA = "INSERT INTO resumen_dia (dia, ventas, total) VALUES (?, 1, ?) "
+            + "ON DUPLICATE KEY UPDATE ventas = ventas + 1, total = total + VALUES(total)";
+    private static final String SUMAR_VENDEDOR = "INSERT INTO resumen_vendedor_dia (dia, vendedor, ventas, total) "
+            + "VALUES (?, ?, 1, ?) ON DUPLICATE KEY UPDATE ventas = ventas + 1, total = total + VALUES(total)";
+    private static final String SUMAR_PRODUCTO = "INSERT INTO resumen_producto_dia (dia, id_pro, cantidad, total) "
+            + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), "
+            + "total = total + VALUES(total)";
+
+    private Resumenes() {
+    }
+
+    /**
+     * Suma una venta a los resúmenes de su día. Debe llamarse con la misma
+     * conexión y dentro de la misma transacción que registra la venta.
+     * <p>Las filas se bloquean en un orden fijo (productos por id, vendedor,
+     * día) para que dos cajas que venden a la vez no se interbloqueen. La
+     * fila del día es la más disputada, por eso va al final: queda bloqueada
+     * solo hasta el commit.</p>
+     *
+     * @param con      conexión de la transacción
+     * @param v        venta con {@code fechaHora}, vendedor y total
+     * @param detalles líneas de la venta
+     * @throws SQLException si falla alguna sentencia
+     */
+    static void sumarVenta(Connection con, Venta v, List<Detalle> detalles) throws SQLException {
+        Date dia = Date.valueOf(v.getFechaHora().toLocalDate());
+        // id_pro -> {cantidad, total en céntimos}; un producto puede estar en varias líneas.
+        Map<Integer, long[]> productos = new TreeMap<>();
+        for (Detalle d : detalles) {
+            long[] suma = productos.computeIfAbsent(d.getId_pro(), k -> new long[2]);
+            suma[0] += d.getCantidad();
+            suma[1] += Dinero.multiplicar(d.getPrecioCentimos(), d.getCantidad());
+        }
+        try (PreparedStatement ps = con.prepareStatement(SUMAR_PRODUCTO)) {
+            for (Map.Entry<Integer, long[]> e : productos.entrySet()) {
+                ps.setDate(1, dia);
+                ps.setInt(2, e.getKey());
+                ps.setLong(3, e.getValue()[0]);
+                ps.setBigDecimal(4, Dinero.aDecimal(e.getValue()[1]));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        BigDecimal total = Dinero.aDecimal(v.getTotalCentimos());
+        try (PreparedStatement ps = con.prepareStatement(SUMAR_VENDEDOR)) {
+            ps.setDate(1, dia);
+            ps.setString(2, v.getVendedor());
+            ps.setBigDecimal(3, total);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = con.prepareStatement(SUMAR_DIA)) {
+            ps.setDate(1, dia);
+            ps.setBigDecimal(2, total);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recalcula todos los resúmenes desde {@code ventas} y {@code detalle}, en
+     * una sola transacción: los reportes ven los resúmenes viejos o los nuevos,
+     * nunca a medias. Las ventas que se registren mientras tanto esperan a que
+     * termine.
+     *
+     * @return días resumidos
+     * @throws SQLException si no hay conexión o falla alguna sentencia
+     */
+    public static int Reconstruir() throws SQLException {
+        try (Connection con = new Conexion().getConnection()) {
+            if (con == null) {
+                throw new SQLException("Sin conexión a la base de datos");
+            }
+            con.setAutoCommit(false);
+            int dias;
+            try (Statement st = con.createStatement()) {
+                st.executeUpdate("DELETE FROM resumen_producto_dia");
+                st.executeUpdate("DELETE FROM resumen_vendedor_dia");
+                st.executeUpdate("DELETE FROM resumen_dia");
+                st.executeUpdate("INSERT INTO resumen_producto_dia (dia, id_pro, cantidad, total) "
+                        + "SELECT DATE(v.fecha_hora), d.id_pro, SUM(d.cantidad), SUM(d.cantidad * d.precio) "
+                        + "FROM ventas v INNER JOIN detalle d ON d.id_venta = v.id "
+                        + "WHERE v.fecha_hora IS NOT NULL GROUP BY DATE(v.fecha_hora), d.id_pro");
+                st.executeUpdate("INSERT INTO resumen_vendedor_dia (dia, vendedor, ventas, total) "
+                        + "SELECT DATE(fecha_hora), vendedor, COUNT(*), SUM(total) FROM ventas "
+                        + "WHERE fecha_hora IS NOT NULL GROUP BY DATE(fecha_hora), vendedor");
+                dias = st.executeUpdate("INSERT INTO resumen_dia (dia, ventas, total) "
+                        + "SELECT DATE(fecha_hora), COUNT(*), SUM(total) FROM ventas "
+                        + "WHERE fecha_hora IS NOT NULL GROUP BY DATE(fecha_hora)");
+            }
+            con.commit();
+            return dias;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package Modelo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Pruebas manuales del formato de {@link DiarioVentas}, al estilo de
+ * {@link TestManual}. No usan BD; escriben archivos temporales. Se ejecutan
+ * con {@code java -ea Modelo.TestDiarioVentas}, con {@code librerias/} en el
+ * classpath (cargar la clase crea el diario compartido y su {@link VentaDao}).
+ * Autor: Eduardo Jimenez
+ */
+public class TestDiarioVentas {
+
+    public static void main(String[] args) throws IOException {
+        byte[] r1 = DiarioVentas.serializar(venta("Ana", 1250), lineas(3, 2, 625));
+        byte[] r2 = DiarioVentas.serializar(venta("José Pérez", 990), lineas(7, 1, 990));
+        byte[] r3 = DiarioVentas.serializar(venta("Luis", 100), lineas(9, 4, 25));
+
+        // ==== PRUEBA 1: ida y vuelta completa ====
+        DiarioVentas.Lectura l = leer(r1, r2, r3);
+        System.out.println("Prueba 1 - Registros esperados: 3 | Resultado: " + l.registros.size());
+        assert l.registros.size() == 3 && !l.danado : "Error: no se leyeron los tres registros.";
+        DiarioVentas.Registro leido = l.registros.get(1);
+        assert leido.venta.getVendedor().equals("José Pérez") && leido.venta.getTotalCentimos() == 990
+                : "Error: la cabecera no se conservó.";
+        assert leido.venta.getFechaHora().equals(LocalDateTime.of(2024, 5, 17, 9, 30, 15))
+                && leido.venta.getFecha().equals("17/05/2024") : "Error: la fecha no se conservó.";
+        assert leido.detalles.size() == 1 && leido.detalles.get(0).getId_pro() == 7
+                && leido.detalles.get(0).getPrecioCentimos() == 990 : "Error: las líneas no se conservaron.";
+        assert !l.registros.get(0).venta.getUuid().equals(leido.venta.getUuid()) : "Error: uuid repetido.";
+
+        // ==== PRUEBA 2: cola cortada (corte de luz a mitad de escritura) ====
+        for (int corte = 1; corte < r3.length; corte++) {
+            l = leer(r1, r2, Arrays.copyOf(r3, corte));
+            assert l.registros.size() == 2 && l.danado : "Error: cola cortada en " + corte + " bytes.";
+        }
+        System.out.println("Prueba 2 - Cola cortada en cualquier byte: se conservan 2 registros y se marca dañado");
+
+        // ==== PRUEBA 3: CRC distinto en el segundo registro ====
+        byte[] alterado = r2.clone();
+        alterado[10] ^= 0x01;
+        l = leer(r1, alterado, r3);
+        System.out.println("Prueba 3 - Con CRC malo en el segundo, esperado 1 | Resultado: " + l.registros.size());
+        assert l.registros.size() == 1 && l.danado : "Error: un registro con CRC distinto no debe aceptarse.";
+
+        // ==== PRUEBA 4: largo imposible y archivo vacío ====
+        l = leer(r1, new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        assert l.registros.size() == 1 && l.danado : "Error: largo negativo aceptado.";
+        l = leer(r1, new byte[]{0x7F, 0, 0, 0});
+        assert l.registros.size() == 1 && l.danado : "Error: largo mayor al máximo aceptado.";
+        l = leer();
+        assert l.registros.isEmpty() && !l.danado : "Error: un archivo vacío no está dañado.";
+        System.out.println("Prueba 4 - Largo imposible y archivo vacío: OK");
+
+        System.out.println("\n✅ Todas las pruebas del diario de ventas se ejecutaron correctamente.");
+    }
+
+    private static Venta venta(String vendedor, long total) {
+        Venta v = new Venta();
+        v.setUuid(UUID.randomUUID().toString());
+        v.setCliente(4);
+        v.setVendedor(vendedor);
+        v.setTotalCentimos(total);
+        v.setFecha("17/05/2024");
+        v.setFechaHora(LocalDateTime.of(2024, 5, 17, 9, 30, 15));
+        return v;
+    }
+
+    private static List<Detalle> lineas(int idPro, int cantidad, long precio) {
+        Detalle d = new Detalle();
+        d.setId_pro(idPro);
+        d.setCantidad(cantidad);
+        d.setPrecioCentimos(precio);
+        List<Detalle> lista = new ArrayList<>();
+        lista.add(d);
+        return lista;
+    }
+
+    // Escribe los bytes seguidos en un archivo temporal y lo lee con el diario.
+    private static DiarioVentas.Lectura leer(byte[]... partes) throws IOException {
+        ByteArrayOutputStream todo = new ByteArrayOutputStream();
+        for (byte[] p : partes) {
+            todo.write(p);
+        }
+        File f = File.createTempFile("diario-prueba", ".diario");
+        try {
+            try (OutputStream out = new FileOutputStream(f)) {
+                todo.writeTo(out);
+            }
+            return DiarioVentas.leer(f);
+        } finally {
+            if (!f.delete()) {
+                f.deleteOnExit();
+            }
+        }
+    }
+}
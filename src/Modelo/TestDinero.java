@@ -0,0 +1,67 @@
+package Modelo;
+
+import java.math.BigDecimal;
+
+/**
+ * Pruebas manuales de {@link Dinero}, al estilo de {@link TestManual}.
+ * Se ejecutan con {@code java -ea Modelo.TestDinero}.
+ * Autor: Eduardo Jimenez
+ */
+public class TestDinero {
+
+    public static void main(String[] args) {
+
+        // ==== PRUEBA 1: deDecimal redondea medio céntimo hacia arriba (lejos de cero) ====
+        assert Dinero.deDecimal(new BigDecimal("12.34")) == 1234 : "Error: monto exacto mal convertido.";
+        assert Dinero.deDecimal(new BigDecimal("1.005")) == 101 : "Error: 1.005 debe dar 101.";
+        assert Dinero.deDecimal(new BigDecimal("1.0049")) == 100 : "Error: 1.0049 debe dar 100.";
+        assert Dinero.deDecimal(new BigDecimal("-0.005")) == -1 : "Error: -0.005 debe dar -1.";
+        assert Dinero.deDecimal(new BigDecimal("7")) == 700 : "Error: monto sin decimales mal convertido.";
+        assert Dinero.deDecimal(null) == 0 : "Error: null debe dar 0.";
+        System.out.println("Prueba 1 - deDecimal(1.005) esperado: 101 | Resultado: "
+                + Dinero.deDecimal(new BigDecimal("1.005")));
+
+        // ==== PRUEBA 2: deDouble usa el decimal más corto, no el binario ====
+        // 1.005 en double es 1.00499999999999989...; Math.round(1.005 * 100) da 100.
+        assert Dinero.deDouble(1.005) == 101 : "Error: deDouble(1.005) debe dar 101.";
+        assert Dinero.deDouble(0.1 + 0.2) == 30 : "Error: 0.1 + 0.2 debe dar 30 céntimos.";
+        assert Dinero.deDouble(2.675) == 268 : "Error: deDouble(2.675) debe dar 268.";
+        assert Dinero.deDouble(-1.005) == -101 : "Error: deDouble(-1.005) debe dar -101.";
+        System.out.println("Prueba 2 - deDouble(1.005) esperado: 101 | Resultado: " + Dinero.deDouble(1.005)
+                + " (Math.round daría " + Math.round(1.005 * 100) + ")");
+
+        // ==== PRUEBA 3: ida y vuelta con texto y con BigDecimal ====
+        assert Dinero.parsear(" 12.5 ") == 1250 : "Error: parsear con espacios y un decimal.";
+        assert "1234.50".equals(Dinero.formatear(123450)) : "Error: formatear con dos decimales.";
+        assert "-0.05".equals(Dinero.formatear(-5)) : "Error: formatear negativo menor a una unidad.";
+        assert Dinero.deDecimal(Dinero.aDecimal(987654321)) == 987654321 : "Error: ida y vuelta por BigDecimal.";
+        boolean rechazado = false;
+        try {
+            Dinero.parsear("12,50");
+        } catch (NumberFormatException e) {
+            rechazado = true;
+        }
+        assert rechazado : "Error: parsear debe rechazar la coma decimal.";
+        System.out.println("Prueba 3 - formatear(123450) esperado: 1234.50 | Resultado: " + Dinero.formatear(123450));
+
+        // ==== PRUEBA 4: las operaciones desbordan con excepción, no en silencio ====
+        assert Dinero.multiplicar(250, 3) == 750 : "Error: multiplicar.";
+        assert Dinero.sumar(Dinero.restar(1000, 250), 50) == 800 : "Error: sumar y restar.";
+        assert desborda(() -> Dinero.multiplicar(Long.MAX_VALUE / 2, 3)) : "Error: multiplicar no desbordó.";
+        assert desborda(() -> Dinero.sumar(Long.MAX_VALUE, 1)) : "Error: sumar no desbordó.";
+        assert desborda(() -> Dinero.restar(Long.MIN_VALUE, 1)) : "Error: restar no desbordó.";
+        assert desborda(() -> Dinero.deDecimal(new BigDecimal("1e20"))) : "Error: deDecimal no desbordó.";
+        System.out.println("Prueba 4 - Desbordes detectados: OK");
+
+        System.out.println("\n✅ Todas las pruebas de Dinero se ejecutaron correctamente.");
+    }
+
+    private static boolean desborda(Runnable operacion) {
+        try {
+            operacion.run();
+            return false;
+        } catch (ArithmeticException e) {
+            return true;
+        }
+    }
+}
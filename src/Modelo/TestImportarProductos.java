@@ -0,0 +1,116 @@
+package Modelo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pruebas manuales del lector CSV de {@link ImportarProductos}, al estilo de
+ * {@link TestManual}. No usan BD. Se ejecutan con
+ * {@code java -ea Modelo.TestImportarProductos}.
+ * Autor: Eduardo Jimenez
+ */
+public class TestImportarProductos {
+
+    public static void main(String[] args) throws IOException {
+
+        // ==== PRUEBA 1: campos simples, vacíos y entre comillas ====
+        List<String> c = ImportarProductos.LectorCsv.campos("A1,,\"Jarabe, 120 ml\",\"dice \"\"hola\"\"\"", ',');
+        System.out.println("Prueba 1 - Campos: " + c);
+        assert c.equals(Arrays.asList("A1", "", "Jarabe, 120 ml", "dice \"hola\""))
+                : "Error: comillas, separador entre comillas o comillas dobles mal leídos.";
+        assert ImportarProductos.LectorCsv.campos("", ',').equals(Arrays.asList(""))
+                : "Error: un registro vacío debe dar un campo vacío.";
+
+        // ==== PRUEBA 2: punto y coma como separador ====
+        c = ImportarProductos.LectorCsv.campos("P1;Paracetamol; 12,50 ;\"a;b\"", ';');
+        assert c.equals(Arrays.asList("P1", "Paracetamol", " 12,50 ", "a;b"))
+                : "Error: separador punto y coma mal leído: " + c;
+        System.out.println("Prueba 2 - Campos con ';': " + c);
+
+        // ==== PRUEBA 3: BOM, detección de separador y campo de varias líneas ====
+        String archivo = "\uFEFFcodigo;nombre;proveedor;precio\n"
+                + "P1;\"Crema\nuso externo\";Genfar;12,50\n"
+                + "P2;Gotas;Genfar;3.10\n";
+        try (ImportarProductos.LectorCsv csv = lector(archivo)) {
+            List<String> encabezado = csv.siguiente();
+            assert encabezado.equals(Arrays.asList("codigo", "nombre", "proveedor", "precio"))
+                    : "Error: el BOM o el separador del encabezado no se reconocieron: " + encabezado;
+            List<String> r1 = csv.siguiente();
+            assert r1.get(1).equals("Crema\nuso externo") && csv.linea() == 2
+                    : "Error: campo de varias líneas mal leído: " + r1;
+            List<String> r2 = csv.siguiente();
+            System.out.println("Prueba 3 - Segundo registro en línea " + csv.linea() + " (esperado 4): " + r2);
+            assert r2.get(0).equals("P2") && csv.linea() == 4 : "Error: número de línea tras un campo de varias líneas.";
+            assert csv.siguiente() == null : "Error: debió terminar el archivo.";
+        }
+
+        // ==== PRUEBA 4: comillas sin cerrar no cuelgan la lectura ====
+        try (ImportarProductos.LectorCsv csv = lector("codigo,nombre\nP1,\"sin cerrar\nP2,otro\n")) {
+            csv.siguiente();
+            List<String> r = csv.siguiente();
+            assert r.size() == 2 && csv.siguiente() == null : "Error: comillas sin cerrar: " + r;
+        }
+        System.out.println("Prueba 4 - Comillas sin cerrar llegan hasta el final: OK");
+
+        // ==== PRUEBA 5: validación de filas ====
+        Map<String, Integer> proveedores = new HashMap<>();
+        proveedores.put(ImportarProductos.clave("Genfar"), 1);
+        String filas = "Código,Nombre,Proveedor,Precio,Stock\n"
+                + "P1,Ibuprofeno,GENFAR,\"12,50\",5\n"    // válida: coma decimal y proveedor sin importar mayúsculas
+                + "P2,Naproxeno,Desconocido,1.00,1\n"     // proveedor desconocido
+                + "p1,Repetido,Genfar,1.00,1\n"           // código repetido (sin importar mayúsculas)
+                + "P3,Caro,Genfar,100000000.00,1\n"       // precio fuera de decimal(10,2)
+                + "P4,Negativo,Genfar,1.00,-2\n"          // stock negativo
+                + ",Sin código,Genfar,1.00,1\n"
+                + "\n";                                   // línea vacía: se ignora
+        List<ImportarProductos.Fila> validas = new ArrayList<>();
+        List<ImportarProductos.Fila> rechazadas = new ArrayList<>();
+        boolean conStock;
+        try (ImportarProductos.LectorCsv csv = lector(filas)) {
+            conStock = ImportarProductos.leer(csv, proveedores, validas, rechazadas);
+        }
+        System.out.println("Prueba 5 - Válidas esperadas: 1, rechazadas: 5 | Resultado: " + validas.size()
+                + ", " + rechazadas.size());
+        assert conStock : "Error: no detectó la columna de stock.";
+        assert validas.size() == 1 && validas.get(0).precio == 1250 && validas.get(0).stock == 5
+                : "Error: la fila válida no se leyó bien.";
+        assert rechazadas.size() == 5 : "Error: cantidad de filas rechazadas.";
+        assert rechazadas.get(0).motivo.startsWith("Proveedor desconocido") : rechazadas.get(0).motivo;
+        assert rechazadas.get(1).motivo.contains("línea 2") : rechazadas.get(1).motivo;
+        assert rechazadas.get(2).motivo.startsWith("Precio fuera de rango") : rechazadas.get(2).motivo;
+        assert rechazadas.get(3).motivo.startsWith("Stock negativo") : rechazadas.get(3).motivo;
+        assert rechazadas.get(4).motivo.equals("Código vacío") : rechazadas.get(4).motivo;
+
+        // ==== PRUEBA 6: códigos repetidos según la colación de la columna ====
+        assert ImportarProductos.clave(" Código ").equals("codigo") : "Error: la clave no quita tildes.";
+        assert !ImportarProductos.clave("AÑO1").equals(ImportarProductos.clave("ANO1"))
+                : "Error: la ñ no es una n con tilde en utf8_spanish_ci.";
+        String tildes = "codigo,nombre,proveedor,precio\n"
+                + "COD1,Primero,Genfar,1.00\n"
+                + "CÓD1,Segundo,Genfar,1.00\n"           // repetido: la columna ignora tildes
+                + "AÑO1,Tercero,Genfar,1.00\n"
+                + "ANO1,Cuarto,Genfar,1.00\n";           // distinto: la ñ cuenta
+        validas.clear();
+        rechazadas.clear();
+        try (ImportarProductos.LectorCsv csv = lector(tildes)) {
+            ImportarProductos.leer(csv, proveedores, validas, rechazadas);
+        }
+        System.out.println("Prueba 6 - Válidas esperadas: 3, rechazadas: 1 | Resultado: " + validas.size()
+                + ", " + rechazadas.size());
+        assert validas.size() == 3 && rechazadas.size() == 1 : "Error: repetidos con tildes.";
+        assert rechazadas.get(0).codigo.equals("CÓD1") && rechazadas.get(0).motivo.contains("línea 2")
+                : rechazadas.get(0).motivo;
+
+        System.out.println("\n✅ Todas las pruebas del lector CSV se ejecutaron correctamente.");
+    }
+
+    private static ImportarProductos.LectorCsv lector(String contenido) {
+        return new ImportarProductos.LectorCsv(new BufferedReader(new StringReader(contenido)));
+    }
+}
@@ -0,0 +1,101 @@
+package Modelo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pruebas manuales de {@link IndiceProductos}, al estilo de {@link TestManual}.
+ * Se ejecutan con {@code java -ea Modelo.TestIndiceProductos}.
+ * Autor: Eduardo Jimenez
+ */
+public class TestIndiceProductos {
+
+    public static void main(String[] args) {
+        IndiceProductos indice = new IndiceProductos();
+        List<Productos> productos = new ArrayList<>();
+        productos.add(producto(1, "P001", "Amoxicilina 500mg cápsulas"));
+        productos.add(producto(2, "P002", "Clamoxil suspensión"));
+        productos.add(producto(3, "P003", "Ibuprofeno 400mg"));
+        productos.add(producto(4, "P004", "Paracetamol 500mg"));
+        productos.add(producto(5, "P005", "Paracetamol 1g"));
+        productos.add(producto(6, "AMOX", "Jarabe para la tos"));
+        productos.add(producto(7, "P007", "Ácido fólico"));
+        indice.cargar(productos);
+
+        // ==== PRUEBA 1: el código exacto va primero ====
+        List<Productos> r = indice.buscar("amox", 10);
+        System.out.println("Prueba 1 - Primero esperado: AMOX | Resultado: " + codigos(r));
+        assert !r.isEmpty() && r.get(0).getId() == 6 : "Error: el código igual a la consulta no quedó primero.";
+
+        // ==== PRUEBA 2: prefijo de palabra antes que texto dentro de una palabra ====
+        int amoxicilina = posicion(r, 1);
+        int clamoxil = posicion(r, 2);
+        System.out.println("Prueba 2 - Amoxicilina en " + amoxicilina + ", Clamoxil en " + clamoxil);
+        assert amoxicilina >= 0 && clamoxil >= 0 && amoxicilina < clamoxil
+                : "Error: el prefijo debe puntuar más que el texto contenido.";
+
+        // ==== PRUEBA 3: errores de tipeo dentro de lo tolerado ====
+        // "ibuprofneo" intercambia dos letras (un error); "ibuprofrmo" tiene dos.
+        assert ids(indice.buscar("ibuprofneo", 5)).contains(3) : "Error: no tolera una transposición.";
+        assert ids(indice.buscar("ibuprofrmo", 5)).contains(3) : "Error: no tolera dos errores en 10 letras.";
+        // En palabras cortas solo se tolera un error, y una transposición cambia
+        // cuatro trigramas de la consulta: el candidato no debe descartarse antes de puntuarlo.
+        List<Productos> corta = indice.buscar("ibpuro", 5);
+        System.out.println("Prueba 3 - 'ibpuro' esperado: [P003] | Resultado: " + codigos(corta));
+        assert ids(corta).contains(3) : "Error: no tolera una transposición en 6 letras.";
+        assert ids(indice.buscar("amxoi", 5)).contains(1) : "Error: no tolera una transposición en 5 letras.";
+        System.out.println("Prueba 3 - Errores de tipeo tolerados: OK");
+
+        // ==== PRUEBA 4: más errores de los tolerados no coincide ====
+        // Palabra de 6 letras: se tolera un error, no dos.
+        List<Productos> lejos = indice.buscar("jxrxbe", 5);
+        System.out.println("Prueba 4 - 'jxrxbe' (dos errores) esperado: [] | Resultado: " + codigos(lejos));
+        assert !ids(lejos).contains(6) : "Error: coincidió con más errores de los permitidos.";
+        assert ids(indice.buscar("jarbe", 5)).contains(6) : "Error: no tolera una letra faltante.";
+
+        // ==== PRUEBA 5: tildes, mayúsculas y varias palabras ====
+        assert ids(indice.buscar("ACIDO FOLICO", 5)).contains(7) : "Error: no ignora tildes y mayúsculas.";
+        List<Productos> para = indice.buscar("paracet 500", 5);
+        System.out.println("Prueba 5 - 'paracet 500' esperado: [P004] | Resultado: " + codigos(para));
+        assert ids(para).contains(4) && !ids(para).contains(5) : "Error: no exige todas las palabras.";
+
+        // ==== PRUEBA 6: poner y quitar mantienen el índice al día ====
+        indice.poner(producto(3, "P003", "Naproxeno 550mg"));
+        assert !ids(indice.buscar("ibuprofeno", 5)).contains(3) : "Error: quedó el nombre anterior.";
+        assert ids(indice.buscar("naproxeno", 5)).contains(3) : "Error: no se indexó el nombre nuevo.";
+        indice.quitar(3);
+        assert indice.buscar("naproxeno", 5).isEmpty() && indice.getTamanio() == 6
+                : "Error: quitar no sacó el producto.";
+        System.out.println("Prueba 6 - poner y quitar: OK");
+
+        System.out.println("\n✅ Todas las pruebas de IndiceProductos se ejecutaron correctamente.");
+    }
+
+    private static Productos producto(int id, String codigo, String nombre) {
+        Productos p = new Productos();
+        p.setId(id);
+        p.setCodigo(codigo);
+        p.setNombre(nombre);
+        return p;
+    }
+
+    private static List<Integer> ids(List<Productos> lista) {
+        List<Integer> ids = new ArrayList<>();
+        for (Productos p : lista) {
+            ids.add(p.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> codigos(List<Productos> lista) {
+        List<String> codigos = new ArrayList<>();
+        for (Productos p : lista) {
+            codigos.add(p.getCodigo());
+        }
+        return codigos;
+    }
+
+    private static int posicion(List<Productos> lista, int id) {
+        return ids(lista).indexOf(id);
+    }
+}
@@ -0,0 +1,73 @@
+package Modelo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Pruebas manuales de {@link MapaIntObjeto}, al estilo de {@link TestManual}.
+ * Se ejecutan con {@code java -ea Modelo.TestMapaIntObjeto}.
+ * Autor: Eduardo Jimenez
+ */
+public class TestMapaIntObjeto {
+
+    public static void main(String[] args) {
+
+        // ==== PRUEBA 1: put, get y reemplazo ====
+        MapaIntObjeto<String> m = new MapaIntObjeto<>();
+        assert m.put(10, "a") == null : "Error: put de clave nueva devolvió un valor anterior.";
+        assert "a".equals(m.put(10, "b")) : "Error: put no devolvió el valor reemplazado.";
+        System.out.println("Prueba 1 - get(10) esperado: b | Resultado: " + m.get(10));
+        assert "b".equals(m.get(10)) && m.size() == 1 : "Error: el reemplazo no quedó registrado.";
+
+        // ==== PRUEBA 2: borrar en medio de un grupo no pierde las claves siguientes ====
+        // Con 8 claves en 16 posiciones los grupos se solapan; se borra cada una
+        // y se verifica que todas las demás sigan accesibles.
+        for (int borrada = 0; borrada < 8; borrada++) {
+            MapaIntObjeto<Integer> g = new MapaIntObjeto<>(4);
+            for (int k = 0; k < 8; k++) {
+                g.put(k * 16, k);
+            }
+            assert g.remove(borrada * 16) == borrada : "Error: remove devolvió otro valor.";
+            for (int k = 0; k < 8; k++) {
+                Integer v = g.get(k * 16);
+                assert k == borrada ? v == null : v != null && v == k
+                        : "Error: tras borrar " + borrada * 16 + " la clave " + k * 16 + " quedó inalcanzable.";
+            }
+        }
+        System.out.println("Prueba 2 - Borrado con corrimiento hacia atrás: OK");
+
+        // ==== PRUEBA 3: operaciones al azar contra HashMap ====
+        // Claves en un rango chico para que haya muchas colisiones, vueltas al
+        // inicio del arreglo y borrados seguidos de inserciones en el mismo grupo.
+        Random azar = new Random(42);
+        MapaIntObjeto<Integer> mapa = new MapaIntObjeto<>();
+        Map<Integer, Integer> control = new HashMap<>();
+        for (int op = 0; op < 200000; op++) {
+            int clave = azar.nextInt(64) - 32;
+            if (azar.nextInt(3) == 0) {
+                assert eq(mapa.remove(clave), control.remove(clave)) : "Error: remove(" + clave + ") en op " + op;
+            } else {
+                assert eq(mapa.put(clave, op), control.put(clave, op)) : "Error: put(" + clave + ") en op " + op;
+            }
+            assert mapa.size() == control.size() : "Error: size distinto en op " + op;
+        }
+        for (int clave = -32; clave < 32; clave++) {
+            assert eq(mapa.get(clave), control.get(clave)) : "Error: get(" + clave + ") distinto al final.";
+        }
+        System.out.println("Prueba 3 - 200000 operaciones al azar, tamaño final: " + mapa.size());
+
+        // ==== PRUEBA 4: vaciar y reutilizar ====
+        mapa.clear();
+        assert mapa.isEmpty() && mapa.get(0) == null : "Error: clear dejó entradas.";
+        mapa.put(0, 1);
+        assert mapa.get(0) == 1 && mapa.size() == 1 : "Error: el mapa no se puede reutilizar tras clear.";
+        System.out.println("Prueba 4 - clear y reutilización: OK");
+
+        System.out.println("\n✅ Todas las pruebas de MapaIntObjeto se ejecutaron correctamente.");
+    }
+
+    private static boolean eq(Integer a, Integer b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -1,5 +1,7 @@
 package Modelo;
 
+import java.time.LocalDateTime;
+
 /**
  * Representa una venta registrada en el sistema.
  * <p>Incluye el identificador de la venta, el id del cliente, el nombre del
@@ -9,8 +11,9 @@ package Modelo;
  * <ul>
  *   <li>El campo {@code nombre_cli} es redundante si ya existe relación con la
  *       entidad Cliente; se mantiene para mostrar rápidamente en reportes/UI. <!-- TODO --></li>
- *   <li>{@code fecha} está modelada como {@code String}; para operaciones de
- *       fecha/hora conviene usar {@code java.time.LocalDate/LocalDateTime}. <!-- TODO --></li>
+ *   <li>{@code fecha} está modelada como {@code String} y se conserva por
+ *       compatibilidad; las consultas por rango usan {@code fechaHora}
+ *       (columna {@code fecha_hora}).</li>
  *   <li>Validar que {@code total} sea &ge; 0 antes de persistir. <!-- TODO --></li>
  * </ul>
  *
@@ -25,10 +28,14 @@ public class Venta {
     private String nombre_cli;
     // Nombre del vendedor que registró la venta.
     private String vendedor;
-    // Importe total de la venta.
-    private double total;
+    // Importe total de la venta, en céntimos (ver Dinero).
+    private long total;
     // Fecha de la venta (formato como String; ver nota en Javadoc).
     private String fecha;
+    // Fecha y hora de la venta (columna fecha_hora, indexada).
+    private LocalDateTime fechaHora;
+    // Identificador generado en la caja; evita registrar dos veces una venta del diario.
+    private String uuid;
     
     /**
      * Constructor por defecto.
@@ -53,7 +60,7 @@ public class Venta {
         this.cliente = cliente;
         this.nombre_cli = nombre_cli;
         this.vendedor = vendedor;
-        this.total = total;
+        this.total = Dinero.deDouble(total);
         this.fecha = fecha;
     }
 
@@ -126,14 +133,30 @@ public class Venta {
      * @return total
      */
     public double getTotal() {
-        return total;
+        return Dinero.aDouble(total);
     }
 
     /**
      * Establece el total de la venta.
-     * @param total importe total (>= 0) <!-- TODO: validar -->
+     * @param total importe total (>= 0), se redondea al céntimo <!-- TODO: validar -->
      */
     public void setTotal(double total) {
+        this.total = Dinero.deDouble(total);
+    }
+
+    /**
+     * Obtiene el total de la venta en céntimos.
+     * @return total en céntimos
+     */
+    public long getTotalCentimos() {
+        return total;
+    }
+
+    /**
+     * Establece el total de la venta en céntimos.
+     * @param total total en céntimos
+     */
+    public void setTotalCentimos(long total) {
         this.total = total;
     }
 
@@ -153,6 +176,38 @@ public class Venta {
         this.fecha = fecha;
     }
 
+    /**
+     * Obtiene la fecha y hora de la venta.
+     * @return fecha y hora, o {@code null} si no se conoce
+     */
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    /**
+     * Establece la fecha y hora de la venta.
+     * @param fechaHora momento de la venta
+     */
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+
+    /**
+     * Obtiene el identificador de la venta generado en la caja.
+     * @return uuid de la venta, o {@code null} si aún no se asignó
+     */
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Establece el identificador de la venta generado en la caja.
+     * @param uuid uuid de la venta (columna {@code uuid}, única)
+     */
+    public void setUuid(String uuid) {
+        this.uuid = uuid;
+    }
+
 }
 
 /** Cálculo de total validado externamente (>=0). Fecha migrable a java.time.* en futuras versiones. */
@@ -1,15 +1,10 @@
 package Modelo;
 
-import com.itextpdf.text.BaseColor;
 import com.itextpdf.text.Chunk;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
-import com.itextpdf.text.Font;
-import com.itextpdf.text.Image;
 import com.itextpdf.text.Paragraph;
-import com.itextpdf.text.Phrase;
-import com.itextpdf.text.Rectangle;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
@@ -21,113 +16,145 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
-import javax.swing.filechooser.FileSystemView;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * DAO de ventas: operaciones de lectura/escritura en BD y generación de PDF con iText.
  *
  * <p>Contiene métodos para obtener el último ID de venta, registrar ventas y detalles,
  * actualizar stock, listar ventas, buscar una venta específica y generar un comprobante
- * PDF con los datos de la venta y del cliente.</p>
+ * PDF con los datos de la venta y del cliente. {@link #RegistrarVentaCompleta} registra
+ * toda la venta en una única transacción.</p>
  *
  * <p><b>Notas (solo comentarios, sin cambiar código):</b></p>
  * <ul>
  *   <li>Se utilizan {@code PreparedStatement} para evitar SQL Injection.</li>
- *   <li>Falta cierre sistemático de recursos ({@code rs}, {@code ps}, {@code con}) en varios métodos. <!-- TODO --></li>
- *   <li>Los métodos {@code RegistrarVenta} y {@code RegistrarDetalle} retornan el campo {@code r} pero nunca lo asignan. <!-- TODO --></li>
- *   <li>En {@code pdfV(...)} la ruta del archivo usa concatenación sin separador; podría requerir {@code File.separator}. <!-- TODO --></li>
- *   <li>El campo fecha se maneja como {@code String}; evaluar tipos de fecha/tiempo según necesidades. <!-- TODO --></li>
+ *   <li>Los recursos ({@code rs}, {@code ps}, {@code con}) se cierran con try-with-resources;
+ *       cerrar la conexión la devuelve al pool.</li>
+ *   <li>{@code RegistrarVenta} devuelve el id generado por la BD ({@code RETURN_GENERATED_KEYS});
+ *       no hace falta consultar {@code MAX(id)} después de insertar.</li>
+ *   <li>{@code RegistrarDetalle} retorna el campo {@code r} pero nunca lo asigna. <!-- TODO --></li>
+ *   <li>{@code generarPdf(...)} escribe un archivo por venta en {@code ~/.farmacia/comprobantes}
+ *       y conserva solo los últimos (ver {@link #generarPdf}).</li>
+ *   <li>El campo fecha se maneja como {@code String} (dd/MM/yyyy); las búsquedas por rango usan
+ *       la columna indexada {@code fecha_hora} (ver {@link #ListarVentasEntre(LocalDateTime, LocalDateTime)}).</li>
+ *   <li>Si la BD no responde, {@link #RegistrarVentaCompleta} guarda la venta en {@link DiarioVentas},
+ *       que la registra más tarde; el uuid de la venta evita registrarla dos veces.</li>
  * </ul>
  *
  * @author Eduardo Jimenez
  */
 public class VentaDao {
-    Connection con;          // Conexión activa a BD
     Conexion cn = new Conexion(); // Proveedor de conexiones
-    PreparedStatement ps;    // Sentencia preparada
-    ResultSet rs;            // Resultado de consultas
+    CatalogoProductos catalogo = CatalogoProductos.getInstancia(); // Caché de productos por código
     int r;                   // Variable de retorno genérica (no se asigna en algunos métodos)
-    
+    // Error de MySQL por clave única repetida (uuid de una venta ya registrada).
+    private static final int CLAVE_DUPLICADA = 1062;
+    // Errores de MySQL por bloqueos entre transacciones: se resuelven reintentando.
+    private static final int ESPERA_BLOQUEO = 1205;
+    private static final int INTERBLOQUEO = 1213;
+    // Carpeta de los comprobantes PDF; solo se conservan los más recientes.
+    private static final File COMPROBANTES = new File(System.getProperty("farma.comprobantes.dir",
+            System.getProperty("user.home") + File.separator + ".farmacia" + File.separator + "comprobantes"));
+    private static final int MAX_COMPROBANTES = Integer.getInteger("farma.comprobantes.max", 200);
+
     /**
      * Obtiene el ID máximo (última venta registrada) desde la tabla {@code ventas}.
      *
      * @return el valor de MAX(id) o 0 si no hay registros o ocurre un error
+     * @deprecated con varias cajas registrando a la vez puede devolver la venta de
+     *             otro terminal; usar el id que retorna {@link #RegistrarVenta(Venta)}
+     *             o {@link #RegistrarVentaCompleta(Venta, List)}.
      */
+    @Deprecated
     public int IdVenta(){
         int id = 0;
         String sql = "SELECT MAX(id) FROM ventas";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
-            rs = ps.executeQuery();
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
             if (rs.next()) {
                 id = rs.getInt(1); // primera columna del SELECT
             }
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con (try-with-resources) para liberar recursos.
         return id;
     }
     
     /**
      * Inserta una venta en la tabla {@code ventas}.
      *
-     * @param v objeto Venta con cliente, vendedor, total y fecha
-     * @return el valor de {@code r} (actualmente no se asigna dentro del método)
+     * @param v objeto Venta con cliente, vendedor, total y fecha (si no trae
+     *          {@code fechaHora} se registra la hora actual)
+     * @return id generado para la venta (también se asigna en {@code v}), o 0 si falló
      */
     public int RegistrarVenta(Venta v){
-        String sql = "INSERT INTO ventas (cliente, vendedor, total, fecha) VALUES (?,?,?,?)";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar()) {
+            int id = insertarVenta(con, v);
+            v.setId(id);
+            return id;
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            return 0;
+        }
+    }
+
+    // INSERT de la cabecera; devuelve el id autoincremental que generó la BD.
+    private int insertarVenta(Connection con, Venta v) throws SQLException {
+        String sql = "INSERT INTO ventas (cliente, vendedor, total, fecha, fecha_hora, uuid) VALUES (?,?,?,?,?,?)";
+        if (v.getFechaHora() == null) {
+            v.setFechaHora(LocalDateTime.now());
+        }
+        if (v.getUuid() == null) {
+            v.setUuid(UUID.randomUUID().toString());
+        }
+        try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setInt(1, v.getCliente());
             ps.setString(2, v.getVendedor());
-            ps.setDouble(3, v.getTotal());
+            ps.setBigDecimal(3, Dinero.aDecimal(v.getTotalCentimos()));
             ps.setString(4, v.getFecha());
-            ps.execute(); // Ejecuta INSERT
-            // TODO: asignar 'r' con filas afectadas (ps.getUpdateCount()) o con el id generado si se requiere.
-        } catch (SQLException e) {
-            System.out.println(e.toString());
-        }finally{
-            try {
-                con.close(); // TODO: cerrar también ps
-            } catch (SQLException e) {
-                System.out.println(e.toString());
+            ps.setTimestamp(5, Timestamp.valueOf(v.getFechaHora()));
+            ps.setString(6, v.getUuid());
+            ps.executeUpdate(); // Ejecuta INSERT
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         }
-        return r;
+        throw new SQLException("No se obtuvo el id de la venta registrada");
     }
     
     /**
      * Inserta un detalle de venta en la tabla {@code detalle}.
      *
-     * @param Dv objeto Detalle con id_pro, cantidad, precio e id de venta
+     * @param Dv objeto Detalle con id_pro, cantidad, precio e id_venta (el id que
+     *           devolvió {@link #RegistrarVenta(Venta)})
      * @return el valor de {@code r} (actualmente no se asigna dentro del método)
      */
     public int RegistrarDetalle(Detalle Dv){
        String sql = "INSERT INTO detalle (id_pro, cantidad, precio, id_venta) VALUES (?,?,?,?)";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, Dv.getId_pro());
             ps.setInt(2, Dv.getCantidad());
-            ps.setDouble(3, Dv.getPrecio());
-            ps.setInt(4, Dv.getId()); // Nota: aquí se usa Dv.getId() en lugar de getId_venta(). <!-- TODO: confirmar intención -->
+            ps.setBigDecimal(3, Dinero.aDecimal(Dv.getPrecioCentimos()));
+            ps.setInt(4, Dv.getId_venta());
             ps.execute();
             // TODO: asignar 'r' con filas afectadas si se necesita un retorno útil.
         } catch (SQLException e) {
             System.out.println(e.toString());
-        }finally{
-            try {
-                con.close(); // TODO: cerrar también ps
-            } catch (SQLException e) {
-                System.out.println(e.toString());
-            }
         }
         return r;
     }
@@ -138,12 +165,15 @@ public class VentaDao {
      * @param cant nuevo stock a establecer
      * @param id   identificador del producto
      * @return true si se ejecutó el UPDATE; false si ocurrió un error
+     * @deprecated escribe un valor absoluto calculado fuera de la BD; dos cajas que
+     *             venden el mismo producto a la vez pueden pisarse. Usar
+     *             {@link #RegistrarVentaCompleta(Venta, List)}, que descuenta de forma relativa.
      */
+    @Deprecated
     public boolean ActualizarStock(int cant, int id){
         String sql = "UPDATE productos SET stock = ? WHERE id = ?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1,cant);
             ps.setInt(2, id);
             ps.execute();
@@ -152,37 +182,468 @@ public class VentaDao {
             System.out.println(e.toString());
             return false;
         }
-        // TODO: cerrar ps y con.
     }
-    
+
+    /**
+     * Registra una venta completa (cabecera, detalles y descuento de stock) en una
+     * sola transacción y sobre una sola conexión.
+     * <p>Los detalles se insertan con un solo {@code INSERT} de varias filas
+     * (un viaje a la BD sin importar las líneas). El descuento de stock va como
+     * lote JDBC: necesita el conteo de filas de cada línea para detectar
+     * faltantes, y sin {@code rewriteBatchedStatements} (que el pool no usa) el
+     * driver manda una sentencia por línea. Ese lote es lo único que crece con
+     * las líneas de la venta. Si algo falla se hace rollback y no queda nada
+     * registrado.</p>
+     *
+     * <p>El stock se descuenta con {@code stock = stock - ? WHERE id = ? AND stock >= ?}:
+     * la BD resuelve la resta bajo el bloqueo de la fila, sin leer y reescribir desde
+     * Java. Si alguna línea no encuentra stock suficiente (0 filas afectadas) se revierte
+     * toda la venta y el resultado informa qué líneas faltaron.</p>
+     *
+     * <p>En la misma transacción se suma la venta a los resúmenes diarios
+     * ({@link Resumenes}) que leen los reportes.</p>
+     *
+     * <p>Si no hay conexión (o se pierde a mitad de la transacción) la venta se
+     * guarda en {@link DiarioVentas} y el resultado lo indica con
+     * {@link ResultadoVenta#isEnDiario()}. Mientras la BD siga caída las ventas
+     * siguientes van directo al diario, sin esperar a que falle la conexión.</p>
+     *
+     * @param v        cabecera de la venta (cliente, vendedor, total y fecha)
+     * @param detalles líneas de la venta (id_pro, cantidad y precio)
+     * @return resultado con el id registrado, con los faltantes si se revirtió,
+     *         o marcado como guardado en el diario (sin nada de eso si ocurrió un error)
+     */
+    public ResultadoVenta RegistrarVentaCompleta(Venta v, List<Detalle> detalles){
+        ResultadoVenta resultado = new ResultadoVenta();
+        DiarioVentas diario = DiarioVentas.getInstancia();
+        if (v.getFechaHora() == null) {
+            v.setFechaHora(LocalDateTime.now());
+        }
+        // Se asigna antes de intentar: si la conexión cae tras el commit, el
+        // reenvío desde el diario reconoce la venta y no la duplica.
+        if (v.getUuid() == null) {
+            v.setUuid(UUID.randomUUID().toString());
+        }
+        if (diario.isSinConexion()) {
+            return guardarEnDiario(v, detalles, resultado);
+        }
+        String sqlStock = "UPDATE productos SET stock = stock - ? WHERE id = ? AND stock >= ?";
+        // Se descuenta en orden de id para que dos cajas bloqueen las filas en el mismo
+        // orden y no se produzcan interbloqueos.
+        List<Detalle> ordenados = new ArrayList<>(detalles);
+        ordenados.sort((a, b) -> Integer.compare(a.getId_pro(), b.getId_pro()));
+        // Solo una falla de conexión (clase 08) pasa al diario; con el pool
+        // agotado la BD responde y la venta se informa como error, sin dejar la
+        // caja fuera de línea.
+        try (Connection con = cn.prestar()) {
+            con.setAutoCommit(false);
+            try {
+                List<Detalle> cortos = new ArrayList<>();
+                try (PreparedStatement ps = con.prepareStatement(sqlStock)) {
+                    for (Detalle d : ordenados) {
+                        ps.setInt(1, d.getCantidad());
+                        ps.setInt(2, d.getId_pro());
+                        ps.setInt(3, d.getCantidad());
+                        ps.addBatch();
+                    }
+                    int[] filas = ps.executeBatch();
+                    for (int i = 0; i < filas.length; i++) {
+                        if (filas[i] == 0) {
+                            cortos.add(ordenados.get(i));
+                        }
+                    }
+                }
+                if (!cortos.isEmpty()) {
+                    con.rollback();
+                    buscarFaltantes(con, cortos, resultado);
+                    return resultado;
+                }
+                int id = insertarVenta(con, v);
+                Cambios.anotar(con, Cambios.PRODUCTOS, idsProductos(ordenados), Cambios.STOCK);
+                insertarDetalles(con, detalles, id);
+                Resumenes.sumarVenta(con, v, detalles);
+                con.commit();
+                v.setId(id);
+                resultado.setIdVenta(id);
+                for (Detalle d : detalles) {
+                    catalogo.descontarStock(d.getId_pro(), d.getCantidad());
+                }
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            if (esFallaDeConexion(e)) {
+                diario.marcarSinConexion();
+                return guardarEnDiario(v, detalles, resultado);
+            }
+        }
+        return resultado;
+    }
+
+    // Sin BD: la venta queda en el diario local y el stock se descuenta solo en la caché.
+    private ResultadoVenta guardarEnDiario(Venta v, List<Detalle> detalles, ResultadoVenta resultado) {
+        try {
+            DiarioVentas.getInstancia().anotar(v, detalles);
+            resultado.setEnDiario(true);
+            for (Detalle d : detalles) {
+                catalogo.descontarStock(d.getId_pro(), d.getCantidad());
+            }
+        } catch (IOException e) {
+            System.out.println(e.toString());
+        }
+        return resultado;
+    }
+
+    /**
+     * Indica si el error se debe a la conexión (BD caída, red cortada) y no
+     * a los datos. Son los casos en que la venta se guarda en el diario.
+     *
+     * @param e error de JDBC
+     * @return true si el SQLState es de conexión (clase 08)
+     */
+    static boolean esFallaDeConexion(SQLException e) {
+        String estado = e.getSQLState();
+        return estado != null && estado.startsWith("08");
+    }
+
+    /**
+     * Indica si el error es momentáneo: interbloqueo (1213, SQLState
+     * {@code 40001}), espera de bloqueo vencida (1205) o pool agotado. La
+     * misma operación puede salir bien si se reintenta más tarde.
+     *
+     * @param e error de JDBC
+     * @return true si conviene reintentar en lugar de dar la operación por fallida
+     */
+    static boolean esTransitorio(SQLException e) {
+        String estado = e.getSQLState();
+        return e.getErrorCode() == INTERBLOQUEO || e.getErrorCode() == ESPERA_BLOQUEO
+                || (estado != null && (estado.startsWith("40") || estado.equals(PoolConexiones.AGOTADO)));
+    }
+
+    /**
+     * Registra una venta leída del diario, en una transacción sobre la conexión dada.
+     * <p>Si ya existe una venta con el mismo uuid no hace nada. El stock se
+     * descuenta sin exigir que alcance: la mercadería ya se entregó, así que un
+     * stock negativo solo avisa que hay que revisar el inventario.</p>
+     *
+     * @param con      conexión abierta (en autocommit)
+     * @param v        cabecera con uuid
+     * @param detalles líneas de la venta
+     * @return id de la venta registrada, o 0 si ya estaba registrada
+     * @throws SQLException si falla la BD; la transacción se revierte
+     */
+    int reenviar(Connection con, Venta v, List<Detalle> detalles) throws SQLException {
+        String sqlExiste = "SELECT id FROM ventas WHERE uuid = ?";
+        String sqlStock = "UPDATE productos SET stock = stock - ? WHERE id = ?";
+        try (PreparedStatement ps = con.prepareStatement(sqlExiste)) {
+            ps.setString(1, v.getUuid());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return 0;
+                }
+            }
+        }
+        List<Detalle> ordenados = new ArrayList<>(detalles);
+        ordenados.sort((a, b) -> Integer.compare(a.getId_pro(), b.getId_pro()));
+        con.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = con.prepareStatement(sqlStock)) {
+                for (Detalle d : ordenados) {
+                    ps.setInt(1, d.getCantidad());
+                    ps.setInt(2, d.getId_pro());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            int id = insertarVenta(con, v);
+            Cambios.anotar(con, Cambios.PRODUCTOS, idsProductos(ordenados), Cambios.STOCK);
+            insertarDetalles(con, detalles, id);
+            // Al día de la venta, no al del reenvío.
+            Resumenes.sumarVenta(con, v, detalles);
+            con.commit();
+            v.setId(id);
+            return id;
+        } catch (SQLException e) {
+            con.rollback();
+            // Otra caja la registró entre la consulta y el INSERT.
+            if (e.getErrorCode() == CLAVE_DUPLICADA) {
+                return 0;
+            }
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    // Todas las líneas en un solo INSERT de varias filas; asigna id_venta a cada detalle.
+    private static void insertarDetalles(Connection con, List<Detalle> detalles, int id) throws SQLException {
+        if (detalles.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO detalle (id_pro, cantidad, precio, id_venta) VALUES ");
+        for (int i = 0; i < detalles.size(); i++) {
+            sql.append(i == 0 ? "(?,?,?,?)" : ",(?,?,?,?)");
+        }
+        try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
+            int c = 1;
+            for (Detalle d : detalles) {
+                d.setId_venta(id);
+                ps.setInt(c++, d.getId_pro());
+                ps.setInt(c++, d.getCantidad());
+                ps.setBigDecimal(c++, Dinero.aDecimal(d.getPrecioCentimos()));
+                ps.setInt(c++, id);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    // Ids de producto de las líneas, sin repetir (para la tabla cambios).
+    private static Set<Integer> idsProductos(List<Detalle> detalles) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Detalle d : detalles) {
+            ids.add(d.getId_pro());
+        }
+        return ids;
+    }
+
+    // Solo en el camino de error: lee nombre y stock actual de las líneas que no alcanzaron.
+    private void buscarFaltantes(Connection con, List<Detalle> cortos, ResultadoVenta resultado) throws SQLException {
+        String sql = "SELECT nombre, stock FROM productos WHERE id = ?";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (Detalle d : cortos) {
+                ps.setInt(1, d.getId_pro());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        catalogo.actualizarStock(d.getId_pro(), rs.getInt("stock"));
+                        resultado.getFaltantes().add(new ResultadoVenta.Faltante(d.getId_pro(),
+                                rs.getString("nombre"), d.getCantidad(), rs.getInt("stock")));
+                    } else {
+                        resultado.getFaltantes().add(new ResultadoVenta.Faltante(d.getId_pro(),
+                                "Producto " + d.getId_pro(), d.getCantidad(), 0));
+                    }
+                }
+            }
+        }
+        con.commit();
+    }
+
     /**
      * Lista las ventas con datos del cliente (JOIN contra {@code clientes}).
      *
      * @return lista de ventas; si falla, devuelve una lista (posiblemente vacía)
      */
-    public List Listarventas(){
-       List<Venta> ListaVenta = new ArrayList(); // TODO: tipar también la firma como List<Venta>
+    public List<Venta> Listarventas(){
+       List<Venta> ListaVenta = new ArrayList<>();
        String sql = "SELECT c.id AS id_cli, c.nombre, v.* FROM clientes c INNER JOIN ventas v ON c.id = v.cliente";
-       try {
-           con = cn.getConnection();
-           ps = con.prepareStatement(sql);
-           rs = ps.executeQuery();
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
            while (rs.next()) {
-               // Mapeo de fila a objeto Venta (campos seleccionados)
-               Venta vent = new Venta();
-               vent.setId(rs.getInt("id"));
-               vent.setNombre_cli(rs.getString("nombre"));
-               vent.setVendedor(rs.getString("vendedor"));
-               vent.setTotal(rs.getDouble("total"));
-               ListaVenta.add(vent);
+               ListaVenta.add(mapearVenta(rs));
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaVenta;
+   }
+
+    /**
+     * Cuenta las ventas registradas.
+     *
+     * @return total de ventas; 0 si ocurrió un error
+     */
+    public int ContarVentas(){
+       String sql = "SELECT COUNT(*) FROM ventas";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery()) {
+           if (rs.next()) {
+               return rs.getInt(1);
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return 0;
+   }
+
+    /**
+     * Lista una página de ventas con el nombre del cliente, ordenadas por id.
+     *
+     * @param desde    posición de la primera fila (0 = primera)
+     * @param cantidad filas a traer como máximo
+     * @return ventas de la página; si falla, lista vacía
+     */
+    public List<Venta> PaginaVentas(int desde, int cantidad){
+       List<Venta> ListaVenta = new ArrayList<>();
+       String sql = "SELECT c.id AS id_cli, c.nombre, v.* FROM clientes c INNER JOIN ventas v ON c.id = v.cliente ORDER BY v.id LIMIT ? OFFSET ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, cantidad);
+           ps.setInt(2, desde);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaVenta.add(mapearVenta(rs));
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaVenta;
+   }
+
+    /**
+     * Lista las ventas con id mayor que {@code ultimoId}, con el nombre del
+     * cliente, ordenadas por id.
+     * <p>Paginación por clave sobre el id. Se usa el id y no la fecha porque
+     * {@code ventas.fecha} es texto dd/MM/yyyy y no ordena cronológicamente; el id
+     * crece en el mismo orden en que se registran las ventas.</p>
+     *
+     * @param ultimoId id de la última fila de la página anterior; 0 para la primera página
+     * @param limite   filas a traer como máximo
+     * @return ventas de la página; si falla, lista vacía
+     */
+    public List<Venta> Listarventas(int ultimoId, int limite){
+       List<Venta> ListaVenta = new ArrayList<>();
+       String sql = "SELECT c.id AS id_cli, c.nombre, v.* FROM clientes c INNER JOIN ventas v ON c.id = v.cliente WHERE v.id > ? ORDER BY v.id LIMIT ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setInt(1, ultimoId);
+           ps.setInt(2, limite);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaVenta.add(mapearVenta(rs));
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaVenta;
+   }
+
+    /**
+     * Lista las ventas con {@code desde <= fecha_hora < hasta}, con el nombre
+     * del cliente, en orden cronológico.
+     * <p>Usa el índice {@code idx_ventas_fecha_hora}: la BD recorre solo el rango
+     * pedido en vez de leer toda la tabla, así un reporte de varios meses no
+     * depende del tamaño del historial.</p>
+     *
+     * @param desde inicio del rango (incluido)
+     * @param hasta fin del rango (excluido)
+     * @return ventas del rango; si falla, lista vacía
+     */
+    public List<Venta> ListarVentasEntre(LocalDateTime desde, LocalDateTime hasta){
+       List<Venta> ListaVenta = new ArrayList<>();
+       String sql = "SELECT c.id AS id_cli, c.nombre, v.* FROM ventas v INNER JOIN clientes c ON c.id = v.cliente"
+               + " WHERE v.fecha_hora >= ? AND v.fecha_hora < ? ORDER BY v.fecha_hora, v.id";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setTimestamp(1, Timestamp.valueOf(desde));
+           ps.setTimestamp(2, Timestamp.valueOf(hasta));
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaVenta.add(mapearVenta(rs));
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return ListaVenta;
+   }
+
+    /**
+     * Página de ventas del rango {@code [desde, hasta)} que siguen a la venta
+     * {@code ultima}, en orden cronológico.
+     * <p>Paginación por clave sobre {@code (fecha_hora, id)}: el índice de
+     * {@code fecha_hora} incluye la clave primaria, así que cada página es un
+     * tramo del índice sin {@code OFFSET}.</p>
+     *
+     * @param desde  inicio del rango (incluido)
+     * @param hasta  fin del rango (excluido)
+     * @param ultima última venta de la página anterior; {@code null} para la primera página
+     * @param limite filas a traer como máximo
+     * @return ventas de la página; si falla, lista vacía
+     */
+    public List<Venta> ListarVentasEntre(LocalDateTime desde, LocalDateTime hasta, Venta ultima, int limite){
+       if (ultima == null) {
+           return paginaRango(desde, hasta, null, 0, limite);
+       }
+       return paginaRango(desde, hasta, ultima.getFechaHora(), ultima.getId(), limite);
+   }
+
+    /**
+     * Cuenta las ventas con {@code desde <= fecha_hora < hasta}.
+     *
+     * @param desde inicio del rango (incluido)
+     * @param hasta fin del rango (excluido)
+     * @return cantidad de ventas; 0 si ocurrió un error
+     */
+    public int ContarVentasEntre(LocalDateTime desde, LocalDateTime hasta){
+       String sql = "SELECT COUNT(*) FROM ventas WHERE fecha_hora >= ? AND fecha_hora < ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           ps.setTimestamp(1, Timestamp.valueOf(desde));
+           ps.setTimestamp(2, Timestamp.valueOf(hasta));
+           try (ResultSet rs = ps.executeQuery()) {
+               if (rs.next()) {
+                   return rs.getInt(1);
+               }
+           }
+       } catch (SQLException e) {
+           System.out.println(e.toString());
+       }
+       return 0;
+   }
+
+    private List<Venta> paginaRango(LocalDateTime desde, LocalDateTime hasta,
+            LocalDateTime ultimaFecha, int ultimoId, int limite){
+       List<Venta> ListaVenta = new ArrayList<>();
+       String sql = "SELECT c.id AS id_cli, c.nombre, v.* FROM ventas v INNER JOIN clientes c ON c.id = v.cliente"
+               + " WHERE v.fecha_hora >= ? AND v.fecha_hora < ?"
+               + (ultimaFecha == null ? "" : " AND (v.fecha_hora > ? OR (v.fecha_hora = ? AND v.id > ?))")
+               + " ORDER BY v.fecha_hora, v.id LIMIT ?";
+       try (Connection con = cn.prestar();
+            PreparedStatement ps = con.prepareStatement(sql)) {
+           int i = 1;
+           ps.setTimestamp(i++, Timestamp.valueOf(desde));
+           ps.setTimestamp(i++, Timestamp.valueOf(hasta));
+           if (ultimaFecha != null) {
+               Timestamp cursor = Timestamp.valueOf(ultimaFecha);
+               ps.setTimestamp(i++, cursor);
+               ps.setTimestamp(i++, cursor);
+               ps.setInt(i++, ultimoId);
+           }
+           ps.setInt(i, limite);
+           try (ResultSet rs = ps.executeQuery()) {
+               while (rs.next()) {
+                   ListaVenta.add(mapearVenta(rs));
+               }
            }
        } catch (SQLException e) {
            System.out.println(e.toString());
        }
-       // TODO: cerrar rs, ps y con.
        return ListaVenta;
    }
 
+    // Mapeo de fila a objeto Venta (campos seleccionados)
+    private Venta mapearVenta(ResultSet rs) throws SQLException {
+        Venta vent = new Venta();
+        vent.setId(rs.getInt("id"));
+        vent.setNombre_cli(rs.getString("nombre"));
+        vent.setVendedor(rs.getString("vendedor"));
+        vent.setTotalCentimos(Dinero.deDecimal(rs.getBigDecimal("total")));
+        vent.setFecha(rs.getString("fecha"));
+        vent.setFechaHora(fechaHora(rs));
+        return vent;
+    }
+
+    // fecha_hora puede ser NULL en filas sin migrar.
+    private static LocalDateTime fechaHora(ResultSet rs) throws SQLException {
+        Timestamp ts = rs.getTimestamp("fecha_hora");
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
     /**
      * Busca una venta por su ID.
      *
@@ -192,48 +653,79 @@ public class VentaDao {
     public Venta BuscarVenta(int id){
         Venta cl = new Venta();
         String sql = "SELECT * FROM ventas WHERE id = ?";
-        try {
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
+        try (Connection con = cn.prestar();
+             PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, id);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                cl.setId(rs.getInt("id"));
-                cl.setCliente(rs.getInt("cliente"));
-                cl.setTotal(rs.getDouble("total"));
-                cl.setVendedor(rs.getString("vendedor"));
-                cl.setFecha(rs.getString("fecha"));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    cl.setId(rs.getInt("id"));
+                    cl.setCliente(rs.getInt("cliente"));
+                    cl.setTotalCentimos(Dinero.deDecimal(rs.getBigDecimal("total")));
+                    cl.setVendedor(rs.getString("vendedor"));
+                    cl.setFecha(rs.getString("fecha"));
+                    cl.setFechaHora(fechaHora(rs));
+                }
             }
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
-        // TODO: cerrar rs, ps y con.
         return cl;
     }
 
     /**
      * Genera un comprobante PDF de la venta y lo abre con el visor predeterminado.
+     * <p>Bloquea hasta terminar; en la caja se usa {@link ColaComprobantes} para
+     * generarlo en segundo plano.</p>
      *
      * @param idventa id de la venta
      * @param Cliente id del cliente (para extraer sus datos)
-     * @param total   monto total de la venta
+     * @param total   monto total de la venta, en céntimos
      * @param usuario nombre del vendedor/usuario que emite
      */
-    public void pdfV(int idventa, int Cliente, double total, String usuario) {
+    public void pdfV(int idventa, int Cliente, long total, String usuario) {
         try {
+            File salida = generarPdf(idventa, Cliente, total, usuario);
+            Desktop.getDesktop().open(salida); // Puede fallar en entornos sin GUI. <!-- TODO -->
+        } catch (DocumentException | IOException | SQLException e) {
+            System.out.println(e.toString());
+        }
+    }
+
+    /**
+     * Genera el comprobante PDF de la venta ({@code venta_<id>.pdf}) sin abrirlo.
+     * <p>Se escribe en {@code -Dfarma.comprobantes.dir} (por defecto
+     * {@code ~/.farmacia/comprobantes}); es solo para imprimir o mostrar, así
+     * que se conservan los últimos {@code farma.comprobantes.max} (por defecto
+     * 200) y los más viejos se borran. El comprobante se puede volver a generar
+     * desde la venta.</p>
+     *
+     * @param idventa id de la venta
+     * @param Cliente id del cliente (para extraer sus datos)
+     * @param total   monto total de la venta, en céntimos
+     * @param usuario nombre del vendedor/usuario que emite
+     * @return archivo generado
+     * @throws DocumentException si iText no pudo construir el documento
+     * @throws IOException       si no se pudo escribir el archivo o leer el logo
+     * @throws SQLException      si fallaron las consultas de empresa, cliente o detalle
+     */
+    public File generarPdf(int idventa, int Cliente, long total, String usuario)
+            throws DocumentException, IOException, SQLException {
+        if (!COMPROBANTES.isDirectory() && !COMPROBANTES.mkdirs()) {
+            throw new IOException("No se pudo crear la carpeta de comprobantes: " + COMPROBANTES);
+        }
+        // Un archivo por venta: varios comprobantes pueden generarse a la vez.
+        File salida = new File(COMPROBANTES, "venta_" + idventa + ".pdf");
+        try (Connection con = cn.prestar();
+             FileOutputStream archivo = new FileOutputStream(salida)) {
             Date date = new Date();
-            FileOutputStream archivo;
-            String url = FileSystemView.getFileSystemView().getDefaultDirectory().getPath();
-            File salida = new File(url + "venta.pdf"); // TODO: considerar url + File.separator + "venta.pdf"
-            archivo = new FileOutputStream(salida);
             Document doc = new Document();
             PdfWriter.getInstance(doc, archivo);
             doc.open();
-            Image img = Image.getInstance(getClass().getResource("/Img/logo_pdf.jpg")); // Requiere que el recurso exista en el classpath
+            // Logo, fuentes, títulos y datos de la empresa ya preparados.
+            PlantillaComprobante plantilla = PlantillaComprobante.obtener();
 
             // Sección: Fecha y cabecera
             Paragraph fecha = new Paragraph();
-            Font negrita = new Font(Font.FontFamily.TIMES_ROMAN, 12, Font.BOLD, BaseColor.GREEN);
             fecha.add(Chunk.NEWLINE);
             fecha.add("Vendedor: " + usuario + "\nFolio: " + idventa + "\nFecha: "
                     + new SimpleDateFormat("dd/MM/yyyy").format(date) + "\n\n");
@@ -241,27 +733,15 @@ public class VentaDao {
             PdfPTable Encabezado = new PdfPTable(4);
             Encabezado.setWidthPercentage(100);
             Encabezado.getDefaultCell().setBorder(0);
-            float[] columnWidthsEncabezado = new float[]{20f, 30f, 70f, 40f};
-            Encabezado.setWidths(columnWidthsEncabezado);
+            Encabezado.setWidths(PlantillaComprobante.ANCHOS_ENCABEZADO);
             Encabezado.setHorizontalAlignment(Element.ALIGN_LEFT);
-            Encabezado.addCell(img);
+            Encabezado.addCell(plantilla.getLogo());
             Encabezado.addCell("");
 
-            // Info empresa (tabla config)
-            String config = "SELECT * FROM config";
-            String mensaje = "";
-            try {
-                con = cn.getConnection();
-                ps = con.prepareStatement(config);
-                rs = ps.executeQuery();
-                if (rs.next()) {
-                    mensaje = rs.getString("mensaje");
-                    Encabezado.addCell("Ruc:    " + rs.getString("ruc") + "\nNombre: " + rs.getString("nombre") + "\nTeléfono: " + rs.getString("telefono") + "\nDirección: " + rs.getString("direccion") + "\n\n");
-                }
-            } catch (SQLException e) {
-                System.out.println(e.toString());
+            // Info empresa (tabla config, en caché)
+            if (plantilla.getEmpresa() != null) {
+                Encabezado.addCell(plantilla.getEmpresa());
             }
-            //
             Encabezado.addCell(fecha);
             doc.add(Encabezado);
 
@@ -274,36 +754,27 @@ public class VentaDao {
             PdfPTable proveedor = new PdfPTable(3);
             proveedor.setWidthPercentage(100);
             proveedor.getDefaultCell().setBorder(0);
-            float[] columnWidthsCliente = new float[]{50f, 25f, 25f};
-            proveedor.setWidths(columnWidthsCliente);
+            proveedor.setWidths(PlantillaComprobante.ANCHOS_CLIENTE);
             proveedor.setHorizontalAlignment(Element.ALIGN_LEFT);
-            PdfPCell cliNom = new PdfPCell(new Phrase("Nombre", negrita));
-            PdfPCell cliTel = new PdfPCell(new Phrase("Télefono", negrita));
-            PdfPCell cliDir = new PdfPCell(new Phrase("Dirección", negrita));
-            cliNom.setBorder(Rectangle.NO_BORDER);
-            cliTel.setBorder(Rectangle.NO_BORDER);
-            cliDir.setBorder(Rectangle.NO_BORDER);
-            proveedor.addCell(cliNom);
-            proveedor.addCell(cliTel);
-            proveedor.addCell(cliDir);
+            for (PdfPCell titulo : plantilla.getTitulosCliente()) {
+                proveedor.addCell(titulo);
+            }
 
             String prove = "SELECT * FROM clientes WHERE id = ?";
-            try {
-                ps = con.prepareStatement(prove);
+            try (PreparedStatement ps = con.prepareStatement(prove)) {
                 ps.setInt(1, Cliente);
-                rs = ps.executeQuery();
-                if (rs.next()) {
-                    proveedor.addCell(rs.getString("nombre"));
-                    proveedor.addCell(rs.getString("telefono"));
-                    proveedor.addCell(rs.getString("direccion") + "\n\n");
-                } else {
-                    proveedor.addCell("Publico en General");
-                    proveedor.addCell("S/N");
-                    proveedor.addCell("S/N" + "\n\n");
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        proveedor.addCell(rs.getString("nombre"));
+                        proveedor.addCell(rs.getString("telefono"));
+                        proveedor.addCell(rs.getString("direccion") + "\n\n");
+                    } else {
+                        proveedor.addCell("Publico en General");
+                        proveedor.addCell("S/N");
+                        proveedor.addCell("S/N" + "\n\n");
+                    }
                 }
 
-            } catch (SQLException e) {
-                System.out.println(e.toString());
             }
             doc.add(proveedor);
 
@@ -311,48 +782,33 @@ public class VentaDao {
             PdfPTable tabla = new PdfPTable(4);
             tabla.setWidthPercentage(100);
             tabla.getDefaultCell().setBorder(0);
-            float[] columnWidths = new float[]{10f, 50f, 15f, 15f};
-            tabla.setWidths(columnWidths);
+            tabla.setWidths(PlantillaComprobante.ANCHOS_DETALLE);
             tabla.setHorizontalAlignment(Element.ALIGN_LEFT);
-            PdfPCell c1 = new PdfPCell(new Phrase("Cant.", negrita));
-            PdfPCell c2 = new PdfPCell(new Phrase("Descripción.", negrita));
-            PdfPCell c3 = new PdfPCell(new Phrase("P. unt.", negrita));
-            PdfPCell c4 = new PdfPCell(new Phrase("P. Total", negrita));
-            c1.setBorder(Rectangle.NO_BORDER);
-            c2.setBorder(Rectangle.NO_BORDER);
-            c3.setBorder(Rectangle.NO_BORDER);
-            c4.setBorder(Rectangle.NO_BORDER);
-            c1.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            c2.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            c3.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            c4.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            tabla.addCell(c1);
-            tabla.addCell(c2);
-            tabla.addCell(c3);
-            tabla.addCell(c4);
+            for (PdfPCell titulo : plantilla.getTitulosDetalle()) {
+                tabla.addCell(titulo);
+            }
 
             String product = "SELECT d.id, d.id_pro,d.id_venta, d.precio, d.cantidad, p.id, p.nombre FROM detalle d INNER JOIN productos p ON d.id_pro = p.id WHERE d.id_venta = ?";
-            try {
-                ps = con.prepareStatement(product);
+            try (PreparedStatement ps = con.prepareStatement(product)) {
                 ps.setInt(1, idventa);
-                rs = ps.executeQuery();
-                while (rs.next()) {
-                    double subTotal = rs.getInt("cantidad") * rs.getDouble("precio");
-                    tabla.addCell(rs.getString("cantidad"));
-                    tabla.addCell(rs.getString("nombre"));
-                    tabla.addCell(rs.getString("precio"));
-                    tabla.addCell(String.valueOf(subTotal));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long precio = Dinero.deDecimal(rs.getBigDecimal("precio"));
+                        long subTotal = Dinero.multiplicar(precio, rs.getInt("cantidad"));
+                        tabla.addCell(rs.getString("cantidad"));
+                        tabla.addCell(rs.getString("nombre"));
+                        tabla.addCell(Dinero.formatear(precio));
+                        tabla.addCell(Dinero.formatear(subTotal));
+                    }
                 }
 
-            } catch (SQLException e) {
-                System.out.println(e.toString());
             }
             doc.add(tabla);
 
             // Total
             Paragraph info = new Paragraph();
             info.add(Chunk.NEWLINE);
-            info.add("Total S/: " + total); // TODO: formatear moneda con NumberFormat según locale.
+            info.add("Total S/: " + Dinero.formatear(total));
             info.setAlignment(Element.ALIGN_RIGHT);
             doc.add(info);
 
@@ -368,18 +824,30 @@ public class VentaDao {
             // Mensaje final desde config
             Paragraph gr = new Paragraph();
             gr.add(Chunk.NEWLINE);
-            gr.add(mensaje);
+            gr.add(plantilla.getMensaje());
             gr.setAlignment(Element.ALIGN_CENTER);
             doc.add(gr);
 
             // Cierre y apertura del PDF
             doc.close();
-            archivo.close();
-            Desktop.getDesktop().open(salida); // Puede fallar en entornos sin GUI. <!-- TODO -->
-        } catch (DocumentException | IOException e) {
-            System.out.println(e.toString());
         }
-        // TODO: cerrar cualquier recurso de BD aún abierto (rs/ps/con) en esta rutina.
+        podarComprobantes();
+        return salida;
+    }
+
+    // Borra los comprobantes más viejos si hay más de MAX_COMPROBANTES (el recién generado es el más nuevo).
+    private static synchronized void podarComprobantes() {
+        File[] archivos = COMPROBANTES.listFiles((dir, nombre) -> nombre.startsWith("venta_") && nombre.endsWith(".pdf"));
+        if (archivos == null || archivos.length <= MAX_COMPROBANTES) {
+            return;
+        }
+        Arrays.sort(archivos, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < archivos.length - MAX_COMPROBANTES; i++) {
+            if (!archivos[i].delete()) {
+                // Puede estar abierto en el visor; se intenta en la próxima poda.
+                System.out.println("No se pudo borrar " + archivos[i]);
+            }
+        }
     }
 
     
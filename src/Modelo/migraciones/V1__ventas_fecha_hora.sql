@@ -0,0 +1,9 @@
+-- Fecha y hora de la venta como DATETIME indexado.
+-- ventas.fecha (texto dd/MM/yyyy) se conserva para el código existente;
+-- los reportes y búsquedas por rango usan fecha_hora.
+ALTER TABLE `ventas` ADD COLUMN `fecha_hora` DATETIME NULL AFTER `fecha`;
+
+-- Ventas anteriores: solo se conoce el día, quedan a las 00:00.
+UPDATE `ventas` SET `fecha_hora` = STR_TO_DATE(`fecha`, '%d/%m/%Y') WHERE `fecha_hora` IS NULL;
+
+ALTER TABLE `ventas` ADD KEY `idx_ventas_fecha_hora` (`fecha_hora`);
@@ -0,0 +1,11 @@
+-- Índices de las columnas por las que busca la aplicación.
+-- productos.codigo: BuscarPro y el catálogo de caja (un código = un producto).
+ALTER TABLE `productos` ADD UNIQUE KEY `uk_productos_codigo` (`codigo`);
+
+-- clientes.dni: Buscarcliente en la caja (un DNI = un cliente).
+ALTER TABLE `clientes` ADD UNIQUE KEY `uk_clientes_dni` (`dni`);
+
+-- Ya están en venta.sql; se repiten con el mismo nombre para BD creadas
+-- con volcados anteriores. Si existen, el error 1061 se ignora.
+ALTER TABLE `detalle` ADD KEY `id_venta` (`id_venta`);
+ALTER TABLE `ventas` ADD KEY `cliente` (`cliente`);
@@ -0,0 +1,6 @@
+-- Identificador de la venta generado en la caja (UUID).
+-- Las ventas guardadas en el diario local mientras la BD no respondía se
+-- reenvían al volver la conexión; la clave única impide registrarlas dos veces.
+-- Las ventas anteriores quedan con NULL (la clave única admite varios NULL).
+ALTER TABLE `ventas` ADD COLUMN `uuid` CHAR(36) NULL;
+ALTER TABLE `ventas` ADD UNIQUE KEY `uk_ventas_uuid` (`uuid`);
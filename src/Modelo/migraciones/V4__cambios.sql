@@ -0,0 +1,14 @@
+-- Registro de cambios para mantener al día las cachés de cada caja.
+-- Los DAO agregan una fila por producto, cliente o config modificado, en la
+-- misma transacción que el cambio; cada caja lee las filas nuevas por seq
+-- (ver Modelo.Cambios). origen identifica a la caja que hizo el cambio.
+CREATE TABLE IF NOT EXISTS `cambios` (
+  `seq` bigint(20) NOT NULL AUTO_INCREMENT,
+  `tabla` varchar(20) COLLATE utf8_spanish_ci NOT NULL,
+  `id_fila` int(11) NOT NULL,
+  `operacion` char(1) COLLATE utf8_spanish_ci NOT NULL,
+  `origen` char(36) COLLATE utf8_spanish_ci NOT NULL,
+  `fecha` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`seq`),
+  KEY `idx_cambios_fecha` (`fecha`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
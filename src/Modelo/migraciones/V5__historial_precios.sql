@@ -0,0 +1,24 @@
+-- Cambios de precio masivos (ver Modelo.PreciosDao).
+-- Cada aplicación de una regla es un lote; historial_precios guarda el precio
+-- anterior y el nuevo de cada producto tocado, para poder revertir el lote
+-- completo y para consultar la historia de precios de un producto.
+CREATE TABLE IF NOT EXISTS `lotes_precios` (
+  `id` int(11) NOT NULL AUTO_INCREMENT,
+  `descripcion` varchar(200) COLLATE utf8_spanish_ci NOT NULL,
+  `usuario` varchar(100) COLLATE utf8_spanish_ci NOT NULL,
+  `fecha` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `productos` int(11) NOT NULL DEFAULT 0,
+  `revertido` tinyint(1) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+CREATE TABLE IF NOT EXISTS `historial_precios` (
+  `id_lote` int(11) NOT NULL,
+  `id_pro` int(11) NOT NULL,
+  `precio_anterior` decimal(10,2) NOT NULL,
+  `precio_nuevo` decimal(10,2) NOT NULL,
+  PRIMARY KEY (`id_lote`, `id_pro`),
+  KEY `idx_historial_producto` (`id_pro`),
+  CONSTRAINT `historial_precios_ibfk_1` FOREIGN KEY (`id_lote`) REFERENCES `lotes_precios` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `historial_precios_ibfk_2` FOREIGN KEY (`id_pro`) REFERENCES `productos` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
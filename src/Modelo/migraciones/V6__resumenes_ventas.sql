@@ -0,0 +1,42 @@
+-- Resúmenes diarios de ventas para los reportes (ver Modelo.Resumenes).
+-- Cada venta suma su parte en la misma transacción en que se registra; los
+-- reportes leen una fila por día (y por producto o vendedor) en lugar de
+-- recorrer ventas y detalle.
+CREATE TABLE IF NOT EXISTS `resumen_dia` (
+  `dia` date NOT NULL,
+  `ventas` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL,
+  PRIMARY KEY (`dia`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+CREATE TABLE IF NOT EXISTS `resumen_producto_dia` (
+  `dia` date NOT NULL,
+  `id_pro` int(11) NOT NULL,
+  `cantidad` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL,
+  PRIMARY KEY (`dia`, `id_pro`),
+  KEY `idx_resumen_producto` (`id_pro`),
+  CONSTRAINT `resumen_producto_dia_ibfk_1` FOREIGN KEY (`id_pro`) REFERENCES `productos` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+CREATE TABLE IF NOT EXISTS `resumen_vendedor_dia` (
+  `dia` date NOT NULL,
+  `vendedor` varchar(60) COLLATE utf8_spanish_ci NOT NULL,
+  `ventas` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL,
+  PRIMARY KEY (`dia`, `vendedor`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+-- Carga inicial con las ventas existentes. REPLACE: se puede repetir.
+REPLACE INTO `resumen_dia` (`dia`, `ventas`, `total`)
+SELECT DATE(`fecha_hora`), COUNT(*), SUM(`total`) FROM `ventas`
+WHERE `fecha_hora` IS NOT NULL GROUP BY DATE(`fecha_hora`);
+
+REPLACE INTO `resumen_producto_dia` (`dia`, `id_pro`, `cantidad`, `total`)
+SELECT DATE(v.`fecha_hora`), d.`id_pro`, SUM(d.`cantidad`), SUM(d.`cantidad` * d.`precio`)
+FROM `ventas` v INNER JOIN `detalle` d ON d.`id_venta` = v.`id`
+WHERE v.`fecha_hora` IS NOT NULL GROUP BY DATE(v.`fecha_hora`), d.`id_pro`;
+
+REPLACE INTO `resumen_vendedor_dia` (`dia`, `vendedor`, `ventas`, `total`)
+SELECT DATE(`fecha_hora`), `vendedor`, COUNT(*), SUM(`total`) FROM `ventas`
+WHERE `fecha_hora` IS NOT NULL GROUP BY DATE(`fecha_hora`), `vendedor`;
@@ -0,0 +1,263 @@
+package Reportes;
+
+import Modelo.Conexion;
+import Modelo.Dinero;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Exporta las líneas de venta de un rango de fechas a CSV o Excel (XLSX) para
+ * contabilidad.
+ * <p>Las filas ({@code ventas} + {@code detalle} + {@code productos}) se leen
+ * con un cursor de solo avance en modo streaming de MySQL
+ * ({@code setFetchSize(Integer.MIN_VALUE)}): el driver entrega una fila a la vez
+ * en lugar de cargar todo el resultado, y cada fila se escribe al archivo y se
+ * descarta. La memoria no depende de cuántas filas tenga la exportación.</p>
+ *
+ * <p>Usa una conexión propia ({@link Conexion#abrirDedicada()}) y no una del
+ * pool: una exportación larga la tendría prestada más de lo que el pool
+ * considera una fuga, y le quitaría una conexión a las cajas.</p>
+ *
+ * <p>Antes se cuenta el total para poder informar el avance. Si el hilo se
+ * interrumpe (por ejemplo al cancelar la tarea) la exportación se corta y el
+ * archivo a medias se borra.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public final class ExportarVentas {
+
+    /**
+     * Recibe el avance de una exportación, desde el hilo que exporta.
+     */
+    public interface Progreso {
+        /**
+         * @param filas filas escritas hasta ahora
+         * @param total filas a escribir
+         */
+        void avance(long filas, long total);
+    }
+
+    /** Columnas del archivo. */
+    static final String[] COLUMNAS = {"Venta", "Fecha y hora", "Vendedor", "Cliente", "Código",
+        "Producto", "Cantidad", "Precio", "Subtotal"};
+
+    // Cada cuántas filas se informa el avance y se revisa si se canceló.
+    private static final int AVISO = 10000;
+
+    private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String CONTAR = "SELECT COUNT(*) FROM ventas v INNER JOIN detalle d ON d.id_venta = v.id "
+            + "WHERE v.fecha_hora >= ? AND v.fecha_hora < ?";
+    private static final String LINEAS = "SELECT v.id, v.fecha_hora, v.vendedor, c.nombre AS cliente, "
+            + "p.codigo, p.nombre, d.cantidad, d.precio FROM ventas v "
+            + "INNER JOIN detalle d ON d.id_venta = v.id "
+            + "INNER JOIN productos p ON p.id = d.id_pro "
+            + "LEFT JOIN clientes c ON c.id = v.cliente "
+            + "WHERE v.fecha_hora >= ? AND v.fecha_hora < ? ORDER BY v.fecha_hora, v.id, d.id";
+
+    private ExportarVentas() {
+    }
+
+    /**
+     * Exporta las líneas de venta del rango. El formato se elige por la
+     * extensión: {@code .xlsx} para Excel, cualquier otra para CSV.
+     *
+     * @param archivo  archivo de destino (se reemplaza si existe)
+     * @param desde    inicio del rango (incluido)
+     * @param hasta    fin del rango (excluido)
+     * @param progreso recibe el avance; puede ser {@code null}
+     * @return filas exportadas
+     * @throws SQLException si falla la consulta
+     * @throws IOException  si no se pudo escribir el archivo o se canceló
+     *                      ({@link InterruptedIOException})
+     */
+    public static long Exportar(File archivo, LocalDateTime desde, LocalDateTime hasta, Progreso progreso)
+            throws SQLException, IOException {
+        boolean ok = false;
+        // El archivo va aparte: si el constructor de la salida falla, igual se cierra.
+        try (OutputStream destino = new FileOutputStream(archivo);
+             Salida salida = archivo.getName().toLowerCase().endsWith(".xlsx")
+                ? new LibroXlsx(destino, "Ventas", COLUMNAS)
+                : new Csv(destino, COLUMNAS)) {
+            long filas = escribir(salida, desde, hasta, progreso);
+            ok = true;
+            return filas;
+        } finally {
+            if (!ok && archivo.exists() && !archivo.delete()) {
+                System.out.println("No se pudo borrar la exportación incompleta " + archivo);
+            }
+        }
+    }
+
+    private static long escribir(Salida salida, LocalDateTime desde, LocalDateTime hasta, Progreso progreso)
+            throws SQLException, IOException {
+        Timestamp inicio = Timestamp.valueOf(desde);
+        Timestamp fin = Timestamp.valueOf(hasta);
+        try (Connection con = Conexion.abrirDedicada()) {
+            long total = 0;
+            try (PreparedStatement ps = con.prepareStatement(CONTAR)) {
+                ps.setTimestamp(1, inicio);
+                ps.setTimestamp(2, fin);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        total = rs.getLong(1);
+                    }
+                }
+            }
+            avisar(progreso, 0, total);
+            try (PreparedStatement ps = con.prepareStatement(LINEAS, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                // Streaming: Connector/J lee de a una fila en vez de cargar el resultado completo.
+                ps.setFetchSize(Integer.MIN_VALUE);
+                ps.setTimestamp(1, inicio);
+                ps.setTimestamp(2, fin);
+                long filas = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Timestamp fecha = rs.getTimestamp(2);
+                        int cantidad = rs.getInt(7);
+                        long precio = Dinero.deDecimal(rs.getBigDecimal(8));
+                        salida.entero(rs.getInt(1));
+                        salida.fechaHora(fecha == null ? null : fecha.toLocalDateTime());
+                        salida.texto(rs.getString(3));
+                        salida.texto(rs.getString(4));
+                        salida.texto(rs.getString(5));
+                        salida.texto(rs.getString(6));
+                        salida.entero(cantidad);
+                        salida.importe(precio);
+                        salida.importe(Dinero.multiplicar(precio, cantidad));
+                        salida.finFila();
+                        if (++filas % AVISO == 0) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                // Cerrar un resultado en streaming lee lo que falta; se corta la consulta.
+                                ps.cancel();
+                                throw new InterruptedIOException("Exportación cancelada");
+                            }
+                            avisar(progreso, filas, total);
+                        }
+                    }
+                }
+                avisar(progreso, filas, Math.max(total, filas));
+                return filas;
+            }
+        }
+    }
+
+    private static void avisar(Progreso progreso, long filas, long total) {
+        if (progreso != null) {
+            progreso.avance(filas, total);
+        }
+    }
+
+    /**
+     * Destino de las filas, celda por celda, sin guardar filas en memoria.
+     */
+    interface Salida extends Closeable {
+        void texto(String valor) throws IOException;
+
+        void entero(long valor) throws IOException;
+
+        /** @param centimos importe en céntimos */
+        void importe(long centimos) throws IOException;
+
+        void fechaHora(LocalDateTime valor) throws IOException;
+
+        void finFila() throws IOException;
+    }
+
+    /**
+     * CSV (RFC 4180) en UTF-8 con BOM, para que Excel reconozca los acentos.
+     */
+    static final class Csv implements Salida {
+        private final Writer out;
+        private boolean primera = true;
+
+        Csv(OutputStream destino, String[] columnas) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 1 << 16);
+            out.write('\uFEFF');
+            for (String c : columnas) {
+                texto(c);
+            }
+            finFila();
+        }
+
+        private void separador() throws IOException {
+            if (!primera) {
+                out.write(',');
+            }
+            primera = false;
+        }
+
+        @Override
+        public void texto(String valor) throws IOException {
+            separador();
+            if (valor == null) {
+                return;
+            }
+            boolean comillas = false;
+            for (int i = 0; i < valor.length() && !comillas; i++) {
+                char c = valor.charAt(i);
+                comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!comillas) {
+                out.write(valor);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"') {
+                    out.write('"');
+                }
+                out.write(c);
+            }
+            out.write('"');
+        }
+
+        @Override
+        public void entero(long valor) throws IOException {
+            separador();
+            out.write(Long.toString(valor));
+        }
+
+        @Override
+        public void importe(long centimos) throws IOException {
+            separador();
+            out.write(Dinero.formatear(centimos));
+        }
+
+        @Override
+        public void fechaHora(LocalDateTime valor) throws IOException {
+            separador();
+            if (valor != null) {
+                FECHA_HORA.formatTo(valor, out);
+            }
+        }
+
+        @Override
+        public void finFila() throws IOException {
+            out.write("\r\n");
+            primera = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
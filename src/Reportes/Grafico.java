@@ -1,14 +1,15 @@
 
 package Reportes;
 
-import Modelo.Conexion;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import Modelo.Dinero;
+import java.awt.GridLayout;
 import java.sql.SQLException;
+import java.util.List;
+import javax.swing.JFrame;
 import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartFrame;
+import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
 /**
@@ -17,34 +18,68 @@ import org.jfree.data.general.DefaultPieDataset;
  */
 public class Grafico {
 
+    // Porciones por torta; el resto se agrupa en "Otros".
+    static final int PORCIONES = 10;
+
     /**
      *
      * @param fecha
      */
     public static void Graficar(String fecha){
-        Connection con;
-        Conexion cn = new Conexion();
-        PreparedStatement ps;
-        ResultSet rs;
         try {
-            String sql = "SELECT total FROM ventas WHERE fecha = ?";
-            con = cn.getConnection();
-            ps = con.prepareStatement(sql);
-            ps.setString(1, fecha);
-            rs = ps.executeQuery();
-            DefaultPieDataset dateset = new DefaultPieDataset();
-            while(rs.next()){
-                dateset.setValue(rs.getString("total"), rs.getDouble("total"));
-            }
-            JFreeChart jf = ChartFactory.createPieChart("Reporte de Venta", dateset);
-            ChartFrame f = new ChartFrame("Total de Ventas por dia", jf);
-            f.setSize(1000, 500);
-            f.setLocationRelativeTo(null);
-            f.setVisible(true);
+            Mostrar(Datos(fecha));
         } catch (SQLException e) {
             System.out.println(e.toString());
         }
     }
+
+    /**
+     * Lee de la BD el reporte del día, ya agregado. No toca la interfaz, así
+     * que puede llamarse fuera del hilo de Swing.
+     *
+     * @param fecha día del reporte (dd/MM/yyyy)
+     * @return ventas del día por vendedor, por producto y por hora
+     * @throws SQLException si falla la consulta
+     */
+    public static ReporteDiario Datos(String fecha) throws SQLException {
+        return ReporteDiario.Generar(fecha);
+    }
+
+    /**
+     * Muestra el reporte en una ventana nueva (torta por vendedor y por
+     * producto, barras por hora). Debe llamarse desde el hilo de Swing.
+     *
+     * @param reporte datos obtenidos con {@link #Datos(String)}
+     */
+    public static void Mostrar(ReporteDiario reporte){
+        JFrame f = new JFrame(String.format("Ventas del %s: %d ventas, total %s",
+                reporte.getFecha(), reporte.getVentas(), Dinero.formatear(reporte.getTotalCentimos())));
+        f.setLayout(new GridLayout(1, 3));
+        f.add(new ChartPanel(torta("Por vendedor", reporte.getPorVendedor())));
+        f.add(new ChartPanel(torta("Por producto", reporte.getPorProducto())));
+        f.add(new ChartPanel(barras("Por hora", reporte.getPorHora())));
+        f.setSize(1400, 500);
+        f.setLocationRelativeTo(null);
+        f.setVisible(true);
+    }
+
+    private static JFreeChart torta(String titulo, List<ReporteDiario.Grupo> grupos) {
+        DefaultPieDataset dateset = new DefaultPieDataset();
+        for (ReporteDiario.Grupo g : ReporteDiario.Principales(grupos, PORCIONES)) {
+            // Dos productos con el mismo nombre comparten porción.
+            double previo = dateset.getIndex(g.getNombre()) >= 0 ? dateset.getValue(g.getNombre()).doubleValue() : 0;
+            dateset.setValue(g.getNombre(), previo + g.getTotal());
+        }
+        return ChartFactory.createPieChart(titulo, dateset);
+    }
+
+    private static JFreeChart barras(String titulo, List<ReporteDiario.Grupo> grupos) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        for (ReporteDiario.Grupo g : grupos) {
+            dataset.addValue(g.getTotal(), "Total", g.getNombre());
+        }
+        return ChartFactory.createBarChart(titulo, "Hora", "Total", dataset);
+    }
 }
 
 // Reportes: JFreeChart para KPIs básicos; considerar dataset desacoplado del DAO.
@@ -0,0 +1,249 @@
+package Reportes;
+
+import Modelo.Dinero;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escribe un libro de Excel (XLSX) fila por fila, sin guardar el contenido en
+ * memoria.
+ * <p>Un XLSX es un ZIP con partes XML. Las hojas se escriben directo a su
+ * entrada del ZIP a medida que llegan las celdas; los textos van como
+ * {@code inlineStr} para no tener que juntar una tabla de textos compartidos
+ * hasta el final. Las partes que dependen de cuántas hojas hubo (libro,
+ * relaciones, tipos de contenido) se escriben al cerrar.</p>
+ *
+ * <p>Una hoja admite 1.048.576 filas; al llenarse se abre otra ("Ventas 2",
+ * ...) que repite el encabezado. Las fechas se guardan como número de Excel
+ * con formato de fecha y hora, y los importes como número con dos decimales,
+ * así se pueden sumar y filtrar.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+final class LibroXlsx implements ExportarVentas.Salida {
+
+    /** Filas por hoja que admite Excel. */
+    static final int MAX_FILAS = 1048576;
+
+    private static final String NS_HOJA = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PAQUETE = "http://schemas.openxmlformats.org/package/2006/relationships";
+    // Día 0 de las fechas de Excel (con el 29/02/1900 que Excel cree que existió).
+    private static final LocalDate EPOCA = LocalDate.of(1899, 12, 30);
+    // Estilos definidos en styles.xml: 1 = fecha y hora, 2 = dos decimales.
+    private static final int ESTILO_FECHA = 1;
+    private static final int ESTILO_IMPORTE = 2;
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final String nombre;
+    private final String[] columnas;
+    private int hojas;
+    private int filasHoja;
+    private boolean filaAbierta;
+
+    /**
+     * @param destino  archivo de destino; se cierra al cerrar el libro
+     * @param nombre   nombre de la primera hoja
+     * @param columnas encabezados (primera fila de cada hoja)
+     * @throws IOException si no se pudo escribir
+     */
+    LibroXlsx(OutputStream destino, String nombre, String[] columnas) throws IOException {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(destino, 1 << 16));
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 1 << 16);
+        this.nombre = nombre;
+        this.columnas = columnas.clone();
+        nuevaHoja();
+    }
+
+    private void nuevaHoja() throws IOException {
+        if (hojas > 0) {
+            cerrarHoja();
+        }
+        hojas++;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + hojas + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\""
+                + NS_HOJA + "\"><sheetData>");
+        filasHoja = 0;
+        for (String c : columnas) {
+            texto(c);
+        }
+        finFila();
+    }
+
+    private void cerrarHoja() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void celda() throws IOException {
+        if (!filaAbierta) {
+            if (filasHoja == MAX_FILAS) {
+                nuevaHoja();
+            }
+            out.write("<row>");
+            filaAbierta = true;
+        }
+    }
+
+    @Override
+    public void texto(String valor) throws IOException {
+        celda();
+        if (valor == null || valor.isEmpty()) {
+            out.write("<c/>");
+            return;
+        }
+        out.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        escapar(valor);
+        out.write("</t></is></c>");
+    }
+
+    @Override
+    public void entero(long valor) throws IOException {
+        celda();
+        out.write("<c><v>");
+        out.write(Long.toString(valor));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void importe(long centimos) throws IOException {
+        celda();
+        out.write("<c s=\"" + ESTILO_IMPORTE + "\"><v>");
+        out.write(Dinero.formatear(centimos));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void fechaHora(LocalDateTime valor) throws IOException {
+        celda();
+        if (valor == null) {
+            out.write("<c/>");
+            return;
+        }
+        double serial = ChronoUnit.DAYS.between(EPOCA, valor.toLocalDate())
+                + valor.toLocalTime().toSecondOfDay() / 86400.0;
+        out.write("<c s=\"" + ESTILO_FECHA + "\"><v>");
+        out.write(Double.toString(serial));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void finFila() throws IOException {
+        celda();
+        out.write("</row>");
+        filaAbierta = false;
+        filasHoja++;
+    }
+
+    // Escapa el texto para XML y descarta caracteres de control que XML no admite.
+    private void escapar(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '&':
+                    out.write("&amp;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        out.write(c);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Cierra la última hoja y escribe las partes fijas del libro.
+     *
+     * @throws IOException si no se pudo escribir
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (filaAbierta) {
+                finFila();
+            }
+            cerrarHoja();
+            parte("[Content_Types].xml", tipos());
+            parte("_rels/.rels", "<Relationships xmlns=\"" + NS_PAQUETE + "\">"
+                    + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            parte("xl/workbook.xml", libro());
+            parte("xl/_rels/workbook.xml.rels", relaciones());
+            parte("xl/styles.xml", ESTILOS);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void parte(String ruta, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(ruta));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        out.write(xml);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private String tipos() {
+        StringBuilder sb = new StringBuilder("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= hojas; i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return sb.append("</Types>").toString();
+    }
+
+    private String libro() {
+        StringBuilder sb = new StringBuilder("<workbook xmlns=\"" + NS_HOJA + "\" xmlns:r=\"" + NS_REL + "\"><sheets>");
+        for (int i = 1; i <= hojas; i++) {
+            sb.append("<sheet name=\"").append(i == 1 ? nombre : nombre + " " + i)
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return sb.append("</sheets></workbook>").toString();
+    }
+
+    private String relaciones() {
+        StringBuilder sb = new StringBuilder("<Relationships xmlns=\"" + NS_PAQUETE + "\">");
+        for (int i = 1; i <= hojas; i++) {
+            sb.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(hojas + 1).append("\" Type=\"").append(NS_REL)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return sb.append("</Relationships>").toString();
+    }
+
+    // Formatos 22 (fecha y hora) y 2 (0.00) son de los predefinidos de Excel.
+    private static final String ESTILOS = "<styleSheet xmlns=\"" + NS_HOJA + "\">"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"2\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+}
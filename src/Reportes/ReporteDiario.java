@@ -0,0 +1,234 @@
+package Reportes;
+
+import Modelo.Conexion;
+import Modelo.Dinero;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de las ventas de un día (o de un rango), agregado en la BD.
+ * <p>Si el rango son días completos se lee de los resúmenes diarios
+ * ({@link Modelo.Resumenes}): una fila por día y vendedor o producto, sin recorrer
+ * las ventas. Un rango con horas agrupa {@code ventas} y {@code detalle} por
+ * vendedor y por producto, filtrando por {@code ventas.fecha_hora}, que está
+ * indexada. En ambos casos se traen tantas filas como grupos haya.</p>
+ *
+ * <p>Las ventas por hora del día siempre salen de {@code ventas}
+ * ({@code GROUP BY HOUR(fecha_hora)}), porque los resúmenes son por día; es un
+ * recorrido del índice de {@code fecha_hora} que devuelve a lo sumo 24 filas.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class ReporteDiario {
+
+    private static final DateTimeFormatter DIA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String POR_HORA = "SELECT HOUR(fecha_hora) AS hora, COUNT(*) AS ventas, SUM(total) AS total "
+            + "FROM ventas WHERE fecha_hora >= ? AND fecha_hora < ? GROUP BY HOUR(fecha_hora) ORDER BY hora";
+
+    /**
+     * Un grupo del reporte (un vendedor, un producto, una hora).
+     */
+    public static class Grupo {
+        private final String nombre;
+        private final long cantidad;
+        private final long total;
+
+        /**
+         * @param nombre   vendedor, producto u hora
+         * @param cantidad ventas del vendedor o la hora, o unidades del producto
+         * @param total    monto vendido, en céntimos
+         */
+        public Grupo(String nombre, long cantidad, long total) {
+            this.nombre = nombre;
+            this.cantidad = cantidad;
+            this.total = total;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        /** @return monto vendido, para graficar */
+        public double getTotal() {
+            return Dinero.aDouble(total);
+        }
+
+        /** @return monto vendido, en céntimos */
+        public long getTotalCentimos() {
+            return total;
+        }
+    }
+
+    private final String fecha;
+    private long ventas;
+    private long total;
+    private final List<Grupo> porVendedor = new ArrayList<>();
+    private final List<Grupo> porProducto = new ArrayList<>();
+    private final List<Grupo> porHora = new ArrayList<>();
+
+    private ReporteDiario(String fecha) {
+        this.fecha = fecha;
+    }
+
+    /**
+     * Consulta el reporte de un día.
+     *
+     * @param fecha día del reporte (dd/MM/yyyy, como se guarda en {@code ventas.fecha})
+     * @return reporte con totales y grupos ordenados de mayor a menor monto
+     * @throws SQLException si falla alguna consulta
+     * @throws java.time.format.DateTimeParseException si la fecha no es dd/MM/yyyy
+     */
+    public static ReporteDiario Generar(String fecha) throws SQLException {
+        LocalDateTime inicio = LocalDate.parse(fecha, DIA).atStartOfDay();
+        return Generar(fecha, inicio, inicio.plusDays(1));
+    }
+
+    /**
+     * Consulta el reporte de un rango de fechas (por ejemplo varios meses).
+     *
+     * @param titulo texto que identifica el rango en el reporte
+     * @param desde  inicio del rango (incluido)
+     * @param hasta  fin del rango (excluido)
+     * @return reporte con totales y grupos ordenados de mayor a menor monto
+     *         (los de hora, por hora)
+     * @throws SQLException si falla alguna consulta
+     */
+    public static ReporteDiario Generar(String titulo, LocalDateTime desde, LocalDateTime hasta) throws SQLException {
+        ReporteDiario r = new ReporteDiario(titulo);
+        boolean diasCompletos = desde.toLocalTime().equals(LocalTime.MIDNIGHT)
+                && hasta.toLocalTime().equals(LocalTime.MIDNIGHT);
+        String vendedores;
+        String productos;
+        Object inicio;
+        Object fin;
+        if (diasCompletos) {
+            vendedores = "SELECT vendedor, SUM(ventas) AS ventas, SUM(total) AS total FROM resumen_vendedor_dia "
+                    + "WHERE dia >= ? AND dia < ? GROUP BY vendedor ORDER BY total DESC";
+            productos = "SELECT p.nombre, SUM(r.cantidad) AS cantidad, SUM(r.total) AS total "
+                    + "FROM resumen_producto_dia r INNER JOIN productos p ON p.id = r.id_pro "
+                    + "WHERE r.dia >= ? AND r.dia < ? GROUP BY r.id_pro, p.nombre ORDER BY total DESC";
+            inicio = Date.valueOf(desde.toLocalDate());
+            fin = Date.valueOf(hasta.toLocalDate());
+        } else {
+            vendedores = "SELECT vendedor, COUNT(*) AS ventas, SUM(total) AS total FROM ventas "
+                    + "WHERE fecha_hora >= ? AND fecha_hora < ? GROUP BY vendedor ORDER BY total DESC";
+            productos = "SELECT p.nombre, SUM(d.cantidad) AS cantidad, SUM(d.cantidad * d.precio) AS total "
+                    + "FROM ventas v INNER JOIN detalle d ON d.id_venta = v.id INNER JOIN productos p ON p.id = d.id_pro "
+                    + "WHERE v.fecha_hora >= ? AND v.fecha_hora < ? GROUP BY d.id_pro, p.nombre ORDER BY total DESC";
+            inicio = Timestamp.valueOf(desde);
+            fin = Timestamp.valueOf(hasta);
+        }
+        try (Connection con = new Conexion().getConnection()) {
+            if (con == null) {
+                throw new SQLException("Sin conexión a la base de datos");
+            }
+            try (PreparedStatement ps = con.prepareStatement(vendedores)) {
+                ps.setObject(1, inicio);
+                ps.setObject(2, fin);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Grupo g = new Grupo(rs.getString("vendedor"), rs.getLong("ventas"),
+                                Dinero.deDecimal(rs.getBigDecimal("total")));
+                        r.porVendedor.add(g);
+                        r.ventas += g.getCantidad();
+                        r.total += g.getTotalCentimos();
+                    }
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(productos)) {
+                ps.setObject(1, inicio);
+                ps.setObject(2, fin);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        r.porProducto.add(new Grupo(rs.getString("nombre"), rs.getLong("cantidad"),
+                                Dinero.deDecimal(rs.getBigDecimal("total"))));
+                    }
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(POR_HORA)) {
+                ps.setTimestamp(1, Timestamp.valueOf(desde));
+                ps.setTimestamp(2, Timestamp.valueOf(hasta));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        r.porHora.add(new Grupo(String.format("%02d:00", rs.getInt("hora")), rs.getLong("ventas"),
+                                Dinero.deDecimal(rs.getBigDecimal("total"))));
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    /** @return día (o rango) del reporte */
+    public String getFecha() {
+        return fecha;
+    }
+
+    /** @return cantidad de ventas del día */
+    public long getVentas() {
+        return ventas;
+    }
+
+    /** @return monto total vendido en el día */
+    public double getTotal() {
+        return Dinero.aDouble(total);
+    }
+
+    /** @return monto total vendido en el día, en céntimos */
+    public long getTotalCentimos() {
+        return total;
+    }
+
+    /** @return ventas por vendedor */
+    public List<Grupo> getPorVendedor() {
+        return Collections.unmodifiableList(porVendedor);
+    }
+
+    /** @return unidades y monto por producto */
+    public List<Grupo> getPorProducto() {
+        return Collections.unmodifiableList(porProducto);
+    }
+
+    /** @return ventas y monto por hora del día ("08:00", ...), en orden de hora; solo horas con ventas */
+    public List<Grupo> getPorHora() {
+        return Collections.unmodifiableList(porHora);
+    }
+
+    /**
+     * Los {@code n} primeros grupos y, si hay más, uno "Otros" con la suma del resto.
+     *
+     * @param grupos lista ordenada de mayor a menor
+     * @param n      grupos a conservar
+     * @return lista de a lo sumo {@code n + 1} grupos
+     */
+    public static List<Grupo> Principales(List<Grupo> grupos, int n) {
+        if (grupos.size() <= n) {
+            return grupos;
+        }
+        List<Grupo> lista = new ArrayList<>(grupos.subList(0, n));
+        long cantidad = 0;
+        long resto = 0;
+        for (Grupo g : grupos.subList(n, grupos.size())) {
+            cantidad += g.getCantidad();
+            resto += g.getTotalCentimos();
+        }
+        lista.add(new Grupo("Otros", cantidad, resto));
+        return lista;
+    }
+}
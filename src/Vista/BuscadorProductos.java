@@ -0,0 +1,197 @@
+package Vista;
+
+import Modelo.IndiceProductos;
+import Modelo.Productos;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+
+/**
+ * Lista desplegable de sugerencias bajo un campo de texto, alimentada por
+ * {@link IndiceProductos}.
+ * <p>La búsqueda se lanza cuando el usuario deja de escribir durante
+ * {@link #ESPERA_MS} ms, así que una ráfaga de teclas produce una sola
+ * consulta. El índice está en memoria y responde en menos de un milisegundo,
+ * por eso se consulta directamente en el EDT.</p>
+ *
+ * <p>Flechas arriba/abajo recorren la lista, Enter o un clic eligen y Esc la
+ * cierra. Cambiar el texto por código ({@code setText}) no dispara búsquedas.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class BuscadorProductos {
+
+    /**
+     * Recibe el producto elegido en la lista (solo id, código y nombre).
+     */
+    public interface Seleccion {
+        /**
+         * @param p producto elegido
+         */
+        void elegido(Productos p);
+    }
+
+    /** Pausa de escritura antes de buscar. */
+    static final int ESPERA_MS = 150;
+    /** Sugerencias que se muestran como máximo. */
+    static final int MAX_SUGERENCIAS = 10;
+    /** Caracteres mínimos para buscar. */
+    static final int MIN_CARACTERES = 2;
+
+    private final JTextField campo;
+    private final Seleccion alElegir;
+    private final Timer espera;
+    private final DefaultListModel<Productos> modelo = new DefaultListModel<>();
+    private final JList<Productos> lista = new JList<>(modelo);
+    private final JPopupMenu popup = new JPopupMenu();
+
+    /**
+     * @param campo    campo donde se escribe la búsqueda
+     * @param alElegir recibe el producto elegido
+     */
+    public BuscadorProductos(JTextField campo, Seleccion alElegir) {
+        this.campo = campo;
+        this.alElegir = alElegir;
+        espera = new Timer(ESPERA_MS, e -> buscar());
+        espera.setRepeats(false);
+
+        lista.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        lista.setFocusable(false);
+        lista.setCellRenderer(new javax.swing.DefaultListCellRenderer() {
+            @Override
+            public java.awt.Component getListCellRendererComponent(JList<?> l, Object valor,
+                    int indice, boolean seleccionado, boolean foco) {
+                Productos p = (Productos) valor;
+                return super.getListCellRendererComponent(l, p.getCodigo() + " - " + p.getNombre(),
+                        indice, seleccionado, foco);
+            }
+        });
+        lista.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                elegir();
+            }
+        });
+        JScrollPane scroll = new JScrollPane(lista);
+        scroll.setFocusable(false);
+        popup.setFocusable(false);
+        popup.add(scroll);
+
+        campo.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyTyped(KeyEvent e) {
+                if (!e.isConsumed() && e.getKeyChar() != KeyEvent.VK_ENTER
+                        && e.getKeyChar() != KeyEvent.VK_ESCAPE) {
+                    espera.restart();
+                }
+            }
+
+            @Override
+            public void keyPressed(KeyEvent e) {
+                teclaPresionada(e);
+            }
+        });
+        campo.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                cerrar();
+            }
+        });
+    }
+
+    /**
+     * Cierra la lista y descarta una búsqueda pendiente.
+     */
+    public void cerrar() {
+        espera.stop();
+        popup.setVisible(false);
+    }
+
+    private void teclaPresionada(KeyEvent e) {
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_BACK_SPACE:
+            case KeyEvent.VK_DELETE:
+                espera.restart();
+                break;
+            case KeyEvent.VK_DOWN:
+                mover(1, e);
+                break;
+            case KeyEvent.VK_UP:
+                mover(-1, e);
+                break;
+            case KeyEvent.VK_ENTER:
+                if (popup.isVisible() && lista.getSelectedIndex() >= 0) {
+                    e.consume();
+                    elegir();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                if (popup.isVisible()) {
+                    // Que no llegue al Esc de la ventana (cancelar tareas)
+                    e.consume();
+                    cerrar();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void mover(int paso, KeyEvent e) {
+        if (!popup.isVisible() || modelo.isEmpty()) {
+            return;
+        }
+        e.consume();
+        int i = Math.floorMod(lista.getSelectedIndex() + paso, modelo.size());
+        lista.setSelectedIndex(i);
+        lista.ensureIndexIsVisible(i);
+    }
+
+    private void buscar() {
+        String texto = campo.getText().trim();
+        if (texto.length() < MIN_CARACTERES || !campo.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+        List<Productos> encontrados = IndiceProductos.getInstancia().buscar(texto, MAX_SUGERENCIAS);
+        modelo.clear();
+        for (Productos p : encontrados) {
+            modelo.addElement(p);
+        }
+        if (modelo.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        lista.setSelectedIndex(0);
+        lista.setVisibleRowCount(Math.min(modelo.size(), MAX_SUGERENCIAS));
+        popup.setPopupSize(Math.max(campo.getWidth(), 320), lista.getPreferredScrollableViewportSize().height + 4);
+        if (popup.isVisible()) {
+            popup.pack();
+            popup.revalidate();
+            popup.repaint();
+        } else {
+            popup.show(campo, 0, campo.getHeight());
+        }
+        // El popup no debe quedarse con el foco: se sigue escribiendo en el campo.
+        campo.requestFocusInWindow();
+    }
+
+    private void elegir() {
+        Productos p = lista.getSelectedValue();
+        cerrar();
+        if (p != null) {
+            alElegir.elegido(p);
+        }
+    }
+}
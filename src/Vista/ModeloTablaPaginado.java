@@ -0,0 +1,222 @@
+package Vista;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla que trae las filas de la BD por páginas, a medida que la
+ * tabla las pide al desplazarse.
+ * <p>Solo conserva en memoria las últimas {@code maxPaginas} páginas usadas;
+ * una fila cuya página no está cargada se muestra vacía mientras la página se
+ * lee en segundo plano, y se repinta al llegar. Así listar 40 mil productos no
+ * copia todo a un {@code DefaultTableModel} ni dispara un evento por fila.</p>
+ *
+ * <p>Debe usarse desde el hilo de Swing (EDT); las lecturas a la BD ocurren
+ * en hilos aparte.</p>
+ *
+ * @param <T> tipo de objeto que devuelve el DAO
+ * @author Eduardo Jimenez
+ */
+public class ModeloTablaPaginado<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Origen paginado de las filas (normalmente métodos de un DAO).
+     *
+     * @param <T> tipo de objeto de cada fila
+     */
+    public interface Fuente<T> {
+        /**
+         * @return total de filas
+         */
+        int contar();
+
+        /**
+         * @param desde    posición de la primera fila (0 = primera)
+         * @param cantidad filas a traer como máximo
+         * @return filas de la página
+         */
+        List<T> pagina(int desde, int cantidad);
+
+        /**
+         * Página que sigue a la fila {@code ultimo}, usando paginación por clave.
+         * <p>El modelo la prefiere cuando ya tiene la página anterior, que es el
+         * caso normal al desplazarse; saltos a una posición lejana siguen usando
+         * {@link #pagina(int, int)}. Por defecto no está disponible.</p>
+         *
+         * @param ultimo   última fila de la página anterior
+         * @param cantidad filas a traer como máximo
+         * @return filas de la página, o {@code null} si la fuente no lo soporta
+         */
+        default List<T> siguiente(T ultimo, int cantidad) {
+            return null;
+        }
+    }
+
+    private static final AtomicInteger HILOS = new AtomicInteger();
+    // Compartido por todas las tablas: pocas lecturas concurrentes a la BD.
+    private static final ExecutorService CARGADOR = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "tabla-paginada-" + HILOS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String[] columnas;
+    private final Fuente<T> fuente;
+    private final Function<T, Object[]> fila;
+    private final int tamPagina;
+    private final Map<Integer, List<Object[]>> paginas;
+    private final Set<Integer> cargando = new HashSet<>();
+    // Última fila de cada página en memoria: cursor para pedir la siguiente por
+    // clave. Tiene las mismas claves que paginas y se poda junto con ella.
+    private final Map<Integer, T> ultimos = new HashMap<>();
+    private int filas;
+    // Se incrementa en cada refresco; descarta páginas que llegan de una carga anterior.
+    private int generacion;
+
+    /**
+     * @param columnas   nombres de columna
+     * @param fuente     origen de los datos
+     * @param fila       convierte un objeto en los valores de la fila
+     * @param tamPagina  filas por página
+     * @param maxPaginas páginas que se conservan en memoria
+     */
+    public ModeloTablaPaginado(String[] columnas, Fuente<T> fuente, Function<T, Object[]> fila,
+            int tamPagina, int maxPaginas) {
+        this.columnas = columnas.clone();
+        this.fuente = fuente;
+        this.fila = fila;
+        this.tamPagina = tamPagina;
+        this.paginas = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> mayor) {
+                if (size() <= maxPaginas) {
+                    return false;
+                }
+                // El cursor de la página sale con ella; si no, crecería con cada página vista.
+                ultimos.remove(mayor.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Toma los nombres de columna del modelo que la tabla tiene actualmente
+     * (el definido en el diseñador de formularios).
+     *
+     * @param tabla tabla de origen
+     * @return nombres de columna
+     */
+    public static String[] columnasDe(JTable tabla) {
+        String[] nombres = new String[tabla.getModel().getColumnCount()];
+        for (int i = 0; i < nombres.length; i++) {
+            nombres[i] = tabla.getModel().getColumnName(i);
+        }
+        return nombres;
+    }
+
+    /**
+     * Descarta las páginas en memoria y vuelve a contar las filas en segundo plano.
+     */
+    public void refrescar() {
+        int gen = ++generacion;
+        paginas.clear();
+        cargando.clear();
+        ultimos.clear();
+        CARGADOR.execute(() -> {
+            int total = fuente.contar();
+            SwingUtilities.invokeLater(() -> {
+                if (gen == generacion) {
+                    filas = total;
+                    fireTableDataChanged();
+                }
+            });
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnas[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Valor de una celda; si su página aún no está en memoria devuelve {@code null}
+     * y pide la página en segundo plano.
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int num = row / tamPagina;
+        List<Object[]> pagina = paginas.get(num);
+        if (pagina == null) {
+            cargar(num);
+            return null;
+        }
+        int i = row % tamPagina;
+        return i < pagina.size() ? pagina.get(i)[column] : null;
+    }
+
+    private void cargar(int num) {
+        if (!cargando.add(num)) {
+            return;
+        }
+        int gen = generacion;
+        T previo = ultimos.get(num - 1);
+        CARGADOR.execute(() -> {
+            List<T> datos = previo == null ? null : fuente.siguiente(previo, tamPagina);
+            if (datos == null) {
+                datos = fuente.pagina(num * tamPagina, tamPagina);
+            }
+            Object[][] valores = new Object[datos.size()][];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = fila.apply(datos.get(i));
+            }
+            T ultimo = datos.isEmpty() ? null : datos.get(datos.size() - 1);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generacion) {
+                    return;
+                }
+                cargando.remove(num);
+                // Primero el cursor: si put desaloja esta misma página, lo quita también.
+                if (ultimo != null) {
+                    ultimos.put(num, ultimo);
+                }
+                paginas.put(num, Arrays.asList(valores));
+                int desde = num * tamPagina;
+                int hasta = Math.min(filas, desde + tamPagina) - 1;
+                if (hasta >= desde) {
+                    fireTableRowsUpdated(desde, hasta);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,232 @@
+package Vista;
+
+import Modelo.CambioPrecio;
+import Modelo.Combo;
+import Modelo.Dinero;
+import Modelo.LotePrecios;
+import Modelo.PreciosDao;
+import Modelo.Proveedor;
+import Modelo.ProveedorDao;
+import Modelo.ReglaPrecio;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Frame;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Ventana para cambiar precios en masa (ver {@link PreciosDao}).
+ * <p>Se elige proveedor, un texto opcional y la regla; "Vista previa" muestra
+ * cada producto con su precio actual y el nuevo. "Aplicar" escribe exactamente
+ * esa vista previa, aunque después se haya cambiado la regla; las filas cuyo
+ * precio nuevo no cabe en la BD se marcan y no se aplican. "Deshacer lote"
+ * revierte uno de los últimos cambios aplicados.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class PreciosMasivos extends JDialog {
+
+    private static final long serialVersionUID = 1L;
+
+    // Lotes que se ofrecen para deshacer.
+    private static final int LOTES_RECIENTES = 20;
+
+    private final PreciosDao dao = new PreciosDao();
+    private final ProveedorDao prDao = new ProveedorDao();
+    private final String usuario;
+    private final Runnable alCambiar;
+    private final JProgressBar barra = new JProgressBar();
+    private final TareasFondo tareas;
+
+    private final JComboBox<Combo> cbxProveedor = new JComboBox<>();
+    private final JTextField txtFiltro = new JTextField(12);
+    private final JComboBox<ReglaPrecio.Tipo> cbxTipo = new JComboBox<>(ReglaPrecio.Tipo.values());
+    private final JTextField txtValor = new JTextField(6);
+    private final JComboBox<ReglaPrecio.Redondeo> cbxRedondeo = new JComboBox<>(ReglaPrecio.Redondeo.values());
+    private final JLabel lblResumen = new JLabel(" ");
+    private final JButton btnAplicar = new JButton("Aplicar");
+    private final DefaultTableModel modelo = new DefaultTableModel(
+            new Object[]{"Código", "Nombre", "Precio actual", "Precio nuevo", "Diferencia"}, 0) {
+        @Override
+        public boolean isCellEditable(int fila, int columna) {
+            return false;
+        }
+    };
+
+    // Última vista previa y su descripción; es lo que se aplica.
+    private List<CambioPrecio> vista = Collections.emptyList();
+    private String descripcion;
+
+    /**
+     * @param padre     ventana principal
+     * @param usuario   usuario que hace los cambios (queda en el historial)
+     * @param alCambiar se ejecuta en el EDT después de aplicar o deshacer
+     */
+    public PreciosMasivos(Frame padre, String usuario, Runnable alCambiar) {
+        super(padre, "Cambio de precios masivo", true);
+        this.usuario = usuario;
+        this.alCambiar = alCambiar;
+        this.tareas = new TareasFondo(this, barra);
+
+        JPanel filtros = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filtros.add(new JLabel("Proveedor:"));
+        filtros.add(cbxProveedor);
+        filtros.add(new JLabel("Código o nombre:"));
+        filtros.add(txtFiltro);
+        filtros.add(new JLabel("Regla:"));
+        filtros.add(cbxTipo);
+        filtros.add(txtValor);
+        filtros.add(cbxRedondeo);
+        JButton btnVista = new JButton("Vista previa");
+        btnVista.addActionListener(e -> Previsualizar());
+        filtros.add(btnVista);
+
+        JPanel abajo = new JPanel(new BorderLayout());
+        abajo.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        abajo.add(lblResumen, BorderLayout.CENTER);
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        barra.setVisible(false);
+        botones.add(barra);
+        JButton btnDeshacer = new JButton("Deshacer lote...");
+        btnDeshacer.addActionListener(e -> Deshacer());
+        botones.add(btnDeshacer);
+        btnAplicar.setEnabled(false);
+        btnAplicar.addActionListener(e -> Aplicar());
+        botones.add(btnAplicar);
+        JButton btnCerrar = new JButton("Cerrar");
+        btnCerrar.addActionListener(e -> dispose());
+        botones.add(btnCerrar);
+        abajo.add(botones, BorderLayout.EAST);
+
+        getContentPane().add(filtros, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(new JTable(modelo)), BorderLayout.CENTER);
+        getContentPane().add(abajo, BorderLayout.SOUTH);
+        setSize(900, 500);
+        setLocationRelativeTo(padre);
+
+        cbxProveedor.addItem(new Combo(0, "Todos"));
+        tareas.ejecutar("proveedores", prDao::ListarProveedor, lista -> {
+            for (Proveedor pr : lista) {
+                cbxProveedor.addItem(new Combo(pr.getId(), pr.getNombre()));
+            }
+        });
+    }
+
+    private void Previsualizar() {
+        BigDecimal valor;
+        try {
+            valor = new BigDecimal(txtValor.getText().trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Ingrese el porcentaje o monto de la regla");
+            return;
+        }
+        ReglaPrecio regla = new ReglaPrecio((ReglaPrecio.Tipo) cbxTipo.getSelectedItem(), valor,
+                (ReglaPrecio.Redondeo) cbxRedondeo.getSelectedItem());
+        Combo proveedor = (Combo) cbxProveedor.getSelectedItem();
+        String filtro = txtFiltro.getText().trim();
+        String texto = regla.describir() + " - proveedor: " + proveedor
+                + (filtro.isEmpty() ? "" : ", filtro: " + filtro);
+        tareas.ejecutar("vistaPrecios", () -> dao.Previsualizar(proveedor.getId(), filtro, regla), lista -> {
+            vista = lista;
+            descripcion = texto;
+            modelo.setRowCount(0);
+            long antes = 0;
+            long despues = 0;
+            int validos = 0;
+            for (CambioPrecio c : lista) {
+                if (c.isFueraDeRango()) {
+                    modelo.addRow(new Object[]{c.getCodigo(), c.getNombre(), Dinero.formatear(c.getAnterior()),
+                        "Fuera de rango", "No se aplica"});
+                    continue;
+                }
+                modelo.addRow(new Object[]{c.getCodigo(), c.getNombre(), Dinero.formatear(c.getAnterior()),
+                    Dinero.formatear(c.getNuevo()), Dinero.formatear(c.getNuevo() - c.getAnterior())});
+                antes += c.getAnterior();
+                despues += c.getNuevo();
+                validos++;
+            }
+            int fuera = lista.size() - validos;
+            lblResumen.setText((validos == 0 ? "Ningún producto cambia de precio"
+                    : validos + " productos cambian de precio (suma de precios "
+                    + Dinero.formatear(antes) + " -> " + Dinero.formatear(despues) + ")")
+                    + (fuera > 0 ? "; " + fuera + " quedarían fuera de rango y no se aplicarán" : ""));
+            btnAplicar.setEnabled(validos > 0);
+        });
+    }
+
+    private void Aplicar() {
+        List<CambioPrecio> cambios = new ArrayList<>();
+        for (CambioPrecio c : vista) {
+            if (!c.isFueraDeRango()) {
+                cambios.add(c);
+            }
+        }
+        String texto = descripcion;
+        int pregunta = JOptionPane.showConfirmDialog(this, "Se cambiará el precio de " + cambios.size()
+                + " productos:\n" + texto + "\n¿Continuar?", "Aplicar precios", JOptionPane.YES_NO_OPTION);
+        if (pregunta != JOptionPane.YES_OPTION) {
+            return;
+        }
+        btnAplicar.setEnabled(false);
+        tareas.ejecutarSinCancelar("aplicarPrecios", () -> dao.Aplicar(texto, usuario, cambios), lote -> {
+            if (lote == null) {
+                JOptionPane.showMessageDialog(this, "No se pudieron cambiar los precios; no se modificó nada");
+                btnAplicar.setEnabled(true);
+                return;
+            }
+            int omitidos = cambios.size() - lote.getProductos();
+            JOptionPane.showMessageDialog(this, "Precios cambiados: " + lote.getProductos()
+                    + (omitidos > 0 ? "\nOmitidos (su precio cambió después de la vista previa): " + omitidos : "")
+                    + (lote.getId() > 0 ? "\nSe puede deshacer como lote #" + lote.getId() : ""));
+            vista = Collections.emptyList();
+            modelo.setRowCount(0);
+            lblResumen.setText(" ");
+            alCambiar.run();
+        });
+    }
+
+    private void Deshacer() {
+        tareas.ejecutar("lotesPrecios", () -> dao.ListarLotes(LOTES_RECIENTES), lotes -> {
+            List<LotePrecios> pendientes = new ArrayList<>();
+            for (LotePrecios l : lotes) {
+                if (!l.isRevertido() && l.getProductos() > 0) {
+                    pendientes.add(l);
+                }
+            }
+            if (pendientes.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No hay cambios de precio para deshacer");
+                return;
+            }
+            LotePrecios elegido = (LotePrecios) JOptionPane.showInputDialog(this, "Lote a deshacer:",
+                    "Deshacer cambio de precios", JOptionPane.QUESTION_MESSAGE, null,
+                    pendientes.toArray(), pendientes.get(0));
+            if (elegido == null) {
+                return;
+            }
+            tareas.ejecutarSinCancelar("revertirPrecios", () -> dao.Revertir(elegido.getId()), n -> {
+                if (n < 0) {
+                    JOptionPane.showMessageDialog(this, "No se pudo deshacer el lote #" + elegido.getId());
+                    return;
+                }
+                int sinTocar = elegido.getProductos() - n;
+                JOptionPane.showMessageDialog(this, "Precios restaurados: " + n
+                        + (sinTocar > 0 ? "\nSin tocar (se cambiaron después del lote): " + sinTocar : ""));
+                alCambiar.run();
+            });
+        });
+    }
+}
@@ -5,27 +5,47 @@
  */
 package Vista;
 
+import Modelo.Carrito;
 import Modelo.Cliente;
 import Modelo.ClienteDao;
+import Modelo.ColaComprobantes;
 import Modelo.Combo;
 import Modelo.Config;
 import Modelo.Detalle;
+import Modelo.Dinero;
 import Modelo.Eventos;
+import Modelo.ImportarProductos;
 import Modelo.LoginDAO;
 import Modelo.Productos;
 import Modelo.ProductosDao;
 import Modelo.Proveedor;
 import Modelo.ProveedorDao;
+import Modelo.ResultadoVenta;
 import Modelo.Venta;
 import Modelo.VentaDao;
 import Modelo.login;
+import Reportes.ExportarVentas;
 import Reportes.Grafico;
+import java.awt.Desktop;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.List;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 
 /**
@@ -50,14 +70,46 @@ public final class Sistema extends javax.swing.JFrame {
     LoginDAO login = new LoginDAO();
     DefaultTableModel modelo = new DefaultTableModel();
     DefaultTableModel tmp = new DefaultTableModel();
-    int item;
-    double Totalpagar = 0.00;
+    // Filas por página y páginas en memoria de las tablas paginadas.
+    static final int FILAS_PAGINA = 200;
+    static final int PAGINAS_EN_MEMORIA = 10;
+    ModeloTablaPaginado<Cliente> modeloClientes;
+    ModeloTablaPaginado<Proveedor> modeloProveedores;
+    ModeloTablaPaginado<Productos> modeloProductos;
+    ModeloTablaPaginado<Venta> modeloVentas;
+    // Venta en curso; la tabla TableVenta solo muestra sus líneas.
+    Carrito carrito = new Carrito();
+    // Trabajo de BD fuera del EDT; la barra se muestra mientras hay tareas en curso.
+    JProgressBar barraTareas = new JProgressBar();
+    TareasFondo tareas;
+    // Abre el comprobante cuando la cola termina de generarlo; los errores se muestran sin bloquear la caja.
+    ColaComprobantes.Receptor abrirComprobante = new ColaComprobantes.Receptor() {
+        @Override
+        public void listo(int idVenta, File archivo) {
+            try {
+                Desktop.getDesktop().open(archivo);
+            } catch (IOException | UnsupportedOperationException e) {
+                fallo(idVenta, e);
+            }
+        }
+
+        @Override
+        public void fallo(int idVenta, Exception error) {
+            System.out.println(error.toString());
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                    "No se pudo generar el comprobante de la venta " + idVenta + ": " + error.getMessage()));
+        }
+    };
     
     /**
      *
      */
     public Sistema() {
         initComponents();
+        iniciarTareas();
+        iniciarBuscador();
+        iniciarExportacion();
+        iniciarImportacion();
     }
 
     /**
@@ -66,6 +118,10 @@ public final class Sistema extends javax.swing.JFrame {
      */
     public Sistema (login priv){
         initComponents();
+        iniciarTareas();
+        iniciarBuscador();
+        iniciarExportacion();
+        iniciarImportacion();
         this.setLocationRelativeTo(null);
         Midate.setDate(fechaVenta);
         txtIdCliente.setVisible(false);
@@ -76,6 +132,14 @@ public final class Sistema extends javax.swing.JFrame {
         txtIdConfig.setVisible(false);
         txtIdCV.setVisible(false);
         ListarConfig();
+        // Las cargas iniciales no se cancelan con Esc: cortadas, las cachés
+        // quedarían vacías hasta reiniciar.
+        // Si un código se escanea antes de terminar la carga, BuscarPro va a la BD.
+        tareas.ejecutarSinCancelar("catalogo", proDao::CargarCatalogo, n -> { });
+        // Igual con los clientes: un DNI que no esté en caché se busca en la BD.
+        tareas.ejecutarSinCancelar("clientes", client::CargarClientes, n -> { });
+        // Hasta que termine, el buscador por nombre simplemente no sugiere nada.
+        tareas.ejecutarSinCancelar("indice", proDao::CargarIndice, n -> { });
         if (priv.getRol().equals("Asistente")) {
             btnProductos.setEnabled(false);
             btnProveedor.setEnabled(false);
@@ -85,115 +149,258 @@ public final class Sistema extends javax.swing.JFrame {
         }
     }
 
+    // Sugerencias por nombre en la pestaña de venta; al elegir se busca por código.
+    private void iniciarBuscador() {
+        new BuscadorProductos(txtDescripcionVenta, p -> {
+            txtCodigoVenta.setText(p.getCodigo());
+            BuscarProductoVenta(p.getCodigo());
+        });
+    }
+
+    // Botón de exportación del mes en el historial de ventas.
+    private void iniciarExportacion() {
+        JButton btnExportar = new JButton("Exportar mes");
+        btnExportar.setToolTipText("Exporta las ventas de un mes a Excel o CSV");
+        btnExportar.addActionListener(e -> ExportarVentasMes());
+        jPanel6.add(btnExportar, new org.netbeans.lib.awtextra.AbsoluteConstraints(656, 40, 150, 30));
+    }
+
+    private void ExportarVentasMes() {
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("MM/yyyy");
+        String texto = JOptionPane.showInputDialog(this, "Mes a exportar (MM/aaaa):", YearMonth.now().format(formato));
+        if (texto == null) {
+            return;
+        }
+        YearMonth mes;
+        try {
+            mes = YearMonth.parse(texto.trim(), formato);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(null, "Mes no válido, use MM/aaaa");
+            return;
+        }
+        FileNameExtensionFilter excel = new FileNameExtensionFilter("Excel (*.xlsx)", "xlsx");
+        FileNameExtensionFilter csv = new FileNameExtensionFilter("CSV (*.csv)", "csv");
+        JFileChooser elegir = new JFileChooser();
+        elegir.setAcceptAllFileFilterUsed(false);
+        elegir.addChoosableFileFilter(excel);
+        elegir.addChoosableFileFilter(csv);
+        elegir.setFileFilter(excel);
+        elegir.setSelectedFile(new File("ventas-" + mes + ".xlsx"));
+        if (elegir.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File elegido = elegir.getSelectedFile();
+        String extension = elegir.getFileFilter() == csv ? ".csv" : ".xlsx";
+        String nombre = elegido.getName().toLowerCase();
+        File archivo = nombre.endsWith(".csv") || nombre.endsWith(".xlsx") ? elegido
+                : new File(elegido.getPath() + extension);
+        LocalDateTime desde = mes.atDay(1).atStartOfDay();
+        LocalDateTime hasta = mes.plusMonths(1).atDay(1).atStartOfDay();
+        // Lectura en streaming: la memoria no crece con la cantidad de ventas. Esc cancela.
+        tareas.ejecutarConAvance("exportar", avance -> ExportarVentas.Exportar(archivo, desde, hasta,
+                (filas, total) -> avance.avance(total == 0 ? 100 : (int) (filas * 100 / total))), filas -> {
+                    JOptionPane.showMessageDialog(null, "Se exportaron " + filas + " líneas de venta a\n" + archivo);
+                });
+    }
+
+    private void iniciarImportacion() {
+        JButton btnImportar = new JButton("Importar CSV");
+        btnImportar.setToolTipText("Agrega o actualiza productos desde un CSV (codigo, nombre, proveedor, precio y stock opcional)");
+        btnImportar.addActionListener(e -> ImportarProductosCsv());
+        jPanel5.add(btnImportar, new org.netbeans.lib.awtextra.AbsoluteConstraints(710, 12, 150, 30));
+        JButton btnPrecios = new JButton("Precios masivos");
+        btnPrecios.setToolTipText("Cambia el precio de todos los productos de un proveedor o de un filtro");
+        btnPrecios.addActionListener(e -> new PreciosMasivos(this, LabelVendedor.getText(), this::ListarProductos).setVisible(true));
+        jPanel5.add(btnPrecios, new org.netbeans.lib.awtextra.AbsoluteConstraints(550, 12, 150, 30));
+    }
+
+    private void ImportarProductosCsv() {
+        JFileChooser elegir = new JFileChooser();
+        elegir.setFileFilter(new FileNameExtensionFilter("CSV (*.csv)", "csv"));
+        if (elegir.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File archivo = elegir.getSelectedFile();
+        tareas.ejecutarConAvance("importar", avance -> ImportarProductos.Importar(archivo,
+                (filas, total) -> avance.avance(total == 0 ? 100 : (int) ((long) filas * 100 / total))), r -> {
+                    String mensaje = "Filas leídas: " + r.getLeidas() + "\nImportadas: " + r.getImportadas()
+                            + "\nRechazadas: " + r.getRechazadas()
+                            + "\nTiempo: " + String.format("%.1f s", r.getMilisegundos() / 1000.0);
+                    if (r.getReporte() != null) {
+                        mensaje += "\n\nEl detalle de las rechazadas está en\n" + r.getReporte();
+                    }
+                    JOptionPane.showMessageDialog(null, mensaje);
+                    ListarProductos();
+                });
+    }
+
+    // Barra de tareas en la cabecera y Esc para cancelar consultas en curso.
+    private void iniciarTareas() {
+        barraTareas.setToolTipText("Consultando la base de datos (Esc para cancelar)");
+        getContentPane().add(barraTareas, new org.netbeans.lib.awtextra.AbsoluteConstraints(900, 10, 160, 14), 0);
+        tareas = new TareasFondo(this, barraTareas);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "cancelarTareas");
+        getRootPane().getActionMap().put("cancelarTareas", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                tareas.cancelarTodo();
+            }
+        });
+    }
+
     /**
      *
      */
     public void ListarCliente() {
-        List<Cliente> ListarCl = client.ListarCliente();
-        modelo = (DefaultTableModel) TableCliente.getModel();
-        Object[] ob = new Object[6];
-        for (int i = 0; i < ListarCl.size(); i++) {
-            ob[0] = ListarCl.get(i).getId();
-            ob[1] = ListarCl.get(i).getDni();
-            ob[2] = ListarCl.get(i).getNombre();
-            ob[3] = ListarCl.get(i).getTelefono();
-            ob[4] = ListarCl.get(i).getDireccion();
-            modelo.addRow(ob);
-        }
-        TableCliente.setModel(modelo);
+        if (modeloClientes == null) {
+            modeloClientes = new ModeloTablaPaginado<>(ModeloTablaPaginado.columnasDe(TableCliente),
+                    new ModeloTablaPaginado.Fuente<Cliente>() {
+                        @Override
+                        public int contar() {
+                            return client.ContarClientes();
+                        }
+
+                        @Override
+                        public List<Cliente> pagina(int desde, int cantidad) {
+                            return client.PaginaClientes(desde, cantidad);
+                        }
 
+                        @Override
+                        public List<Cliente> siguiente(Cliente ultimo, int cantidad) {
+                            return client.ListarCliente(ultimo.getId(), cantidad);
+                        }
+                    },
+                    cl -> new Object[]{cl.getId(), cl.getDni(), cl.getNombre(), cl.getTelefono(), cl.getDireccion()},
+                    FILAS_PAGINA, PAGINAS_EN_MEMORIA);
+            TableCliente.setModel(modeloClientes);
+        }
+        modeloClientes.refrescar();
     }
 
     /**
      *
      */
     public void ListarProveedor() {
-        List<Proveedor> ListarPr = PrDao.ListarProveedor();
-        modelo = (DefaultTableModel) TableProveedor.getModel();
-        Object[] ob = new Object[5];
-        for (int i = 0; i < ListarPr.size(); i++) {
-            ob[0] = ListarPr.get(i).getId();
-            ob[1] = ListarPr.get(i).getRuc();
-            ob[2] = ListarPr.get(i).getNombre();
-            ob[3] = ListarPr.get(i).getTelefono();
-            ob[4] = ListarPr.get(i).getDireccion();
-            modelo.addRow(ob);
-        }
-        TableProveedor.setModel(modelo);
+        if (modeloProveedores == null) {
+            modeloProveedores = new ModeloTablaPaginado<>(ModeloTablaPaginado.columnasDe(TableProveedor),
+                    new ModeloTablaPaginado.Fuente<Proveedor>() {
+                        @Override
+                        public int contar() {
+                            return PrDao.ContarProveedores();
+                        }
 
+                        @Override
+                        public List<Proveedor> pagina(int desde, int cantidad) {
+                            return PrDao.PaginaProveedores(desde, cantidad);
+                        }
+
+                        @Override
+                        public List<Proveedor> siguiente(Proveedor ultimo, int cantidad) {
+                            return PrDao.ListarProveedor(ultimo.getId(), cantidad);
+                        }
+                    },
+                    pr -> new Object[]{pr.getId(), pr.getRuc(), pr.getNombre(), pr.getTelefono(), pr.getDireccion()},
+                    FILAS_PAGINA, PAGINAS_EN_MEMORIA);
+            TableProveedor.setModel(modeloProveedores);
+        }
+        modeloProveedores.refrescar();
     }
 
     /**
      *
      */
     public void ListarUsuarios() {
-        List<login> Listar = login.ListarUsuarios();
-        modelo = (DefaultTableModel) TableUsuarios.getModel();
-        Object[] ob = new Object[4];
-        for (int i = 0; i < Listar.size(); i++) {
-            ob[0] = Listar.get(i).getId();
-            ob[1] = Listar.get(i).getNombre();
-            ob[2] = Listar.get(i).getCorreo();
-            ob[3] = Listar.get(i).getRol();
-            modelo.addRow(ob);
-        }
-        TableUsuarios.setModel(modelo);
-
+        tareas.ejecutar("usuarios", login::ListarUsuarios, Listar -> {
+            modelo = (DefaultTableModel) TableUsuarios.getModel();
+            LimpiarTable();
+            Object[] ob = new Object[4];
+            for (int i = 0; i < Listar.size(); i++) {
+                ob[0] = Listar.get(i).getId();
+                ob[1] = Listar.get(i).getNombre();
+                ob[2] = Listar.get(i).getCorreo();
+                ob[3] = Listar.get(i).getRol();
+                modelo.addRow(ob);
+            }
+        });
     }
 
     /**
      *
      */
     public void ListarProductos() {
-        List<Productos> ListarPro = proDao.ListarProductos();
-        modelo = (DefaultTableModel) TableProducto.getModel();
-        Object[] ob = new Object[6];
-        for (int i = 0; i < ListarPro.size(); i++) {
-            ob[0] = ListarPro.get(i).getId();
-            ob[1] = ListarPro.get(i).getCodigo();
-            ob[2] = ListarPro.get(i).getNombre();
-            ob[3] = ListarPro.get(i).getProveedorPro();
-            ob[4] = ListarPro.get(i).getStock();
-            ob[5] = ListarPro.get(i).getPrecio();
-            modelo.addRow(ob);
-        }
-        TableProducto.setModel(modelo);
+        if (modeloProductos == null) {
+            modeloProductos = new ModeloTablaPaginado<>(ModeloTablaPaginado.columnasDe(TableProducto),
+                    new ModeloTablaPaginado.Fuente<Productos>() {
+                        @Override
+                        public int contar() {
+                            return proDao.ContarProductos();
+                        }
+
+                        @Override
+                        public List<Productos> pagina(int desde, int cantidad) {
+                            return proDao.PaginaProductos(desde, cantidad);
+                        }
 
+                        @Override
+                        public List<Productos> siguiente(Productos ultimo, int cantidad) {
+                            return proDao.ListarProductos(ultimo.getId(), cantidad);
+                        }
+                    },
+                    p -> new Object[]{p.getId(), p.getCodigo(), p.getNombre(), p.getProveedorPro(), p.getStock(), Dinero.formatear(p.getPrecioCentimos())},
+                    FILAS_PAGINA, PAGINAS_EN_MEMORIA);
+            TableProducto.setModel(modeloProductos);
+        }
+        modeloProductos.refrescar();
     }
 
     /**
      *
      */
     public void ListarConfig() {
-        conf = proDao.BuscarDatos();
-        txtIdConfig.setText("" + conf.getId());
-        txtRucConfig.setText("" + conf.getRuc());
-        txtNombreConfig.setText("" + conf.getNombre());
-        txtTelefonoConfig.setText("" + conf.getTelefono());
-        txtDireccionConfig.setText("" + conf.getDireccion());
-        txtMensaje.setText("" + conf.getMensaje());
+        tareas.ejecutar("config", proDao::BuscarDatos, c -> {
+            conf = c;
+            txtIdConfig.setText("" + conf.getId());
+            txtRucConfig.setText("" + conf.getRuc());
+            txtNombreConfig.setText("" + conf.getNombre());
+            txtTelefonoConfig.setText("" + conf.getTelefono());
+            txtDireccionConfig.setText("" + conf.getDireccion());
+            txtMensaje.setText("" + conf.getMensaje());
+        });
     }
 
     /**
      *
      */
     public void ListarVentas() {
-        List<Venta> ListarVenta = Vdao.Listarventas();
-        modelo = (DefaultTableModel) TableVentas.getModel();
-        Object[] ob = new Object[4];
-        for (int i = 0; i < ListarVenta.size(); i++) {
-            ob[0] = ListarVenta.get(i).getId();
-            ob[1] = ListarVenta.get(i).getNombre_cli();
-            ob[2] = ListarVenta.get(i).getVendedor();
-            ob[3] = ListarVenta.get(i).getTotal();
-            modelo.addRow(ob);
-        }
-        TableVentas.setModel(modelo);
+        if (modeloVentas == null) {
+            modeloVentas = new ModeloTablaPaginado<>(ModeloTablaPaginado.columnasDe(TableVentas),
+                    new ModeloTablaPaginado.Fuente<Venta>() {
+                        @Override
+                        public int contar() {
+                            return Vdao.ContarVentas();
+                        }
 
+                        @Override
+                        public List<Venta> pagina(int desde, int cantidad) {
+                            return Vdao.PaginaVentas(desde, cantidad);
+                        }
+
+                        @Override
+                        public List<Venta> siguiente(Venta ultimo, int cantidad) {
+                            return Vdao.Listarventas(ultimo.getId(), cantidad);
+                        }
+                    },
+                    vt -> new Object[]{vt.getId(), vt.getNombre_cli(), vt.getVendedor(), Dinero.formatear(vt.getTotalCentimos())},
+                    FILAS_PAGINA, PAGINAS_EN_MEMORIA);
+            TableVentas.setModel(modeloVentas);
+        }
+        modeloVentas.refrescar();
     }
 
     /**
-     *
+     * Vacía la tabla de usuarios (las demás tablas son paginadas y se
+     * refrescan con su {@code Listar*}).
      */
     public void LimpiarTable() {
         for (int i = 0; i < modelo.getRowCount(); i++) {
@@ -1404,7 +1611,6 @@ public final class Sistema extends javax.swing.JFrame {
 
     private void btnProductosMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_btnProductosMouseClicked
         // TODO add your handling code here:
-        cbxProveedorPro.removeAllItems();
         llenarProveedor();
         
     }//GEN-LAST:event_btnProductosMouseClicked
@@ -1417,15 +1623,18 @@ public final class Sistema extends javax.swing.JFrame {
             String pass = String.valueOf(txtPass.getPassword());
             String nom = txtNombre.getText();
             String rol = cbxRol.getSelectedItem().toString();
+            lg = new login();
             lg.setNombre(nom);
             lg.setCorreo(correo);
             lg.setPass(pass);
             lg.setRol(rol);
-            login.Registrar(lg);
-            JOptionPane.showMessageDialog(null, "Usuario Registrado");
-            LimpiarTable();
-            ListarUsuarios();
-            nuevoUsuario();
+            login nuevo = lg;
+            guardar("registrarUsuario", () -> login.Registrar(nuevo), ok -> {
+                JOptionPane.showMessageDialog(null, "Usuario Registrado");
+                LimpiarTable();
+                ListarUsuarios();
+                nuevoUsuario();
+            });
         }
     }//GEN-LAST:event_btnIniciarActionPerformed
     private void txtCorreoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_txtCorreoActionPerformed
@@ -1435,15 +1644,13 @@ public final class Sistema extends javax.swing.JFrame {
     private void btnActualizarConfigActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnActualizarConfigActionPerformed
         // TODO add your handling code here:
         if (!"".equals(txtRucConfig.getText()) || !"".equals(txtNombreConfig.getText()) || !"".equals(txtTelefonoConfig.getText()) || !"".equals(txtDireccionConfig.getText())) {
-            conf.setRuc(txtRucConfig.getText());
-            conf.setNombre(txtNombreConfig.getText());
-            conf.setTelefono(txtTelefonoConfig.getText());
-            conf.setDireccion(txtDireccionConfig.getText());
-            conf.setMensaje(txtMensaje.getText());
-            conf.setId(Integer.parseInt(txtIdConfig.getText()));
-            proDao.ModificarDatos(conf);
-            JOptionPane.showMessageDialog(null, "Datos de la empresa modificado");
-            ListarConfig();
+            Config datos = new Config(Integer.parseInt(txtIdConfig.getText()), txtRucConfig.getText(),
+                    txtNombreConfig.getText(), txtTelefonoConfig.getText(), txtDireccionConfig.getText(),
+                    txtMensaje.getText());
+            guardar("guardarConfig", () -> proDao.ModificarDatos(datos), ok -> {
+                JOptionPane.showMessageDialog(null, "Datos de la empresa modificado");
+                ListarConfig();
+            });
         } else {
             JOptionPane.showMessageDialog(null, "Los campos estan vacios");
         }
@@ -1454,14 +1661,20 @@ public final class Sistema extends javax.swing.JFrame {
         if(txtIdVenta.getText().equals("")){
             JOptionPane.showMessageDialog(null, "Selecciona una fila");
         }else{
-            v = Vdao.BuscarVenta(Integer.parseInt(txtIdVenta.getText()));
-            Vdao.pdfV(v.getId(), v.getCliente(), v.getTotal(), v.getVendedor());
+            int id = Integer.parseInt(txtIdVenta.getText());
+            tareas.ejecutar("pdf", () -> Vdao.BuscarVenta(id), vt -> {
+                v = vt;
+                ColaComprobantes.getInstancia().encolar(v.getId(), v.getCliente(), v.getTotalCentimos(), v.getVendedor(), abrirComprobante);
+            });
         }
     }//GEN-LAST:event_btnPdfVentasActionPerformed
 
     private void TableVentasMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_TableVentasMouseClicked
         // TODO add your handling code here:
         int fila = TableVentas.rowAtPoint(evt.getPoint());
+        if (fila < 0 || TableVentas.getValueAt(fila, 0) == null) {
+            return; // página aún no cargada
+        }
         txtIdVenta.setText(TableVentas.getValueAt(fila, 0).toString());
     }//GEN-LAST:event_TableVentasMouseClicked
 
@@ -1476,13 +1689,13 @@ public final class Sistema extends javax.swing.JFrame {
             int pregunta = JOptionPane.showConfirmDialog(null, "Esta seguro de eliminar");
             if (pregunta == 0) {
                 int id = Integer.parseInt(txtIdproducto.getText());
-                proDao.EliminarProductos(id);
-                LimpiarTable();
-                LimpiarProductos();
-                ListarProductos();
-                btnEditarpro.setEnabled(false);
-                btnEliminarPro.setEnabled(false);
-                btnGuardarpro.setEnabled(true);
+                guardar("eliminarProducto", () -> proDao.EliminarProductos(id), ok -> {
+                    LimpiarProductos();
+                    ListarProductos();
+                    btnEditarpro.setEnabled(false);
+                    btnEliminarPro.setEnabled(false);
+                    btnGuardarpro.setEnabled(true);
+                });
             }
         }else{
             JOptionPane.showMessageDialog(null, "Selecciona una fila");
@@ -1495,23 +1708,25 @@ public final class Sistema extends javax.swing.JFrame {
             JOptionPane.showMessageDialog(null, "Seleecione una fila");
         } else {
             if (!"".equals(txtCodigoPro.getText()) || !"".equals(txtDesPro.getText()) || !"".equals(txtCantPro.getText()) || !"".equals(txtPrecioPro.getText())) {
+                pro = new Productos();
                 pro.setCodigo(txtCodigoPro.getText());
                 pro.setNombre(txtDesPro.getText());
                 Combo itemP = (Combo) cbxProveedorPro.getSelectedItem();
                 pro.setProveedor(itemP.getId());
+                pro.setProveedorPro(itemP.getNombre());
                 pro.setStock(Integer.parseInt(txtCantPro.getText()));
-                pro.setPrecio(Double.parseDouble(txtPrecioPro.getText()));
+                pro.setPrecioCentimos(Dinero.parsear(txtPrecioPro.getText()));
                 pro.setId(Integer.parseInt(txtIdproducto.getText()));
-                proDao.ModificarProductos(pro);
-                JOptionPane.showMessageDialog(null, "Producto Modificado");
-                LimpiarTable();
-                ListarProductos();
-                LimpiarProductos();
-                cbxProveedorPro.removeAllItems();
-                llenarProveedor();
-                btnEditarpro.setEnabled(false);
-                btnEliminarPro.setEnabled(false);
-                btnGuardarpro.setEnabled(true);
+                Productos editado = pro;
+                guardar("modificarProducto", () -> proDao.ModificarProductos(editado), ok -> {
+                    JOptionPane.showMessageDialog(null, "Producto Modificado");
+                    ListarProductos();
+                    LimpiarProductos();
+                    llenarProveedor();
+                    btnEditarpro.setEnabled(false);
+                    btnEliminarPro.setEnabled(false);
+                    btnGuardarpro.setEnabled(true);
+                });
             }
         }
     }//GEN-LAST:event_btnEditarproActionPerformed
@@ -1519,22 +1734,24 @@ public final class Sistema extends javax.swing.JFrame {
     private void btnGuardarproActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnGuardarproActionPerformed
         // TODO add your handling code here:
         if (!"".equals(txtCodigoPro.getText()) || !"".equals(txtDesPro.getText()) || !"".equals(cbxProveedorPro.getSelectedItem()) || !"".equals(txtCantPro.getText()) || !"".equals(txtPrecioPro.getText())) {
+            pro = new Productos();
             pro.setCodigo(txtCodigoPro.getText());
             pro.setNombre(txtDesPro.getText());
             Combo itemP = (Combo) cbxProveedorPro.getSelectedItem();
             pro.setProveedor(itemP.getId());
+            pro.setProveedorPro(itemP.getNombre());
             pro.setStock(Integer.parseInt(txtCantPro.getText()));
-            pro.setPrecio(Double.parseDouble(txtPrecioPro.getText()));
-            proDao.RegistrarProductos(pro);
-            JOptionPane.showMessageDialog(null, "Productos Registrado");
-            LimpiarTable();
-            ListarProductos();
-            LimpiarProductos();
-            cbxProveedorPro.removeAllItems();
-            llenarProveedor();
-            btnEditarpro.setEnabled(false);
-            btnEliminarPro.setEnabled(false);
-            btnGuardarpro.setEnabled(true);
+            pro.setPrecioCentimos(Dinero.parsear(txtPrecioPro.getText()));
+            Productos nuevo = pro;
+            guardar("registrarProducto", () -> proDao.RegistrarProductos(nuevo), ok -> {
+                JOptionPane.showMessageDialog(null, "Productos Registrado");
+                ListarProductos();
+                LimpiarProductos();
+                llenarProveedor();
+                btnEditarpro.setEnabled(false);
+                btnEliminarPro.setEnabled(false);
+                btnGuardarpro.setEnabled(true);
+            });
         } else {
             JOptionPane.showMessageDialog(null, "Los campos estan vacios");
         }
@@ -1560,13 +1777,19 @@ public final class Sistema extends javax.swing.JFrame {
         btnEliminarPro.setEnabled(true);
         btnGuardarpro.setEnabled(true);
         int fila = TableProducto.rowAtPoint(evt.getPoint());
+        if (fila < 0 || TableProducto.getValueAt(fila, 0) == null) {
+            return; // página aún no cargada
+        }
         txtIdproducto.setText(TableProducto.getValueAt(fila, 0).toString());
-        pro = proDao.BuscarId(Integer.parseInt(txtIdproducto.getText()));
-        txtCodigoPro.setText(pro.getCodigo());
-        txtDesPro.setText(pro.getNombre());
-        txtCantPro.setText("" + pro.getStock());
-        txtPrecioPro.setText("" + pro.getPrecio());
-        cbxProveedorPro.setSelectedItem(new Combo(pro.getProveedor(), pro.getProveedorPro()));
+        int id = Integer.parseInt(txtIdproducto.getText());
+        tareas.ejecutar("producto", () -> proDao.BuscarId(id), p -> {
+            pro = p;
+            txtCodigoPro.setText(pro.getCodigo());
+            txtDesPro.setText(pro.getNombre());
+            txtCantPro.setText("" + pro.getStock());
+            txtPrecioPro.setText(Dinero.formatear(pro.getPrecioCentimos()));
+            cbxProveedorPro.setSelectedItem(new Combo(pro.getProveedor(), pro.getProveedorPro()));
+        });
     }//GEN-LAST:event_TableProductoMouseClicked
 
     private void btnEliminarProveedorActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnEliminarProveedorActionPerformed
@@ -1575,10 +1798,10 @@ public final class Sistema extends javax.swing.JFrame {
             int pregunta = JOptionPane.showConfirmDialog(null, "Esta seguro de eliminar");
             if (pregunta == 0) {
                 int id = Integer.parseInt(txtIdProveedor.getText());
-                PrDao.EliminarProveedor(id);
-                LimpiarTable();
-                ListarProveedor();
-                LimpiarProveedor();
+                guardar("eliminarProveedor", () -> PrDao.EliminarProveedor(id), ok -> {
+                    ListarProveedor();
+                    LimpiarProveedor();
+                });
             }
         } else {
             JOptionPane.showMessageDialog(null, "Seleccione una fila");
@@ -1599,19 +1822,21 @@ public final class Sistema extends javax.swing.JFrame {
             JOptionPane.showMessageDialog(null, "Seleecione una fila");
         } else {
             if (!"".equals(txtRucProveedor.getText()) || !"".equals(txtNombreproveedor.getText()) || !"".equals(txtTelefonoProveedor.getText()) || !"".equals(txtDireccionProveedor.getText())) {
+                pr = new Proveedor();
                 pr.setRuc(txtRucProveedor.getText());
                 pr.setNombre(txtNombreproveedor.getText());
                 pr.setTelefono(txtTelefonoProveedor.getText());
                 pr.setDireccion(txtDireccionProveedor.getText());
                 pr.setId(Integer.parseInt(txtIdProveedor.getText()));
-                PrDao.ModificarProveedor(pr);
-                JOptionPane.showMessageDialog(null, "Proveedor Modificado");
-                LimpiarTable();
-                ListarProveedor();
-                LimpiarProveedor();
-                btnEditarProveedor.setEnabled(false);
-                btnEliminarProveedor.setEnabled(false);
-                btnguardarProveedor.setEnabled(true);
+                Proveedor editado = pr;
+                guardar("modificarProveedor", () -> PrDao.ModificarProveedor(editado), ok -> {
+                    JOptionPane.showMessageDialog(null, "Proveedor Modificado");
+                    ListarProveedor();
+                    LimpiarProveedor();
+                    btnEditarProveedor.setEnabled(false);
+                    btnEliminarProveedor.setEnabled(false);
+                    btnguardarProveedor.setEnabled(true);
+                });
             }
         }
     }//GEN-LAST:event_btnEditarProveedorActionPerformed
@@ -1619,18 +1844,20 @@ public final class Sistema extends javax.swing.JFrame {
     private void btnguardarProveedorActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnguardarProveedorActionPerformed
         // TODO add your handling code here:
         if (!"".equals(txtRucProveedor.getText()) || !"".equals(txtNombreproveedor.getText()) || !"".equals(txtTelefonoProveedor.getText()) || !"".equals(txtDireccionProveedor.getText())) {
+            pr = new Proveedor();
             pr.setRuc(txtRucProveedor.getText());
             pr.setNombre(txtNombreproveedor.getText());
             pr.setTelefono(txtTelefonoProveedor.getText());
             pr.setDireccion(txtDireccionProveedor.getText());
-            PrDao.RegistrarProveedor(pr);
-            JOptionPane.showMessageDialog(null, "Proveedor Registrado");
-            LimpiarTable();
-            ListarProveedor();
-            LimpiarProveedor();
-            btnEditarProveedor.setEnabled(false);
-            btnEliminarProveedor.setEnabled(false);
-            btnguardarProveedor.setEnabled(true);
+            Proveedor nuevo = pr;
+            guardar("registrarProveedor", () -> PrDao.RegistrarProveedor(nuevo), ok -> {
+                JOptionPane.showMessageDialog(null, "Proveedor Registrado");
+                ListarProveedor();
+                LimpiarProveedor();
+                btnEditarProveedor.setEnabled(false);
+                btnEliminarProveedor.setEnabled(false);
+                btnguardarProveedor.setEnabled(true);
+            });
         } else {
             JOptionPane.showMessageDialog(null, "Los campos esta vacios");
         }
@@ -1642,6 +1869,9 @@ public final class Sistema extends javax.swing.JFrame {
         btnEliminarProveedor.setEnabled(true);
         btnguardarProveedor.setEnabled(false);
         int fila = TableProveedor.rowAtPoint(evt.getPoint());
+        if (fila < 0 || TableProveedor.getValueAt(fila, 0) == null) {
+            return; // página aún no cargada
+        }
         txtIdProveedor.setText(TableProveedor.getValueAt(fila, 0).toString());
         txtRucProveedor.setText(TableProveedor.getValueAt(fila, 1).toString());
         txtNombreproveedor.setText(TableProveedor.getValueAt(fila, 2).toString());
@@ -1663,10 +1893,10 @@ public final class Sistema extends javax.swing.JFrame {
             int pregunta = JOptionPane.showConfirmDialog(null, "Esta seguro de eliminar");
             if (pregunta == 0) {
                 int id = Integer.parseInt(txtIdCliente.getText());
-                client.EliminarCliente(id);
-                LimpiarTable();
-                LimpiarCliente();
-                ListarCliente();
+                guardar("eliminarCliente", () -> client.EliminarCliente(id), ok -> {
+                    LimpiarCliente();
+                    ListarCliente();
+                });
             }
         }
     }//GEN-LAST:event_btnEliminarClienteActionPerformed
@@ -1678,16 +1908,18 @@ public final class Sistema extends javax.swing.JFrame {
         } else {
 
             if (!"".equals(txtDniCliente.getText()) || !"".equals(txtNombreCliente.getText()) || !"".equals(txtTelefonoCliente.getText())) {
+                cl = new Cliente();
                 cl.setDni(txtDniCliente.getText());
                 cl.setNombre(txtNombreCliente.getText());
                 cl.setTelefono(txtTelefonoCliente.getText());
                 cl.setDireccion(txtDirecionCliente.getText());
                 cl.setId(Integer.parseInt(txtIdCliente.getText()));
-                client.ModificarCliente(cl);
-                JOptionPane.showMessageDialog(null, "Cliente Modificado");
-                LimpiarTable();
-                LimpiarCliente();
-                ListarCliente();
+                Cliente editado = cl;
+                guardar("modificarCliente", () -> client.ModificarCliente(editado), ok -> {
+                    JOptionPane.showMessageDialog(null, "Cliente Modificado");
+                    LimpiarCliente();
+                    ListarCliente();
+                });
             } else {
                 JOptionPane.showMessageDialog(null, "Los campos estan vacios");
             }
@@ -1697,18 +1929,20 @@ public final class Sistema extends javax.swing.JFrame {
     private void btnGuardarClienteActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnGuardarClienteActionPerformed
         // TODO add your handling code here:
         if (!"".equals(txtDniCliente.getText()) || !"".equals(txtNombreCliente.getText()) || !"".equals(txtTelefonoCliente.getText()) || !"".equals(txtDirecionCliente.getText())) {
+            cl = new Cliente();
             cl.setDni(txtDniCliente.getText());
             cl.setNombre(txtNombreCliente.getText());
             cl.setTelefono(txtTelefonoCliente.getText());
             cl.setDireccion(txtDirecionCliente.getText());
-            client.RegistrarCliente(cl);
-            JOptionPane.showMessageDialog(null, "Cliente Registrado");
-            LimpiarTable();
-            LimpiarCliente();
-            ListarCliente();
-            btnEditarCliente.setEnabled(false);
-            btnEliminarCliente.setEnabled(false);
-            btnGuardarCliente.setEnabled(true);
+            Cliente nuevo = cl;
+            guardar("registrarCliente", () -> client.RegistrarCliente(nuevo), ok -> {
+                JOptionPane.showMessageDialog(null, "Cliente Registrado");
+                LimpiarCliente();
+                ListarCliente();
+                btnEditarCliente.setEnabled(false);
+                btnEliminarCliente.setEnabled(false);
+                btnGuardarCliente.setEnabled(true);
+            });
         } else {
             JOptionPane.showMessageDialog(null, "Los campos estan vacios");
         }
@@ -1724,6 +1958,9 @@ public final class Sistema extends javax.swing.JFrame {
         btnEliminarCliente.setEnabled(true);
         btnGuardarCliente.setEnabled(false);
         int fila = TableCliente.rowAtPoint(evt.getPoint());
+        if (fila < 0 || TableCliente.getValueAt(fila, 0) == null) {
+            return; // página aún no cargada
+        }
         txtIdCliente.setText(TableCliente.getValueAt(fila, 0).toString());
         txtDniCliente.setText(TableCliente.getValueAt(fila, 1).toString());
         txtNombreCliente.setText(TableCliente.getValueAt(fila, 2).toString());
@@ -1735,19 +1972,16 @@ public final class Sistema extends javax.swing.JFrame {
         // TODO add your handling code here:
 
         String fechaReporte = new SimpleDateFormat("dd/MM/yyyy").format(Midate.getDate());
-        Grafico.Graficar(fechaReporte);
+        // La consulta corre en segundo plano; la ventana del gráfico se arma en el EDT.
+        tareas.ejecutar("grafico", () -> Grafico.Datos(fechaReporte), Grafico::Mostrar);
 
     }//GEN-LAST:event_btnGraficarActionPerformed
 
     private void btnGenerarVentaActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnGenerarVentaActionPerformed
         // TODO add your handling code here:
-        if (TableVenta.getRowCount() > 0) {
+        if (!carrito.estaVacio()) {
             if (!"".equals(txtNombreClienteventa.getText())) {
                 RegistrarVenta();
-                RegistrarDetalle();
-                ActualizarStock();
-                LimpiarTableVenta();
-                LimpiarClienteventa();
             } else {
                 JOptionPane.showMessageDialog(null, "Debes buscar un cliente");
             }
@@ -1766,22 +2000,30 @@ public final class Sistema extends javax.swing.JFrame {
         if (evt.getKeyCode() == KeyEvent.VK_ENTER) {
             if (!"".equals(txtRucVenta.getText())) {
                 int dni = Integer.parseInt(txtRucVenta.getText());
-                cl = client.Buscarcliente(dni);
-                if (cl.getNombre() != null) {
-                    txtNombreClienteventa.setText("" + cl.getNombre());
-                    txtIdCV.setText("" + cl.getId());
-                } else {
-                    txtRucVenta.setText("");
-                    JOptionPane.showMessageDialog(null, "El cliente no existe");
-                }
+                tareas.ejecutar("cliente", () -> client.Buscarcliente(dni), c -> {
+                    cl = c;
+                    if (cl.getNombre() != null) {
+                        txtNombreClienteventa.setText("" + cl.getNombre());
+                        txtIdCV.setText("" + cl.getId());
+                    } else {
+                        txtRucVenta.setText("");
+                        JOptionPane.showMessageDialog(null, "El cliente no existe");
+                    }
+                });
             }
         }
     }//GEN-LAST:event_txtRucVentaKeyPressed
 
     private void btnEliminarventaActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnEliminarventaActionPerformed
         // TODO add your handling code here:
-        modelo = (DefaultTableModel) TableVenta.getModel();
-        modelo.removeRow(TableVenta.getSelectedRow());
+        int fila = TableVenta.getSelectedRow();
+        if (fila < 0) {
+            JOptionPane.showMessageDialog(null, "Seleccione un producto");
+            return;
+        }
+        DefaultTableModel venta = (DefaultTableModel) TableVenta.getModel();
+        carrito.quitar((Integer) venta.getValueAt(fila, 0));
+        venta.removeRow(fila);
         TotalPagar();
         txtCodigoVenta.requestFocus();
     }//GEN-LAST:event_btnEliminarventaActionPerformed
@@ -1798,33 +2040,17 @@ public final class Sistema extends javax.swing.JFrame {
                 int id = Integer.parseInt(txtIdPro.getText());
                 String descripcion = txtDescripcionVenta.getText();
                 int cant = Integer.parseInt(txtCantidadVenta.getText());
-                double precio = Double.parseDouble(txtPrecioVenta.getText());
-                double total = cant * precio;
+                long precio = Dinero.parsear(txtPrecioVenta.getText());
                 int stock = Integer.parseInt(txtStockDisponible.getText());
                 if (stock >= cant) {
-                    item = item + 1;
-                    tmp = (DefaultTableModel) TableVenta.getModel();
-                    for (int i = 0; i < TableVenta.getRowCount(); i++) {
-                        if (TableVenta.getValueAt(i, 1).equals(txtDescripcionVenta.getText())) {
-                            JOptionPane.showMessageDialog(null, "El producto ya esta registrado");
-                            return;
-                        }
+                    Carrito.Linea linea = carrito.agregar(id, descripcion, cant, precio);
+                    if (linea == null) {
+                        JOptionPane.showMessageDialog(null, "El producto ya esta registrado");
+                        return;
                     }
-                    ArrayList lista = new ArrayList();
-                    lista.add(item);
-                    lista.add(id);
-                    lista.add(descripcion);
-                    lista.add(cant);
-                    lista.add(precio);
-                    lista.add(total);
-                    Object[] O = new Object[5];
-                    O[0] = lista.get(1);
-                    O[1] = lista.get(2);
-                    O[2] = lista.get(3);
-                    O[3] = lista.get(4);
-                    O[4] = lista.get(5);
-                    tmp.addRow(O);
-                    TableVenta.setModel(tmp);
+                    tmp = (DefaultTableModel) TableVenta.getModel();
+                    tmp.addRow(new Object[]{id, descripcion, cant, Dinero.formatear(precio),
+                        Dinero.formatear(linea.getSubtotalCentimos())});
                     TotalPagar();
                     LimparVenta();
                     txtCodigoVenta.requestFocus();
@@ -1851,18 +2077,7 @@ public final class Sistema extends javax.swing.JFrame {
         // TODO add your handling code here:
         if (evt.getKeyCode() == KeyEvent.VK_ENTER) {
             if (!"".equals(txtCodigoVenta.getText())) {
-                String cod = txtCodigoVenta.getText();
-                pro = proDao.BuscarPro(cod);
-                if (pro.getNombre() != null) {
-                    txtIdPro.setText("" + pro.getId());
-                    txtDescripcionVenta.setText("" + pro.getNombre());
-                    txtPrecioVenta.setText("" + pro.getPrecio());
-                    txtStockDisponible.setText("" + pro.getStock());
-                    txtCantidadVenta.requestFocus();
-                } else {
-                    LimparVenta();
-                    txtCodigoVenta.requestFocus();
-                }
+                BuscarProductoVenta(txtCodigoVenta.getText());
             } else {
                 JOptionPane.showMessageDialog(null, "Ingrese el codigo del productos");
                 txtCodigoVenta.requestFocus();
@@ -1870,6 +2085,23 @@ public final class Sistema extends javax.swing.JFrame {
         }
     }//GEN-LAST:event_txtCodigoVentaKeyPressed
 
+    // Carga en la pestaña de venta el producto con ese código.
+    private void BuscarProductoVenta(String cod) {
+        tareas.ejecutar("codigo", () -> proDao.BuscarPro(cod), p -> {
+            pro = p;
+            if (pro.getNombre() != null) {
+                txtIdPro.setText("" + pro.getId());
+                txtDescripcionVenta.setText("" + pro.getNombre());
+                txtPrecioVenta.setText(Dinero.formatear(pro.getPrecioCentimos()));
+                txtStockDisponible.setText("" + pro.getStock());
+                txtCantidadVenta.requestFocus();
+            } else {
+                LimparVenta();
+                txtCodigoVenta.requestFocus();
+            }
+        });
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -2061,14 +2293,9 @@ public final class Sistema extends javax.swing.JFrame {
         txtPrecioPro.setText("");
     }
 
+    // El carrito mantiene el total; solo se actualiza la etiqueta.
     private void TotalPagar() {
-        Totalpagar = 0.00;
-        int numFila = TableVenta.getRowCount();
-        for (int i = 0; i < numFila; i++) {
-            double cal = Double.parseDouble(String.valueOf(TableVenta.getModel().getValueAt(i, 4)));
-            Totalpagar = Totalpagar + cal;
-        }
-        LabelTotal.setText(String.format("%.2f", Totalpagar));
+        LabelTotal.setText(Dinero.formatear(carrito.getTotalCentimos()));
     }
 
     private void LimparVenta() {
@@ -2083,48 +2310,68 @@ public final class Sistema extends javax.swing.JFrame {
     private void RegistrarVenta() {
         int cliente = Integer.parseInt(txtIdCV.getText());
         String vendedor = LabelVendedor.getText();
-        double monto = Totalpagar;
+        long monto = carrito.getTotalCentimos();
+        v = new Venta();
         v.setCliente(cliente);
         v.setVendedor(vendedor);
-        v.setTotal(monto);
-        v.setFecha(fechaActual);
-        Vdao.RegistrarVenta(v);
+        v.setTotalCentimos(monto);
+        // Fecha y hora del cobro, no de cuando se abrió la ventana.
+        LocalDateTime ahora = LocalDateTime.now();
+        v.setFecha(ahora.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        v.setFechaHora(ahora);
+        List<Detalle> detalles = carrito.getDetalles();
+        Venta venta = v;
+        // Cabecera, detalles y stock en una sola transacción. No se cancela: al
+        // pulsar Esc la venta podría estar ya confirmada. Mientras corre no se
+        // pueden agregar ni quitar líneas: al terminar se vacía el carrito entero.
+        bloquearVenta(true);
+        tareas.ejecutarSinCancelar("venta", () -> Vdao.RegistrarVentaCompleta(venta, detalles), res -> {
+            if (res.isExito()) {
+                // El PDF se genera en segundo plano; la caja sigue atendiendo.
+                ColaComprobantes.getInstancia().encolar(res.getIdVenta(), cliente, monto, vendedor, abrirComprobante);
+                LimpiarTableVenta();
+                LimpiarClienteventa();
+            } else if (res.isEnDiario()) {
+                LimpiarTableVenta();
+                LimpiarClienteventa();
+                JOptionPane.showMessageDialog(null, "Sin conexión con la base de datos: la venta se guardó en esta caja"
+                        + "\ny se registrará sola al volver la conexión. El comprobante se podrá imprimir desde Ventas.");
+            } else if (!res.getFaltantes().isEmpty()) {
+                StringBuilder msg = new StringBuilder("Stock insuficiente, la venta no se registró:");
+                for (ResultadoVenta.Faltante f : res.getFaltantes()) {
+                    msg.append("\n- ").append(f);
+                }
+                JOptionPane.showMessageDialog(null, msg.toString());
+            } else {
+                JOptionPane.showMessageDialog(null, "No se pudo registrar la venta");
+            }
+        }, () -> bloquearVenta(false));
     }
 
-    private void RegistrarDetalle() {
-        int id = Vdao.IdVenta();
-        for (int i = 0; i < TableVenta.getRowCount(); i++) {
-            int id_pro = Integer.parseInt(TableVenta.getValueAt(i, 0).toString());
-            int cant = Integer.parseInt(TableVenta.getValueAt(i, 2).toString());
-            double precio = Double.parseDouble(TableVenta.getValueAt(i, 3).toString());
-            Dv.setId_pro(id_pro);
-            Dv.setCantidad(cant);
-            Dv.setPrecio(precio);
-            Dv.setId(id);
-            Vdao.RegistrarDetalle(Dv);
-
+    // Altas, cambios y bajas: no se cancelan con Esc. Cada operación tiene su
+    // clave; si la misma sigue en curso (doble clic) se avisa en lugar de
+    // ignorar el clic sin decir nada.
+    private <T> void guardar(String clave, TareasFondo.Trabajo<T> trabajo, TareasFondo.Resultado<T> alTerminar) {
+        if (!tareas.ejecutarSinCancelar(clave, trabajo, alTerminar)) {
+            JOptionPane.showMessageDialog(null, "La operación anterior todavía se está guardando; espere a que termine");
         }
-        int cliente = Integer.parseInt(txtIdCV.getText());
-        Vdao.pdfV(id, cliente, Totalpagar, LabelVendedor.getText());
     }
 
-    private void ActualizarStock() {
-        for (int i = 0; i < TableVenta.getRowCount(); i++) {
-            int id = Integer.parseInt(TableVenta.getValueAt(i, 0).toString());
-            int cant = Integer.parseInt(TableVenta.getValueAt(i, 2).toString());
-            pro = proDao.BuscarId(id);
-            int StockActual = pro.getStock() - cant;
-            Vdao.ActualizarStock(StockActual, id);
-
-        }
+    // Deshabilita la carga de líneas y el cobro mientras se registra una venta.
+    private void bloquearVenta(boolean bloquear) {
+        txtCodigoVenta.setEnabled(!bloquear);
+        txtDescripcionVenta.setEnabled(!bloquear);
+        txtCantidadVenta.setEnabled(!bloquear);
+        btnEliminarventa.setEnabled(!bloquear);
+        btnGenerarVenta.setEnabled(!bloquear);
+        txtRucVenta.setEnabled(!bloquear);
     }
 
     private void LimpiarTableVenta() {
+        carrito.vaciar();
         tmp = (DefaultTableModel) TableVenta.getModel();
-        int fila = TableVenta.getRowCount();
-        for (int i = 0; i < fila; i++) {
-            tmp.removeRow(0);
-        }
+        tmp.setRowCount(0);
+        TotalPagar();
     }
 
     private void LimpiarClienteventa() {
@@ -2138,11 +2385,13 @@ public final class Sistema extends javax.swing.JFrame {
         txtPass.setText("");
     }
     private void llenarProveedor(){
-        List<Proveedor> lista = PrDao.ListarProveedor();
-        for (int i = 0; i < lista.size(); i++) {
-            int id = lista.get(i).getId();
-            String nombre = lista.get(i).getNombre();
-            cbxProveedorPro.addItem(new Combo(id, nombre));
-        }
+        tareas.ejecutar("proveedores", PrDao::ListarProveedor, lista -> {
+            cbxProveedorPro.removeAllItems();
+            for (int i = 0; i < lista.size(); i++) {
+                int id = lista.get(i).getId();
+                String nombre = lista.get(i).getNombre();
+                cbxProveedorPro.addItem(new Combo(id, nombre));
+            }
+        });
     }
 }
@@ -0,0 +1,286 @@
+package Vista;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+
+/**
+ * Ejecuta el trabajo de BD (y de PDF) fuera del hilo de Swing y entrega el
+ * resultado de vuelta en el EDT.
+ * <p>Cada tarea tiene una clave ({@code "venta"}, {@code "cliente"}, ...). Si se
+ * lanza una tarea con una clave que ya está en curso, la anterior se cancela y
+ * su resultado se descarta: solo se muestra el de la última solicitud. Las
+ * tareas no cancelables (por ejemplo registrar una venta, que ya puede haber
+ * confirmado la transacción) no se reemplazan; la nueva solicitud se ignora.</p>
+ *
+ * <p>Mientras haya tareas en curso se muestra la barra de progreso y el cursor
+ * de espera. Las tareas lanzadas con {@link #ejecutarConAvance} informan un
+ * porcentaje, que la barra muestra mientras corren. Todos los métodos deben
+ * llamarse desde el EDT.</p>
+ *
+ * @author Eduardo Jimenez
+ */
+public class TareasFondo {
+
+    /**
+     * Trabajo que corre fuera del EDT.
+     *
+     * @param <T> tipo del resultado
+     */
+    public interface Trabajo<T> {
+        /**
+         * @return resultado a entregar en el EDT
+         * @throws Exception cualquier error; se informa al usuario
+         */
+        T ejecutar() throws Exception;
+    }
+
+    /**
+     * Trabajo que corre fuera del EDT e informa cuánto lleva.
+     *
+     * @param <T> tipo del resultado
+     */
+    public interface TrabajoConAvance<T> {
+        /**
+         * @param avance recibe el porcentaje completado (0 a 100); se puede
+         *               llamar desde el hilo del trabajo tantas veces como se quiera
+         * @return resultado a entregar en el EDT
+         * @throws Exception cualquier error; se informa al usuario
+         */
+        T ejecutar(Avance avance) throws Exception;
+    }
+
+    /**
+     * Recibe el avance de un {@link TrabajoConAvance}.
+     */
+    public interface Avance {
+        /**
+         * @param porcentaje porcentaje completado, de 0 a 100
+         */
+        void avance(int porcentaje);
+    }
+
+    /**
+     * Recibe el resultado en el EDT.
+     *
+     * @param <T> tipo del resultado
+     */
+    public interface Resultado<T> {
+        /**
+         * @param valor lo devuelto por el trabajo
+         */
+        void listo(T valor);
+    }
+
+    private final Component ventana;
+    private final JProgressBar barra;
+    private final Map<String, Tarea<?>> enCurso = new HashMap<>();
+
+    /**
+     * @param ventana ventana donde se muestra el cursor de espera
+     * @param barra   barra que indica que hay trabajo en curso
+     */
+    public TareasFondo(Component ventana, JProgressBar barra) {
+        this.ventana = ventana;
+        this.barra = barra;
+        barra.setIndeterminate(true);
+        barra.setVisible(false);
+    }
+
+    /**
+     * Lanza una tarea cancelable; reemplaza a la que esté en curso con la misma
+     * clave (salvo que esa no sea cancelable, en cuyo caso no se lanza nada).
+     *
+     * @param clave      identifica el tipo de tarea
+     * @param trabajo    trabajo a ejecutar en segundo plano
+     * @param alTerminar recibe el resultado en el EDT (no se llama si se canceló)
+     */
+    public <T> void ejecutar(String clave, Trabajo<T> trabajo, Resultado<T> alTerminar) {
+        Tarea<?> anterior = enCurso.get(clave);
+        if (anterior != null) {
+            if (!anterior.cancelable) {
+                return;
+            }
+            anterior.descartar();
+        }
+        iniciar(new Tarea<>(clave, a -> trabajo.ejecutar(), alTerminar, true, false));
+    }
+
+    /**
+     * Como {@link #ejecutar(String, Trabajo, Resultado)}, pero la barra muestra
+     * el porcentaje que informa el trabajo en lugar de solo indicar actividad.
+     *
+     * @param clave      identifica el tipo de tarea
+     * @param trabajo    trabajo a ejecutar en segundo plano
+     * @param alTerminar recibe el resultado en el EDT (no se llama si se canceló)
+     */
+    public <T> void ejecutarConAvance(String clave, TrabajoConAvance<T> trabajo, Resultado<T> alTerminar) {
+        Tarea<?> anterior = enCurso.get(clave);
+        if (anterior != null) {
+            if (!anterior.cancelable) {
+                return;
+            }
+            anterior.descartar();
+        }
+        iniciar(new Tarea<>(clave, trabajo, alTerminar, true, true));
+    }
+
+    /**
+     * Lanza una tarea que no se puede cancelar ni reemplazar.
+     *
+     * @param clave      identifica el tipo de tarea
+     * @param trabajo    trabajo a ejecutar en segundo plano
+     * @param alTerminar recibe el resultado en el EDT
+     * @return false si ya había una tarea en curso con esa clave (no se lanza otra)
+     */
+    public <T> boolean ejecutarSinCancelar(String clave, Trabajo<T> trabajo, Resultado<T> alTerminar) {
+        return ejecutarSinCancelar(clave, trabajo, alTerminar, null);
+    }
+
+    /**
+     * Como {@link #ejecutarSinCancelar(String, Trabajo, Resultado)}, con una
+     * acción que se ejecuta en el EDT al terminar, haya salido bien o no (por
+     * ejemplo para volver a habilitar lo que se bloqueó mientras corría).
+     *
+     * @param clave      identifica el tipo de tarea
+     * @param trabajo    trabajo a ejecutar en segundo plano
+     * @param alTerminar recibe el resultado en el EDT
+     * @param alFinal    se ejecuta en el EDT después de {@code alTerminar} o del error
+     * @return false si ya había una tarea en curso con esa clave (no se lanza otra)
+     */
+    public <T> boolean ejecutarSinCancelar(String clave, Trabajo<T> trabajo, Resultado<T> alTerminar,
+            Runnable alFinal) {
+        if (enCurso.containsKey(clave)) {
+            return false;
+        }
+        Tarea<T> t = new Tarea<>(clave, a -> trabajo.ejecutar(), alTerminar, false, false);
+        t.alFinal = alFinal;
+        iniciar(t);
+        return true;
+    }
+
+    /**
+     * Cancela la tarea en curso con esa clave, si es cancelable.
+     *
+     * @param clave clave de la tarea
+     */
+    public void cancelar(String clave) {
+        Tarea<?> t = enCurso.get(clave);
+        if (t != null && t.cancelable) {
+            t.descartar();
+            terminar(t);
+        }
+    }
+
+    /**
+     * Cancela todas las tareas cancelables en curso.
+     */
+    public void cancelarTodo() {
+        for (String clave : enCurso.keySet().toArray(new String[0])) {
+            cancelar(clave);
+        }
+    }
+
+    /**
+     * @param clave clave de la tarea
+     * @return true si hay una tarea en curso con esa clave
+     */
+    public boolean enCurso(String clave) {
+        return enCurso.containsKey(clave);
+    }
+
+    private void iniciar(Tarea<?> t) {
+        enCurso.put(t.clave, t);
+        if (t.conAvance) {
+            t.addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName())) {
+                    indicador();
+                }
+            });
+        }
+        indicador();
+        t.execute();
+    }
+
+    private void terminar(Tarea<?> t) {
+        if (enCurso.get(t.clave) == t) {
+            enCurso.remove(t.clave);
+        }
+        indicador();
+    }
+
+    private void indicador() {
+        boolean ocupado = !enCurso.isEmpty();
+        // Con una tarea que informa avance se muestra su porcentaje.
+        Tarea<?> medida = null;
+        for (Tarea<?> t : enCurso.values()) {
+            if (t.conAvance) {
+                medida = t;
+            }
+        }
+        barra.setIndeterminate(medida == null);
+        barra.setStringPainted(medida != null);
+        if (medida != null) {
+            barra.setValue(medida.getProgress());
+        }
+        barra.setVisible(ocupado);
+        ventana.setCursor(ocupado ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    private class Tarea<T> extends SwingWorker<T, Void> {
+        private final String clave;
+        private final TrabajoConAvance<T> trabajo;
+        private final Resultado<T> alTerminar;
+        private final boolean cancelable;
+        private final boolean conAvance;
+        // Reemplazada o cancelada: su resultado ya no interesa.
+        private boolean descartada;
+        // Se ejecuta siempre al terminar; puede ser null.
+        private Runnable alFinal;
+
+        Tarea(String clave, TrabajoConAvance<T> trabajo, Resultado<T> alTerminar, boolean cancelable,
+                boolean conAvance) {
+            this.clave = clave;
+            this.trabajo = trabajo;
+            this.alTerminar = alTerminar;
+            this.cancelable = cancelable;
+            this.conAvance = conAvance;
+        }
+
+        void descartar() {
+            descartada = true;
+            cancel(true);
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            return trabajo.ejecutar(p -> setProgress(Math.max(0, Math.min(100, p))));
+        }
+
+        @Override
+        protected void done() {
+            terminar(this);
+            try {
+                if (descartada) {
+                    return;
+                }
+                alTerminar.listo(get());
+            } catch (CancellationException | InterruptedException e) {
+                // cancelada: no hay resultado que mostrar
+            } catch (ExecutionException e) {
+                System.out.println(e.getCause().toString());
+                JOptionPane.showMessageDialog(ventana, "Error: " + e.getCause().getMessage());
+            } finally {
+                if (alFinal != null) {
+                    alFinal.run();
+                }
+            }
+        }
+    }
+}
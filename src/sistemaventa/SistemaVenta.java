@@ -5,7 +5,14 @@
  */
 package sistemaventa;
 
+import Modelo.Cambios;
+import Modelo.DiarioVentas;
+import Modelo.Migraciones;
+import Modelo.Resumenes;
 import Vista.Login;
+import java.sql.SQLException;
+import java.util.Arrays;
+import javax.swing.JOptionPane;
 
 /**
  *
@@ -14,10 +21,44 @@ import Vista.Login;
 public class SistemaVenta {
 
     /**
-     * @param args the command line arguments
+     * @param args the command line arguments; {@code --reconstruir-resumenes}
+     *             recalcula los resúmenes de ventas y termina sin abrir la ventana;
+     *             {@code --reintentar-rechazadas} vuelve a reenviar las ventas del
+     *             diario que la BD rechazó (una vez corregida la causa)
      */
     public static void main(String[] args) {
-        // TODO code application logic here
+        // Pone la BD al día antes de que la use cualquier pantalla.
+        try {
+            Migraciones.aplicar();
+        } catch (SQLException e) {
+            System.out.println(e.toString());
+            if (e.getSQLState() == null || !e.getSQLState().startsWith("08")) {
+                // Con el esquema a medias la caja fallaría en cada venta: no se abre.
+                JOptionPane.showMessageDialog(null, "No se pudo actualizar la base de datos:\n" + e.getMessage()
+                        + "\n\nEl sistema no se iniciará hasta resolverlo.");
+                System.exit(1);
+            }
+            // Sin conexión se abre igual: las ventas van al diario local, y el
+            // reenvío migra apenas vuelva la BD, antes de registrarlas.
+            DiarioVentas.getInstancia().marcarSinConexion();
+            JOptionPane.showMessageDialog(null, "No se pudo actualizar la base de datos:\n" + e.getMessage());
+        }
+        if (args.length > 0 && "--reconstruir-resumenes".equals(args[0])) {
+            try {
+                System.out.println("Resúmenes de ventas reconstruidos: " + Resumenes.Reconstruir() + " días");
+            } catch (SQLException e) {
+                System.out.println(e.toString());
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+        // Punto de partida de los cambios de otras cajas, antes de que Sistema cargue las cachés.
+        Cambios.getInstancia().iniciar();
+        // Registra las ventas que quedaron guardadas sin conexión y sigue atento a nuevas.
+        DiarioVentas.getInstancia().iniciar();
+        if (Arrays.asList(args).contains("--reintentar-rechazadas")) {
+            DiarioVentas.getInstancia().reintentarRechazadas();
+        }
         Login lg = new Login();
         lg.setVisible(true);
     }
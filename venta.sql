@@ -160,25 +160,158 @@ CREATE TABLE `ventas` (
   `cliente` int(11) NOT NULL,
   `vendedor` varchar(60) COLLATE utf8_spanish_ci NOT NULL,
   `total` decimal(10,2) NOT NULL,
-  `fecha` varchar(20) COLLATE utf8_spanish_ci NOT NULL
+  `fecha` varchar(20) COLLATE utf8_spanish_ci NOT NULL,
+  `fecha_hora` datetime DEFAULT NULL,
+  `uuid` char(36) COLLATE utf8_spanish_ci DEFAULT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
 
 --
 -- Volcado de datos para la tabla `ventas`
 --
-INSERT INTO `ventas` (`id`, `cliente`, `vendedor`, `total`, `fecha`) VALUES
-(4, 1, 'Angel Sifuentes', '15000.00', '25/07/2021'),
-(5, 2, 'Eduardo Jimenez', '12.00', '28/09/2025'),
-(6, 3, 'Ana Torres', '18.40', '27/09/2025'),
-(7, 4, 'Eduardo Jimenez', '6.20', '26/09/2025'),
-(8, 5, 'Angel Sifuentes', '20.00', '25/09/2025');
+INSERT INTO `ventas` (`id`, `cliente`, `vendedor`, `total`, `fecha`, `fecha_hora`) VALUES
+(4, 1, 'Angel Sifuentes', '15000.00', '25/07/2021', '2021-07-25 00:00:00'),
+(5, 2, 'Eduardo Jimenez', '12.00', '28/09/2025', '2025-09-28 00:00:00'),
+(6, 3, 'Ana Torres', '18.40', '27/09/2025', '2025-09-27 00:00:00'),
+(7, 4, 'Eduardo Jimenez', '6.20', '26/09/2025', '2025-09-26 00:00:00'),
+(8, 5, 'Angel Sifuentes', '20.00', '25/09/2025', '2025-09-25 00:00:00');
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `schema_version`
+-- (migraciones ya incluidas en este volcado; ver Modelo.Migraciones)
+--
+CREATE TABLE `schema_version` (
+  `version` int(11) NOT NULL,
+  `descripcion` varchar(100) COLLATE utf8_spanish_ci NOT NULL,
+  `aplicada` datetime NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+INSERT INTO `schema_version` (`version`, `descripcion`, `aplicada`) VALUES
+(1, 'ventas fecha hora', '2025-09-28 16:30:00'),
+(2, 'indices busqueda', '2025-09-28 16:30:00'),
+(3, 'ventas uuid', '2025-09-28 16:30:00'),
+(4, 'cambios', '2025-09-28 16:30:00'),
+(5, 'historial precios', '2025-09-28 16:30:00'),
+(6, 'resumenes ventas', '2025-09-28 16:30:00');
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `cambios`
+-- (qué filas cambió cada caja; ver Modelo.Cambios)
+--
+CREATE TABLE `cambios` (
+  `seq` bigint(20) NOT NULL,
+  `tabla` varchar(20) COLLATE utf8_spanish_ci NOT NULL,
+  `id_fila` int(11) NOT NULL,
+  `operacion` char(1) COLLATE utf8_spanish_ci NOT NULL,
+  `origen` char(36) COLLATE utf8_spanish_ci NOT NULL,
+  `fecha` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `lotes_precios`
+-- (cambios de precio masivos; ver Modelo.PreciosDao)
+--
+
+CREATE TABLE `lotes_precios` (
+  `id` int(11) NOT NULL,
+  `descripcion` varchar(200) COLLATE utf8_spanish_ci NOT NULL,
+  `usuario` varchar(100) COLLATE utf8_spanish_ci NOT NULL,
+  `fecha` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `productos` int(11) NOT NULL DEFAULT 0,
+  `revertido` tinyint(1) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `historial_precios`
+--
+
+CREATE TABLE `historial_precios` (
+  `id_lote` int(11) NOT NULL,
+  `id_pro` int(11) NOT NULL,
+  `precio_anterior` decimal(10,2) NOT NULL,
+  `precio_nuevo` decimal(10,2) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `resumen_dia`
+-- (ventas por día, sumadas al registrar cada venta; ver Modelo.Resumenes)
+--
+
+CREATE TABLE `resumen_dia` (
+  `dia` date NOT NULL,
+  `ventas` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+INSERT INTO `resumen_dia` (`dia`, `ventas`, `total`) VALUES
+('2021-07-25', 1, '15000.00'),
+('2025-09-25', 1, '20.00'),
+('2025-09-26', 1, '6.20'),
+('2025-09-27', 1, '18.40'),
+('2025-09-28', 1, '12.00');
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `resumen_producto_dia`
+--
+
+CREATE TABLE `resumen_producto_dia` (
+  `dia` date NOT NULL,
+  `id_pro` int(11) NOT NULL,
+  `cantidad` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+INSERT INTO `resumen_producto_dia` (`dia`, `id_pro`, `cantidad`, `total`) VALUES
+('2021-07-25', 1, 5, '15000.00'),
+('2025-09-25', 6, 5, '17.50'),
+('2025-09-25', 7, 10, '20.00'),
+('2025-09-26', 5, 2, '2.40'),
+('2025-09-27', 3, 2, '4.40'),
+('2025-09-27', 4, 3, '5.40'),
+('2025-09-28', 2, 4, '6.00');
+
+-- --------------------------------------------------------
+
+--
+-- Estructura de tabla para la tabla `resumen_vendedor_dia`
+--
+
+CREATE TABLE `resumen_vendedor_dia` (
+  `dia` date NOT NULL,
+  `vendedor` varchar(60) COLLATE utf8_spanish_ci NOT NULL,
+  `ventas` int(11) NOT NULL,
+  `total` decimal(14,2) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_spanish_ci;
+
+INSERT INTO `resumen_vendedor_dia` (`dia`, `vendedor`, `ventas`, `total`) VALUES
+('2021-07-25', 'Angel Sifuentes', 1, '15000.00'),
+('2025-09-25', 'Angel Sifuentes', 1, '20.00'),
+('2025-09-26', 'Eduardo Jimenez', 1, '6.20'),
+('2025-09-27', 'Ana Torres', 1, '18.40'),
+('2025-09-28', 'Eduardo Jimenez', 1, '12.00');
 
 --
 -- Índices para tablas volcadas
 --
 
+ALTER TABLE `cambios`
+  ADD PRIMARY KEY (`seq`),
+  ADD KEY `idx_cambios_fecha` (`fecha`);
+
 ALTER TABLE `clientes`
-  ADD PRIMARY KEY (`id`);
+  ADD PRIMARY KEY (`id`),
+  ADD UNIQUE KEY `uk_clientes_dni` (`dni`);
 
 ALTER TABLE `config`
   ADD PRIMARY KEY (`id`);
@@ -188,24 +321,50 @@ ALTER TABLE `detalle`
   ADD KEY `id_venta` (`id_venta`),
   ADD KEY `id_pro` (`id_pro`);
 
+ALTER TABLE `historial_precios`
+  ADD PRIMARY KEY (`id_lote`,`id_pro`),
+  ADD KEY `idx_historial_producto` (`id_pro`);
+
+ALTER TABLE `lotes_precios`
+  ADD PRIMARY KEY (`id`);
+
 ALTER TABLE `productos`
   ADD PRIMARY KEY (`id`),
+  ADD UNIQUE KEY `uk_productos_codigo` (`codigo`),
   ADD KEY `proveedor` (`proveedor`);
 
 ALTER TABLE `proveedor`
   ADD PRIMARY KEY (`id`);
 
+ALTER TABLE `resumen_dia`
+  ADD PRIMARY KEY (`dia`);
+
+ALTER TABLE `resumen_producto_dia`
+  ADD PRIMARY KEY (`dia`,`id_pro`),
+  ADD KEY `idx_resumen_producto` (`id_pro`);
+
+ALTER TABLE `resumen_vendedor_dia`
+  ADD PRIMARY KEY (`dia`,`vendedor`);
+
+ALTER TABLE `schema_version`
+  ADD PRIMARY KEY (`version`);
+
 ALTER TABLE `usuarios`
   ADD PRIMARY KEY (`id`);
 
 ALTER TABLE `ventas`
   ADD PRIMARY KEY (`id`),
-  ADD KEY `cliente` (`cliente`);
+  ADD KEY `cliente` (`cliente`),
+  ADD KEY `idx_ventas_fecha_hora` (`fecha_hora`),
+  ADD UNIQUE KEY `uk_ventas_uuid` (`uuid`);
 
 --
 -- AUTO_INCREMENT de las tablas volcadas
 --
 
+ALTER TABLE `cambios`
+  MODIFY `seq` bigint(20) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=1;
+
 ALTER TABLE `clientes`
   MODIFY `id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=6;
 
@@ -215,6 +374,9 @@ ALTER TABLE `config`
 ALTER TABLE `detalle`
   MODIFY `id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=11;
 
+ALTER TABLE `lotes_precios`
+  MODIFY `id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=1;
+
 ALTER TABLE `productos`
   MODIFY `id` int(11) NOT NULL AUTO_INCREMENT, AUTO_INCREMENT=8;
 
@@ -235,9 +397,16 @@ ALTER TABLE `detalle`
   ADD CONSTRAINT `detalle_ibfk_1` FOREIGN KEY (`id_pro`) REFERENCES `productos` (`id`) ON DELETE CASCADE ON UPDATE CASCADE,
   ADD CONSTRAINT `detalle_ibfk_2` FOREIGN KEY (`id_venta`) REFERENCES `ventas` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;
 
+ALTER TABLE `historial_precios`
+  ADD CONSTRAINT `historial_precios_ibfk_1` FOREIGN KEY (`id_lote`) REFERENCES `lotes_precios` (`id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `historial_precios_ibfk_2` FOREIGN KEY (`id_pro`) REFERENCES `productos` (`id`) ON DELETE CASCADE;
+
 ALTER TABLE `productos`
   ADD CONSTRAINT `productos_ibfk_1` FOREIGN KEY (`proveedor`) REFERENCES `proveedor` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;
 
+ALTER TABLE `resumen_producto_dia`
+  ADD CONSTRAINT `resumen_producto_dia_ibfk_1` FOREIGN KEY (`id_pro`) REFERENCES `productos` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;
+
 ALTER TABLE `ventas`
   ADD CONSTRAINT `ventas_ibfk_1` FOREIGN KEY (`cliente`) REFERENCES `clientes` (`id`) ON DELETE CASCADE ON UPDATE CASCADE;
 